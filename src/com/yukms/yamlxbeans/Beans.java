@@ -70,6 +70,16 @@ class Beans {
     }
 
     public static Object createObject(Class type, boolean privateConstructors) throws InvocationTargetException {
+        Constructor constructor = getConstructor(type, privateConstructors);
+        try {
+            return constructor.newInstance();
+        } catch (Exception ex) {
+            throw new InvocationTargetException(ex, "Error constructing instance of class: " + type.getName());
+        }
+    }
+
+    /** Returns the no-arg constructor used to create objects of the type, which may be of a common implementation of it. */
+    static Constructor getConstructor(Class type, boolean privateConstructors) throws InvocationTargetException {
         // Use no-arg constructor.
         Constructor constructor = null;
         for (Constructor typeConstructor : type.getConstructors()) {
@@ -106,12 +116,7 @@ class Beans {
             throw new InvocationTargetException(null,
                 "Unable to find a no-arg constructor for class: " + type.getName());
         }
-
-        try {
-            return constructor.newInstance();
-        } catch (Exception ex) {
-            throw new InvocationTargetException(ex, "Error constructing instance of class: " + type.getName());
-        }
+        return constructor;
     }
 
     public static Set<Property> getProperties(Class type, boolean beanProperties, boolean privateFields,
@@ -162,7 +167,7 @@ class Beans {
         return properties;
     }
 
-    static private String toJavaIdentifier(String name) {
+    static String toJavaIdentifier(String name) {
         StringBuilder buffer = new StringBuilder();
         for (int i = 0, n = name.length(); i < n; i++) {
             char c = name.charAt(i);
@@ -226,7 +231,7 @@ class Beans {
         return null;
     }
 
-    static private ArrayList<Field> getAllFields(Class type) {
+    static ArrayList<Field> getAllFields(Class type) {
         ArrayList<Class> classes = new ArrayList<>();
         Class nextClass = type;
         while (nextClass != null && nextClass != Object.class) {
@@ -241,45 +246,16 @@ class Beans {
     }
 
     public static class MethodProperty extends Property {
-        private final Method setMethod, getMethod;
-
         public MethodProperty(String name, Method setMethod, Method getMethod) {
-            super(getMethod.getDeclaringClass(), name, getMethod.getReturnType(), getMethod.getGenericReturnType());
-            this.setMethod = setMethod;
-            this.getMethod = getMethod;
-        }
-
-        public void set(Object object, Object value) throws Exception {
-            if (object instanceof DeferredConstruction) {
-                ((DeferredConstruction) object).storeProperty(this, value);
-                return;
-            }
-            setMethod.invoke(object, value);
-        }
-
-        public Object get(Object object) throws Exception {
-            return getMethod.invoke(object);
+            super(getMethod.getDeclaringClass(), name, getMethod.getReturnType(), getMethod.getGenericReturnType(),
+                PropertyAccessor.forMethods(getMethod, setMethod));
         }
     }
 
     static public class FieldProperty extends Property {
-        private final Field field;
-
         public FieldProperty(Field field) {
-            super(field.getDeclaringClass(), field.getName(), field.getType(), field.getGenericType());
-            this.field = field;
-        }
-
-        public void set(Object object, Object value) throws Exception {
-            if (object instanceof DeferredConstruction) {
-                ((DeferredConstruction) object).storeProperty(this, value);
-                return;
-            }
-            field.set(object, value);
-        }
-
-        public Object get(Object object) throws Exception {
-            return field.get(object);
+            super(field.getDeclaringClass(), field.getName(), field.getType(), field.getGenericType(),
+                PropertyAccessor.forField(field));
         }
     }
 
@@ -288,12 +264,14 @@ class Beans {
         private final String name;
         private final Class type;
         private final Class elementType;
+        private final PropertyAccessor accessor;
 
-        Property(Class declaringClass, String name, Class type, Type genericType) {
+        Property(Class declaringClass, String name, Class type, Type genericType, PropertyAccessor accessor) {
             this.declaringClass = declaringClass;
             this.name = name;
             this.type = type;
             this.elementType = getElementTypeFromGenerics(genericType);
+            this.accessor = accessor;
         }
 
         private Class getElementTypeFromGenerics(Type type) {
@@ -392,8 +370,37 @@ class Beans {
             return comparison;
         }
 
-        abstract public void set(Object object, Object value) throws Exception;
+        public void set(Object object, Object value) throws Exception {
+            if (object instanceof DeferredConstruction) {
+                ((DeferredConstruction) object).storeProperty(this, value);
+                return;
+            }
+            accessor.setter.accept(object, value);
+        }
+
+        /** Sets an int property without boxing the value. */
+        public void setInt(Object object, int value) throws Exception {
+            if (accessor.intSetter == null || object instanceof DeferredConstruction) { set(object, value); } else {
+                accessor.intSetter.accept(object, value);
+            }
+        }
 
-        abstract public Object get(Object object) throws Exception;
+        /** Sets a long property without boxing the value. */
+        public void setLong(Object object, long value) throws Exception {
+            if (accessor.longSetter == null || object instanceof DeferredConstruction) { set(object, value); } else {
+                accessor.longSetter.accept(object, value);
+            }
+        }
+
+        /** Sets a double property without boxing the value. */
+        public void setDouble(Object object, double value) throws Exception {
+            if (accessor.doubleSetter == null || object instanceof DeferredConstruction) { set(object, value); } else {
+                accessor.doubleSetter.accept(object, value);
+            }
+        }
+
+        public Object get(Object object) throws Exception {
+            return accessor.getter.apply(object);
+        }
     }
 }
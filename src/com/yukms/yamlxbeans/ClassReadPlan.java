@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2008 Nathan Sweet
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.yukms.yamlxbeans;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.yukms.yamlxbeans.Beans.Property;
+
+/**
+ * Everything reading needs to know about a class, looked up once so reading each object does no reflection. A plan is immutable,
+ * so it can be shared by readers on any thread.
+ *
+ * @see YamlxConfig#prepare(Class[])
+ */
+class ClassReadPlan {
+    private final Class type;
+    private final YamlxConfig config;
+    /** The property for each name that {@link Beans#getProperty} finds one for. */
+    private final Map<String, PropertyPlan> properties = new HashMap<>();
+    /**
+     * The names of {@link #properties} in an open addressing table indexed by the hash of their characters, so a key can be
+     * matched without making a String of it.
+     */
+    private final String[] tableNames;
+    private final int[] tableHashes;
+    private final PropertyPlan[] tableProperties;
+    private final Constructor constructor;
+    private final Constructor deferredConstructor;
+    private final String[] parameterNames;
+
+    ClassReadPlan(Class type, YamlxConfig config) {
+        this.type = type;
+        this.config = config;
+
+        DeferredConstruction deferredConstruction = Beans.getDeferredConstruction(type, config);
+        deferredConstructor = deferredConstruction == null ? null : deferredConstruction.getConstructor();
+        parameterNames = deferredConstruction == null ? null : deferredConstruction.getParameterNames();
+
+        Constructor constructor = null;
+        try {
+            constructor = Beans.getConstructor(type, config.privateConstructors);
+        } catch (InvocationTargetException ignored) { }
+        this.constructor = constructor;
+
+        // A key can only name a field, or a bean property whose getter is named after it.
+        Set<String> names = new LinkedHashSet<>();
+        for (Field field : Beans.getAllFields(type)) {
+            names.add(field.getName());
+        }
+        if (config.beanProperties) {
+            for (Method method : type.getMethods()) {
+                String name = method.getName();
+                int prefix = name.startsWith("get") ? 3 : name.startsWith("is") ? 2 : 0;
+                if (prefix == 0 || name.length() == prefix || method.getParameterTypes().length != 0) { continue; }
+                name = name.substring(prefix);
+                names.add(name);
+                names.add(Character.toLowerCase(name.charAt(0)) + name.substring(1));
+            }
+        }
+        for (String name : names) {
+            PropertyPlan property = lookUp(name);
+            if (property != null) {
+                property.index = properties.size();
+                properties.put(name, property);
+            }
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(properties.size(), 1)) << 2;
+        tableNames = new String[capacity];
+        tableHashes = new int[capacity];
+        tableProperties = new PropertyPlan[capacity];
+        for (Map.Entry<String, PropertyPlan> entry : properties.entrySet()) {
+            int hash = hash(entry.getKey()), index = hash & capacity - 1;
+            while (tableNames[index] != null) {
+                index = index + 1 & capacity - 1;
+            }
+            tableNames[index] = entry.getKey();
+            tableHashes[index] = hash;
+            tableProperties[index] = entry.getValue();
+        }
+    }
+
+    Class getType() {
+        return type;
+    }
+
+    /** Returns the number of keys that have a {@link PropertyPlan#index}. */
+    int getIndexedKeyCount() {
+        return properties.size();
+    }
+
+    /** Returns the property for the key, or null if the class has none. */
+    PropertyPlan getProperty(String key) {
+        PropertyPlan property = properties.get(key);
+        if (property != null) { return property; }
+        String name = Beans.toJavaIdentifier(key);
+        if (name.length() != 0 && name.charAt(0) < 128) {
+            // Only the names above can match, since an ASCII letter is only the upper case of itself and its lower case.
+            return name.length() == key.length() ? null : properties.get(name);
+        }
+        return lookUp(key);
+    }
+
+    /**
+     * Returns the property whose name has exactly the characters of the key, or null. Unlike {@link #getProperty(String)}, a key
+     * that only names a property after it is converted to a Java identifier is not found.
+     */
+    PropertyPlan getNamedProperty(CharSequence key) {
+        int hash = hash(key), mask = tableNames.length - 1;
+        for (int index = hash & mask; tableNames[index] != null; index = index + 1 & mask) {
+            if (tableHashes[index] == hash && tableNames[index].contentEquals(key)) { return tableProperties[index]; }
+        }
+        return null;
+    }
+
+    /** Returns the same hash as {@link String#hashCode()}, spread so the low bits depend on every character. */
+    private static int hash(CharSequence key) {
+        int hash = 0;
+        for (int i = 0, n = key.length(); i < n; i++) {
+            hash = 31 * hash + key.charAt(i);
+        }
+        return hash ^ hash >>> 16;
+    }
+
+    private PropertyPlan lookUp(String name) {
+        Property property = Beans.getProperty(type, name, config.beanProperties, config.privateFields, config);
+        if (property == null) { return null; }
+        Class elementType = config.propertyToElementType.get(property);
+        if (elementType == null) { elementType = property.getElementType(); }
+        return new PropertyPlan(name, property, elementType, config.propertyToDefaultType.get(property),
+            config.propertyToElementConsumer.get(property));
+    }
+
+    /** Returns a new object of the class, which is a {@link DeferredConstruction} if the class needs constructor parameters. */
+    Object newInstance() throws InvocationTargetException {
+        if (deferredConstructor != null) { return new DeferredConstruction(deferredConstructor, parameterNames); }
+        return createObject();
+    }
+
+    /** Returns a new object of the class or of a common implementation of it, using its no-arg constructor. */
+    Object createObject() throws InvocationTargetException {
+        // Without a constructor, looking again throws the exception.
+        Constructor constructor = this.constructor;
+        if (constructor == null) { constructor = Beans.getConstructor(type, config.privateConstructors); }
+        try {
+            return constructor.newInstance();
+        } catch (Exception ex) {
+            throw new InvocationTargetException(ex, "Error constructing instance of class: " + type.getName());
+        }
+    }
+
+    static class PropertyPlan {
+        /** The key this plan was looked up for. */
+        final String name;
+        final Property property;
+        final Class elementType;
+        final Class defaultType;
+        /** Is given each element instead of the property being set, or null. */
+        final Consumer elementConsumer;
+        /**
+         * A number below {@link ClassReadPlan#getIndexedKeyCount()} that is unique to the key {@link #name}, or -1 if the plan
+         * was looked up for a key the class plan does not keep.
+         */
+        int index = -1;
+
+        PropertyPlan(String name, Property property, Class elementType, Class defaultType, Consumer elementConsumer) {
+            this.name = name;
+            this.property = property;
+            this.elementType = elementType;
+            this.defaultType = defaultType;
+            this.elementConsumer = elementConsumer;
+        }
+    }
+}
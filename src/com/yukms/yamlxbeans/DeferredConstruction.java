@@ -84,6 +84,14 @@ class DeferredConstruction {
         propertyValues.add(propertyValue);
     }
 
+    Constructor getConstructor() {
+        return constructor;
+    }
+
+    String[] getParameterNames() {
+        return parameterNames;
+    }
+
     public boolean hasParameter(String name) {
 		for (String s : parameterNames) { if (s.equals(name)) { return true; } }
         return false;
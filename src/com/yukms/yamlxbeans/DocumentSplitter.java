@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2008 Nathan Sweet
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.yukms.yamlxbeans;
+
+import java.nio.ByteBuffer;
+
+import com.yukms.yamlxbeans.collection.IntList;
+
+/**
+ * Finds where documents start in the raw characters of a YAML stream, so runs of documents can be read separately. Only the
+ * start of each line is looked at, without tokenizing, and a run only ends where reading the runs separately reads the same
+ * documents as reading the whole stream:
+ * <ul>
+ * <li>A "---" line ends a run, unless the document before it may be a plain scalar, which the tokenizer continues onto the
+ * "---" line. A document ended by "..." can be followed by any document.
+ * <li>The directives before a "---" line start the run with it.
+ * <li>There are no runs after a %TAG directive, since the parser keeps tag handles for the rest of the stream.
+ * </ul>
+ * A "---" line inside a quoted scalar is taken for a document start too, which leaves the scalar unterminated, so reading the run
+ * before it fails.
+ * <p>
+ * A document whose root is a block sequence or mapping can also be split into slices of its entries, where a line starts at the
+ * indent of the root.
+ */
+final class DocumentSplitter {
+    /** What the first content of a document shows about whether a run can end after it. */
+    private static final int NO_CONTENT = 0, SAFE = 1, PLAIN = 2;
+
+    private DocumentSplitter() {
+    }
+
+    /**
+     * Returns the offsets where runs of whole documents start, beginning with 0. Each run but the last is at least the given
+     * number of characters, so small documents are read in batches.
+     */
+    static IntList split(CharSequence text, int minLength) {
+        IntList starts = new IntList();
+        starts.addInt(0);
+        int length = text.length();
+        int lastStart = 0;
+        // The start of the directives after a document, which belong to the next document, or -1.
+        int directives = -1;
+        boolean afterEnd = true;
+        int content = NO_CONTENT;
+        for (int line = 0; line < length; line = nextLine(text, line)) {
+            char c = text.charAt(line);
+            if (isMarker(text, line, '-')) {
+                int start = directives != -1 ? directives : line;
+                if ((afterEnd || content != PLAIN) && start > lastStart && start - lastStart >= minLength) {
+                    starts.addInt(start);
+                    lastStart = start;
+                }
+                directives = -1;
+                afterEnd = false;
+                content = classify(text, line + 3);
+            } else if (isMarker(text, line, '.')) {
+                directives = -1;
+                afterEnd = true;
+                content = NO_CONTENT;
+            } else if (c == '%' && (afterEnd || content != PLAIN)) {
+                // A directive ends the document before it, unless it continues a plain scalar.
+                if (startsWith(text, line, "%TAG")) { break; }
+                if (directives == -1) { directives = line; }
+            } else {
+                int lineContent = classify(text, line);
+                if (lineContent != NO_CONTENT) {
+                    directives = -1;
+                    afterEnd = false;
+                    if (content == NO_CONTENT) { content = lineContent; }
+                }
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * Returns the offsets where slices of the entries of the document's root collection start, beginning with 0, or null if the
+     * root is not a block sequence or mapping without properties. Each slice but the last is at least the given number of
+     * characters. The first slice has the document start marker, and each slice can be read as a document whose root is a
+     * collection of the slice's entries. The document must have no directives, and a mapping no merge keys or complex keys at
+     * its root, since those make the entries depend on each other.
+     */
+    static IntList splitEntries(CharSequence text, int minLength) {
+        int length = text.length();
+        int line = 0, rootIndent = -1;
+        boolean sequence = false;
+        for (; line < length; line = nextLine(text, line)) {
+            if (isMarker(text, line, '-')) {
+                if (!isBlank(text, line + 3)) { return null; }
+                continue;
+            }
+            if (isBlank(text, line)) { continue; }
+            int index = skipSpaces(text, line);
+            char c = text.charAt(index);
+            if (c == '-' && index + 1 < length && isSpaceOrBreak(text.charAt(index + 1))) {
+                sequence = true;
+            } else if (!isPlainKey(text, index)) {
+                return null;
+            }
+            rootIndent = index - line;
+            break;
+        }
+        if (rootIndent == -1) { return null; }
+        IntList starts = new IntList();
+        starts.addInt(0);
+        int lastStart = 0;
+        for (line = nextLine(text, line); line < length; line = nextLine(text, line)) {
+            if (isMarker(text, line, '-') || isMarker(text, line, '.')) { break; }
+            if (isBlank(text, line)) { continue; }
+            int index = skipSpaces(text, line);
+            if (index - line > rootIndent) { continue; }
+            if (index - line < rootIndent || text.charAt(index) == '\t') { return null; }
+            char c = text.charAt(index);
+            boolean entry = c == '-' && index + 1 < length && isSpaceOrBreak(text.charAt(index + 1));
+            if (!sequence) {
+                // A sequence at the indent of a mapping is the value of the key before it.
+                if (entry) { continue; }
+                if (!isPlainKey(text, index) || startsWith(text, index, "<<")) { return null; }
+            } else if (!entry) {
+                return null;
+            }
+            if (line - lastStart >= minLength) {
+                starts.addInt(line);
+                lastStart = line;
+            }
+        }
+        return starts;
+    }
+
+    /** Returns true if the rest of the line has only spaces or a comment. */
+    private static boolean isBlank(CharSequence text, int index) {
+        index = skipSpaces(text, index);
+        if (index == text.length()) { return true; }
+        char c = text.charAt(index);
+        return c == '\n' || c == '\r' || c == '#';
+    }
+
+    /** Returns true if the line starts with a plain scalar followed by ": " or a ':' at the end of the line. */
+    private static boolean isPlainKey(CharSequence text, int index) {
+        char c = text.charAt(index);
+        if ("?:,[]{}#&*!|>'\"%@`".indexOf(c) != -1) { return false; }
+        return classify(text, index) == SAFE;
+    }
+
+    /** Returns the offsets where runs of whole documents start in the bytes remaining in the buffer, relative to its position. */
+    static IntList split(ByteBuffer bytes, int minLength) {
+        return split(chars(bytes), minLength);
+    }
+
+    /** Returns the offsets where slices of the root collection start in the bytes remaining in the buffer, or null. */
+    static IntList splitEntries(ByteBuffer bytes, int minLength) {
+        return splitEntries(chars(bytes), minLength);
+    }
+
+    /** Returns the bytes remaining in the buffer as characters. */
+    private static CharSequence chars(ByteBuffer bytes) {
+        return new ByteChars(bytes, bytes.position(), bytes.remaining());
+    }
+
+    /**
+     * A range of bytes read as one character per byte, from 0 to 0xFF, without decoding UTF-8. Every byte of a multibyte UTF-8
+     * character is above 0x7F, so it cannot be mistaken for a character this class looks for. {@link #toString()} has the same
+     * characters, one per byte.
+     */
+    private static final class ByteChars implements CharSequence {
+        private final ByteBuffer bytes;
+        private final int offset, length;
+
+        ByteChars(ByteBuffer bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) { throw new IndexOutOfBoundsException("index: " + index + ", length: " + length); }
+            return (char) (bytes.get(offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length);
+            }
+            return new ByteChars(bytes, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) (bytes.get(offset + i) & 0xFF);
+            }
+            return new String(chars);
+        }
+    }
+
+    /**
+     * Returns {@link #NO_CONTENT} if the rest of the line has only properties, spaces or a comment, else {@link #PLAIN} if it
+     * may start a plain scalar that is not a mapping key, else {@link #SAFE}.
+     */
+    private static int classify(CharSequence text, int index) {
+        int length = text.length();
+        index = skipSpaces(text, index);
+        // Skip tags and anchors.
+        while (index < length && (text.charAt(index) == '!' || text.charAt(index) == '&')) {
+            while (index < length && !isSpaceOrBreak(text.charAt(index))) { index++; }
+            index = skipSpaces(text, index);
+        }
+        if (index == length) { return NO_CONTENT; }
+        char c = text.charAt(index);
+        if (c == '\n' || c == '\r' || c == '#') { return NO_CONTENT; }
+        char next = index + 1 < length ? text.charAt(index + 1) : '\n';
+        if ((c == '-' || c == '?') && isSpaceOrBreak(next)) { return SAFE; }
+        if (c == '[' || c == '{' || c == '|' || c == '>' || c == '\'' || c == '"' || c == '*') { return SAFE; }
+        // A plain scalar cannot have ": " in it, so a line that has one starts a mapping.
+        for (; index < length; index++) {
+            c = text.charAt(index);
+            if (c == '\n' || c == '\r') { break; }
+            next = index + 1 < length ? text.charAt(index + 1) : '\n';
+            if (c == ':' && isSpaceOrBreak(next)) { return SAFE; }
+            if (isSpaceOrBreak(c) && next == '#') { break; }
+        }
+        return PLAIN;
+    }
+
+    private static int skipSpaces(CharSequence text, int index) {
+        while (index < text.length() && (text.charAt(index) == ' ' || text.charAt(index) == '\t')) { index++; }
+        return index;
+    }
+
+    private static boolean isSpaceOrBreak(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private static boolean startsWith(CharSequence text, int index, String prefix) {
+        if (index + prefix.length() > text.length()) { return false; }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(index + i) != prefix.charAt(i)) { return false; }
+        }
+        return true;
+    }
+
+    /** Returns true if the line is a document start or end marker, which is three of the character then a space or line end. */
+    private static boolean isMarker(CharSequence text, int line, char c) {
+        int length = text.length();
+        if (line + 3 > length || text.charAt(line) != c || text.charAt(line + 1) != c || text.charAt(line + 2) != c) {
+            return false;
+        }
+        return line + 3 == length || isSpaceOrBreak(text.charAt(line + 3));
+    }
+
+    private static int nextLine(CharSequence text, int line) {
+        int length = text.length();
+        for (int i = line; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\n') { return i + 1; }
+            if (c == '\r') { return i + 1 < length && text.charAt(i + 1) == '\n' ? i + 2 : i + 1; }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2008 Nathan Sweet
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.yukms.yamlxbeans;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.yukms.yamlxbeans.ClassReadPlan.PropertyPlan;
+
+/**
+ * The keys read from a mapping into a bean, as a bit for each key the class's {@link ClassReadPlan} indexes and a set for the
+ * others. A reader keeps one for each level of nested beans and reuses it for every mapping read at that level.
+ */
+class KeySet {
+    private long[] indexedKeys = new long[1];
+    private final Set<Object> otherKeys = new HashSet<>();
+
+    /** Removes all keys, so keys of a class with the given number of indexed keys can be added. */
+    void clear(int indexedKeyCount) {
+        int words = indexedKeyCount + 63 >>> 6;
+        if (words > indexedKeys.length) { indexedKeys = new long[words]; } else { Arrays.fill(indexedKeys, 0, words, 0); }
+        otherKeys.clear();
+    }
+
+    /**
+     * Adds a key and returns true, or returns false if the key was already added.
+     *
+     * @param property The property looked up for the key, or null.
+     */
+    boolean add(PropertyPlan property, Object key) {
+        if (property == null || property.index == -1 || !property.name.equals(key)) { return otherKeys.add(key); }
+        int word = property.index >>> 6;
+        long bit = 1L << property.index;
+        if ((indexedKeys[word] & bit) != 0) { return false; }
+        indexedKeys[word] |= bit;
+        return true;
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2008 Nathan Sweet
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.yukms.yamlxbeans;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Parses the numbers in scalars straight from their characters, without throwing an exception to find out that a scalar is not a
+ * number. Integers are read like {@link Long#decode(String)} and floating point numbers like {@link Double#valueOf(String)}. The
+ * YAML forms are also read: the 0o and 0b prefixes, underscores between digits, and .inf and .nan.
+ */
+final class NumberParser {
+    /** The powers of ten a double holds exactly, enough for the digits of {@link #simpleDecimal(CharSequence, int)}. */
+    private static final double[] DOUBLE_POWERS = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14,
+        1e15};
+    private static final float[] FLOAT_POWERS = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f};
+
+    private NumberParser() {
+    }
+
+    /**
+     * Returns the number a scalar holds, or null if it is not a number. An integer is an Integer if it fits, else a Long or a
+     * BigInteger. A floating point number is a Float unless it is too large or too small for a float, else a Double or a
+     * BigDecimal.
+     */
+    static Number guess(CharSequence value) {
+        long form = integerForm(value);
+        if (form != 0) {
+            int start = (int) form, radix = (int) (form >>> 32);
+            boolean negative = value.charAt(0) == '-';
+            long result = negatedDigits(value, start, radix);
+            if (result == 1 || !negative && result == Long.MIN_VALUE) {
+                BigInteger big = new BigInteger(digits(value, start), radix);
+                return negative ? big.negate() : big;
+            }
+            if (!negative) { result = -result; }
+            if (result >= Integer.MIN_VALUE && result <= Integer.MAX_VALUE) { return Integer.valueOf((int) result); }
+            return Long.valueOf(result);
+        }
+        long decimal = simpleDecimal(value, FLOAT_POWERS.length - 1);
+        if (decimal != -1) { return Float.valueOf(toFloat(decimal)); }
+        String text = floatingText(value);
+        if (text == null) { return null; }
+        float f = Float.parseFloat(text);
+        if (f != 0 && !Float.isInfinite(f)) { return Float.valueOf(f); }
+        double d = Double.parseDouble(text);
+        if (d != 0 && !Double.isInfinite(d)) { return Double.valueOf(d); }
+        // The value is zero or infinite as a double too, so it is either exact or too large or small for a double.
+        boolean exact = Double.isInfinite(d) ? text.endsWith("Infinity") : !hasNonZeroDigit(text);
+        if (exact || text.indexOf('x') != -1 || text.indexOf('X') != -1) { return Float.valueOf(f); }
+        return new BigDecimal(text);
+    }
+
+    /**
+     * Parses an integer that fits in the given type, which is an int, long, short or byte or its wrapper.
+     *
+     * @throws NumberFormatException if the value is not an integer or does not fit in the type.
+     */
+    static long parseLong(CharSequence value, Class type) {
+        if (type == int.class || type == Integer.class) { return parseLong(value, Integer.MIN_VALUE, Integer.MAX_VALUE); }
+        if (type == short.class || type == Short.class) { return parseLong(value, Short.MIN_VALUE, Short.MAX_VALUE); }
+        if (type == byte.class || type == Byte.class) { return parseLong(value, Byte.MIN_VALUE, Byte.MAX_VALUE); }
+        return parseLong(value, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Parses an integer and checks it is within the range.
+     *
+     * @throws NumberFormatException if the value is not an integer or is out of the range.
+     */
+    static long parseLong(CharSequence value, long min, long max) {
+        long form = integerForm(value);
+        if (form == 0) { throw new NumberFormatException("For input string: \"" + value + "\""); }
+        boolean negative = value.charAt(0) == '-';
+        long result = negatedDigits(value, (int) form, (int) (form >>> 32));
+        if (result == 1 || !negative && result == Long.MIN_VALUE) {
+            throw new NumberFormatException("Value out of range. Value:\"" + value + "\"");
+        }
+        if (!negative) { result = -result; }
+        if (result < min || result > max) { throw new NumberFormatException("Value out of range. Value:\"" + value + "\""); }
+        return result;
+    }
+
+    /**
+     * Parses a floating point number.
+     *
+     * @throws NumberFormatException if the value is not a number.
+     */
+    static double parseDouble(CharSequence value) {
+        long decimal = simpleDecimal(value, DOUBLE_POWERS.length - 1);
+        if (decimal != -1) {
+            double result = (decimal >>> 8) / DOUBLE_POWERS[(int) decimal & 0x7f];
+            return (decimal & 0x80) != 0 ? -result : result;
+        }
+        String text = floatingText(value);
+        if (text == null) { throw new NumberFormatException("For input string: \"" + value + "\""); }
+        return Double.parseDouble(text);
+    }
+
+    /**
+     * Parses a floating point number.
+     *
+     * @throws NumberFormatException if the value is not a number.
+     */
+    static float parseFloat(CharSequence value) {
+        long decimal = simpleDecimal(value, FLOAT_POWERS.length - 1);
+        if (decimal != -1) { return toFloat(decimal); }
+        String text = floatingText(value);
+        if (text == null) { throw new NumberFormatException("For input string: \"" + value + "\""); }
+        return Float.parseFloat(text);
+    }
+
+    /**
+     * Returns the radix of an integer in the upper half and the index of its first digit in the lower half, or 0 if the value is
+     * not an integer. Besides the forms read by {@link Long#decode(String)}, the 0o and 0b prefixes and underscores after the
+     * first digit are allowed.
+     */
+    private static long integerForm(CharSequence value) {
+        int length = value.length(), index = 0;
+        if (length == 0) { return 0; }
+        char c = value.charAt(0);
+        if (c == '-' || c == '+') {
+            if (++index == length) { return 0; }
+            c = value.charAt(index);
+        }
+        int radix = 10;
+        if (c == '#') {
+            radix = 16;
+            index++;
+        } else if (c == '0' && index + 1 < length) {
+            char next = value.charAt(index + 1);
+            if (next == 'x' || next == 'X') {
+                radix = 16;
+                index += 2;
+            } else if (next == 'o') {
+                radix = 8;
+                index += 2;
+            } else if (next == 'b') {
+                radix = 2;
+                index += 2;
+            } else {
+                // The leading zero is kept as a digit of the octal number.
+                radix = 8;
+            }
+        }
+        if (index == length || value.charAt(index) == '_') { return 0; }
+        for (int i = index; i < length; i++) {
+            c = value.charAt(i);
+            if (c != '_' && Character.digit(c, radix) < 0) { return 0; }
+        }
+        return (long) radix << 32 | index;
+    }
+
+    /**
+     * Returns the negated value of the digits from the index, or 1 if the value is smaller than the smallest long. The value is
+     * accumulated negatively, like {@link Long#parseLong(String, int)} does, so the smallest long can be read.
+     */
+    private static long negatedDigits(CharSequence value, int index, int radix) {
+        long multiplyMin = Long.MIN_VALUE / radix, result = 0;
+        for (int length = value.length(); index < length; index++) {
+            char c = value.charAt(index);
+            if (c == '_') { continue; }
+            int digit = Character.digit(c, radix);
+            if (result < multiplyMin) { return 1; }
+            result *= radix;
+            if (result < Long.MIN_VALUE + digit) { return 1; }
+            result -= digit;
+        }
+        return result;
+    }
+
+    /** Returns the digits from the index without underscores. */
+    private static String digits(CharSequence value, int index) {
+        StringBuilder buffer = new StringBuilder(value.length() - index);
+        for (int length = value.length(); index < length; index++) {
+            char c = value.charAt(index);
+            if (c != '_') { buffer.append(c); }
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Returns the digits of a decimal number without an exponent in the upper bits, with the sign in bit 7 and the number of
+     * digits after the point in the lower bits, or -1 if the value has another form or more than the most digits. The digits and
+     * the power of ten are exact as a double, or as a float for up to 7 digits, so one division rounds the number the same as
+     * {@link Double#parseDouble(String)} without making a String of it.
+     */
+    private static long simpleDecimal(CharSequence value, int maxDigits) {
+        int length = value.length(), index = 0;
+        if (length == 0) { return -1; }
+        char c = value.charAt(0);
+        boolean negative = c == '-';
+        if (negative || c == '+') { index++; }
+        long digits = 0;
+        int count = 0, scale = -1;
+        for (; index < length; index++) {
+            c = value.charAt(index);
+            if (c >= '0' && c <= '9') {
+                if (++count > maxDigits) { return -1; }
+                digits = digits * 10 + c - '0';
+                if (scale != -1) { scale++; }
+            } else if (c == '.' && scale == -1) {
+                scale = 0;
+            } else {
+                return -1;
+            }
+        }
+        if (count == 0) { return -1; }
+        return digits << 8 | (negative ? 0x80 : 0) | Math.max(scale, 0);
+    }
+
+    /** Returns the float of a number from {@link #simpleDecimal(CharSequence, int)} with at most 7 digits. */
+    private static float toFloat(long decimal) {
+        float result = (decimal >>> 8) / FLOAT_POWERS[(int) decimal & 0x7f];
+        return (decimal & 0x80) != 0 ? -result : result;
+    }
+
+    /**
+     * Returns the text {@link Double#parseDouble(String)} reads as the floating point number a value holds, or null if the value
+     * is not a floating point number. The value is returned as is unless it has surrounding whitespace, underscores, a type
+     * suffix or a YAML form of infinity or NaN.
+     */
+    private static String floatingText(CharSequence value) {
+        int start = 0, end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) { return null; }
+        int index = start;
+        char c = value.charAt(index);
+        boolean signed = c == '-' || c == '+';
+        if (signed && ++index == end) { return null; }
+        if (matches(value, index, end, "NaN") || matches(value, index, end, "Infinity")) {
+            return value.subSequence(start, end).toString();
+        }
+        if (matches(value, index, end, ".inf") || matches(value, index, end, ".Inf") || matches(value, index, end, ".INF")) {
+            return c == '-' ? "-Infinity" : "Infinity";
+        }
+        if (matches(value, index, end, ".nan") || matches(value, index, end, ".NaN") || matches(value, index, end, ".NAN")) {
+            return signed ? null : "NaN";
+        }
+        c = value.charAt(index);
+        boolean hex = c == '0' && index + 1 < end && (value.charAt(index + 1) == 'x' || value.charAt(index + 1) == 'X');
+        if (hex) { index += 2; }
+        int digits = 0;
+        boolean underscores = false, point = false;
+        for (; index < end; index++) {
+            c = value.charAt(index);
+            if (hex ? Character.digit(c, 16) >= 0 && c < 128 : c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else if (c == '_' && !hex && digits > 0) {
+                underscores = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) { return null; }
+        if (index < end && (hex ? c == 'p' || c == 'P' : c == 'e' || c == 'E')) {
+            if (++index < end && (value.charAt(index) == '-' || value.charAt(index) == '+')) { index++; }
+            int exponentStart = index;
+            while (index < end && value.charAt(index) >= '0' && value.charAt(index) <= '9') {
+                index++;
+            }
+            if (index == exponentStart) { return null; }
+        } else if (hex) {
+            // A hexadecimal floating point number must have a binary exponent.
+            return null;
+        }
+        int numberEnd = index;
+        if (index < end) {
+            c = value.charAt(index);
+            if (c != 'f' && c != 'F' && c != 'd' && c != 'D' || index + 1 != end) { return null; }
+        }
+        if (!underscores && start == 0 && numberEnd == value.length()) { return value.toString(); }
+        StringBuilder buffer = new StringBuilder(numberEnd - start);
+        for (int i = start; i < numberEnd; i++) {
+            c = value.charAt(i);
+            if (c != '_') { buffer.append(c); }
+        }
+        return buffer.toString();
+    }
+
+    private static boolean matches(CharSequence value, int start, int end, String text) {
+        if (end - start != text.length()) { return false; }
+        for (int i = 0; i < text.length(); i++) {
+            if (value.charAt(start + i) != text.charAt(i)) { return false; }
+        }
+        return true;
+    }
+
+    /** Returns true if a decimal floating point number has a digit other than zero before its exponent. */
+    private static boolean hasNonZeroDigit(String text) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (c == 'e' || c == 'E') { return false; }
+            if (c >= '1' && c <= '9') { return true; }
+        }
+        return false;
+    }
+}
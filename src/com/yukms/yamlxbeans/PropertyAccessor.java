@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2008 Nathan Sweet
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.yukms.yamlxbeans;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Gets and sets a property without reflection. Public getters and setters of public classes are called through lambdas made by
+ * {@link LambdaMetafactory}, which the JIT compiles like direct calls. Other methods and fields are accessed through method
+ * handles, or through reflection if the handles cannot be made. Properties of type int, long and double also have setters that take
+ * the primitive value, so it is never boxed.
+ * <p>
+ * Accessors are made once for each getter and setter or field, and are kept with the class that declares them.
+ */
+class PropertyAccessor {
+    private final static MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private final static MethodType GET = MethodType.methodType(Object.class, Object.class);
+    private final static MethodType SET = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final static ClassValue<Map<Object, PropertyAccessor>> ACCESSORS = new ClassValue<Map<Object, PropertyAccessor>>() {
+        protected Map<Object, PropertyAccessor> computeValue(Class type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    final Function<Object, Object> getter;
+    final BiConsumer<Object, Object> setter;
+    final ObjIntConsumer<Object> intSetter;
+    final ObjLongConsumer<Object> longSetter;
+    final ObjDoubleConsumer<Object> doubleSetter;
+
+    private PropertyAccessor(Function<Object, Object> getter, BiConsumer<Object, Object> setter, Object primitiveSetter) {
+        this.getter = getter;
+        this.setter = setter;
+        intSetter = primitiveSetter instanceof ObjIntConsumer ? (ObjIntConsumer) primitiveSetter : null;
+        longSetter = primitiveSetter instanceof ObjLongConsumer ? (ObjLongConsumer) primitiveSetter : null;
+        doubleSetter = primitiveSetter instanceof ObjDoubleConsumer ? (ObjDoubleConsumer) primitiveSetter : null;
+    }
+
+    /** Returns the accessor for a getter and a setter, which may be null. */
+    static PropertyAccessor forMethods(Method getMethod, Method setMethod) {
+        // The accessor is kept with the subclass when the methods are declared by different classes.
+        Class owner = getMethod.getDeclaringClass();
+        if (setMethod != null && owner.isAssignableFrom(setMethod.getDeclaringClass())) { owner = setMethod.getDeclaringClass(); }
+        Map<Object, PropertyAccessor> accessors = ACCESSORS.get(owner);
+        Object key = Arrays.asList(getMethod, setMethod);
+        PropertyAccessor accessor = accessors.get(key);
+        if (accessor == null) {
+            Class type = setMethod == null ? null : setMethod.getParameterTypes()[0];
+            accessor = new PropertyAccessor(getter(getMethod), setMethod == null ? null : setter(setMethod, type),
+                setMethod == null ? null : primitiveSetter(setMethod, type));
+            accessors.put(key, accessor);
+        }
+        return accessor;
+    }
+
+    static PropertyAccessor forField(Field field) {
+        Map<Object, PropertyAccessor> accessors = ACCESSORS.get(field.getDeclaringClass());
+        PropertyAccessor accessor = accessors.get(field);
+        if (accessor == null) {
+            accessor = new PropertyAccessor(getter(field), setter(field, field.getType()), primitiveSetter(field, field.getType()));
+            accessors.put(field, accessor);
+        }
+        return accessor;
+    }
+
+    private static Function<Object, Object> getter(Member member) {
+        try {
+            MethodHandle handle = unreflect(member, false);
+            if (member instanceof Method && isLinkable((Method) member)) {
+                Method method = (Method) member;
+                MethodType type = MethodType.methodType(wrap(method.getReturnType()), method.getDeclaringClass());
+                Function<Object, Object> getter = (Function) lambda(Function.class, "apply", GET, type, handle);
+                if (getter != null) { return getter; }
+            }
+            MethodHandle getter = handle.asType(GET);
+            return object -> {
+                try {
+                    return (Object) getter.invokeExact(object);
+                } catch (Throwable ex) {
+                    throw rethrow(ex);
+                }
+            };
+        } catch (IllegalAccessException ex) {
+            if (member instanceof Method) {
+                return object -> {
+                    try {
+                        return ((Method) member).invoke(object);
+                    } catch (Exception ex2) {
+                        throw rethrow(ex2);
+                    }
+                };
+            }
+            return object -> {
+                try {
+                    return ((Field) member).get(object);
+                } catch (Exception ex2) {
+                    throw rethrow(ex2);
+                }
+            };
+        }
+    }
+
+    private static BiConsumer<Object, Object> setter(Member member, Class type) {
+        try {
+            MethodHandle handle = unreflect(member, true);
+            if (member instanceof Method && isLinkable((Method) member)) {
+                Method method = (Method) member;
+                MethodType instantiated = MethodType.methodType(void.class, method.getDeclaringClass(), wrap(type));
+                BiConsumer<Object, Object> setter = (BiConsumer) lambda(BiConsumer.class, "accept", SET, instantiated, handle);
+                if (setter != null) { return setter; }
+            }
+            MethodHandle setter = handle.asType(SET);
+            return (object, value) -> {
+                try {
+                    setter.invokeExact(object, value);
+                } catch (Throwable ex) {
+                    throw rethrow(ex);
+                }
+            };
+        } catch (IllegalAccessException ex) {
+            if (member instanceof Method) {
+                return (object, value) -> {
+                    try {
+                        ((Method) member).invoke(object, value);
+                    } catch (Exception ex2) {
+                        throw rethrow(ex2);
+                    }
+                };
+            }
+            return (object, value) -> {
+                try {
+                    ((Field) member).set(object, value);
+                } catch (Exception ex2) {
+                    throw rethrow(ex2);
+                }
+            };
+        }
+    }
+
+    /** Returns an ObjIntConsumer, ObjLongConsumer or ObjDoubleConsumer for a property of that primitive type, or else null. */
+    private static Object primitiveSetter(Member member, Class type) {
+        Class consumer;
+        if (type == int.class) {
+            consumer = ObjIntConsumer.class;
+        } else if (type == long.class) {
+            consumer = ObjLongConsumer.class;
+        } else if (type == double.class) {
+            consumer = ObjDoubleConsumer.class;
+        } else { return null; }
+        try {
+            MethodHandle handle = unreflect(member, true);
+            if (member instanceof Method && isLinkable((Method) member)) {
+                MethodType instantiated = MethodType.methodType(void.class, ((Method) member).getDeclaringClass(), type);
+                Object setter = lambda(consumer, "accept", MethodType.methodType(void.class, Object.class, type), instantiated, handle);
+                if (setter != null) { return setter; }
+            }
+            MethodHandle setter = handle.asType(MethodType.methodType(void.class, Object.class, type));
+            if (type == int.class) {
+                return (ObjIntConsumer<Object>) (object, value) -> {
+                    try {
+                        setter.invokeExact(object, value);
+                    } catch (Throwable ex) {
+                        throw rethrow(ex);
+                    }
+                };
+            }
+            if (type == long.class) {
+                return (ObjLongConsumer<Object>) (object, value) -> {
+                    try {
+                        setter.invokeExact(object, value);
+                    } catch (Throwable ex) {
+                        throw rethrow(ex);
+                    }
+                };
+            }
+            return (ObjDoubleConsumer<Object>) (object, value) -> {
+                try {
+                    setter.invokeExact(object, value);
+                } catch (Throwable ex) {
+                    throw rethrow(ex);
+                }
+            };
+        } catch (IllegalAccessException ex) {
+            // The boxed setter is used.
+            return null;
+        }
+    }
+
+    /** Returns a method handle for the getter, setter or field, which takes the object even for a static method. */
+    private static MethodHandle unreflect(Member member, boolean set) throws IllegalAccessException {
+        if (member instanceof Field) { return set ? LOOKUP.unreflectSetter((Field) member) : LOOKUP.unreflectGetter((Field) member); }
+        MethodHandle handle = LOOKUP.unreflect((Method) member);
+        if (Modifier.isStatic(member.getModifiers())) { handle = MethodHandles.dropArguments(handle, 0, Object.class); }
+        return handle;
+    }
+
+    /** Returns a lambda implementing the interface's method by calling the method handle, or null if one cannot be made for it. */
+    private static Object lambda(Class interfaceType, String name, MethodType samType, MethodType instantiatedType,
+        MethodHandle implementation) {
+        try {
+            return LambdaMetafactory.metafactory(LOOKUP, name, MethodType.methodType(interfaceType), samType, implementation,
+                instantiatedType).getTarget().invoke();
+        } catch (Throwable ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns true if a lambda can call the method. The lambda's class is defined in this package by this class's class loader, so
+     * the method and the types it is called with must be public and visible from here.
+     */
+    private static boolean isLinkable(Method method) {
+        if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) { return false; }
+        if (!isLinkable(method.getDeclaringClass())) { return false; }
+        for (Class type : method.getParameterTypes()) {
+            if (!isLinkable(type)) { return false; }
+        }
+        return isLinkable(method.getReturnType());
+    }
+
+    private static boolean isLinkable(Class type) {
+        while (type.isArray()) { type = type.getComponentType(); }
+        if (type.isPrimitive()) { return true; }
+        for (Class c = type; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) { return false; }
+        }
+        try {
+            return Class.forName(type.getName(), false, PropertyAccessor.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    private static Class wrap(Class type) {
+        if (!type.isPrimitive()) { return type; }
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    /** Returns an unchecked exception to throw for the exception. A getter or setter's own exception is thrown as is. */
+    private static RuntimeException rethrow(Throwable ex) {
+        if (ex instanceof java.lang.reflect.InvocationTargetException) { ex = ex.getCause(); }
+        if (ex instanceof RuntimeException) { return (RuntimeException) ex; }
+        if (ex instanceof Error) { throw (Error) ex; }
+        return new UndeclaredThrowableException(ex);
+    }
+}
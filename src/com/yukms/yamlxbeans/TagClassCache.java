@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2008 Nathan Sweet
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.yukms.yamlxbeans;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The class each tag resolves to through each class loader, including the tags that resolve to no class or whose class is not
+ * found. Class loaders and classes are only weakly referenced, so the cache does not keep the classes of an application loaded
+ * after it is redeployed.
+ */
+class TagClassCache {
+    /** Cached for a tag that resolves to no class. */
+    private final static Object NO_CLASS = new Object();
+    /** Cached for a tag whose class is not found. */
+    private final static Object NOT_FOUND = new Object();
+
+    private final Map<ClassLoader, Map<String, Object>> classLoaders = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Returns the class for the tag, which {@link YamlxReader#findTagClass(String, ClassLoader)} is called to find the first
+     * time the tag is resolved through the class loader.
+     */
+    Class<?> findTagClass(String tag, ClassLoader classLoader, YamlxReader reader) throws ClassNotFoundException {
+        Map<String, Object> tags = classLoaders.get(classLoader);
+        if (tags == null) {
+            tags = new ConcurrentHashMap<>();
+            Map<String, Object> existing = classLoaders.putIfAbsent(classLoader, tags);
+            if (existing != null) { tags = existing; }
+        }
+        Object value = tags.get(tag);
+        if (value instanceof WeakReference) {
+            Class<?> type = (Class<?>) ((WeakReference) value).get();
+            if (type != null) { return type; }
+            // The class was unloaded, so look it up again.
+            value = null;
+        }
+        if (value == null) {
+            try {
+                Class<?> type = reader.findTagClass(tag, classLoader);
+                tags.put(tag, type == null ? NO_CLASS : new WeakReference<Class<?>>(type));
+                return type;
+            } catch (ClassNotFoundException ex) {
+                tags.put(tag, NOT_FOUND);
+                throw ex;
+            }
+        }
+        if (value == NOT_FOUND) { throw new ClassNotFoundException(tag); }
+        return null;
+    }
+}
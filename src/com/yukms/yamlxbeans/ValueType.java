@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2008 Nathan Sweet
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.yukms.yamlxbeans;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.yukms.yamlxbeans.scalar.ScalarSerializer;
+
+/**
+ * How values of a class are read and written, looked up once per class so each value is dispatched without scanning the scalar
+ * serializers or testing its class against each kind of value.
+ *
+ * @see YamlxConfig#valueType(Class)
+ */
+class ValueType {
+    enum Kind {
+        /** A primitive, a primitive wrapper or a String. */
+        SCALAR, ENUM, COLLECTION, MAP, ARRAY, BEAN
+    }
+
+    final Kind kind;
+    /** The serializer registered for the class or one of its supertypes, or null. */
+    final ScalarSerializer serializer;
+    /** The constants of an enum, or null. */
+    private final Enum[] enumConstants;
+
+    ValueType(Class type, Map<Class, ScalarSerializer> scalarSerializers) {
+        if (Beans.isScalar(type)) {
+            kind = Kind.SCALAR;
+        } else if (Enum.class.isAssignableFrom(type)) {
+            kind = Kind.ENUM;
+        } else if (Collection.class.isAssignableFrom(type)) {
+            kind = Kind.COLLECTION;
+        } else if (Map.class.isAssignableFrom(type)) {
+            kind = Kind.MAP;
+        } else if (type.isArray()) {
+            kind = Kind.ARRAY;
+        } else {
+            kind = Kind.BEAN;
+        }
+
+        ScalarSerializer serializer = null;
+        for (Entry<Class, ScalarSerializer> entry : scalarSerializers.entrySet()) {
+            if (entry.getKey().isAssignableFrom(type)) {
+                serializer = entry.getValue();
+                break;
+            }
+        }
+        this.serializer = serializer;
+        enumConstants = kind == Kind.ENUM ? (Enum[]) type.getEnumConstants() : null;
+    }
+
+    /** Returns the constant of an enum named by the characters of the value, the same as {@link Enum#valueOf}, or null. */
+    Enum enumConstant(CharSequence name) {
+        if (enumConstants == null) { return null; }
+        for (Enum constant : enumConstants) {
+            String constantName = constant.name();
+            if (constantName.length() == name.length() && constantName.contentEquals(name)) { return constant; }
+        }
+        return null;
+    }
+}
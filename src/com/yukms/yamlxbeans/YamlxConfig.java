@@ -26,7 +26,11 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
+import com.yukms.yamlxbeans.collection.CollectionFactory;
 import com.yukms.yamlxbeans.emitter.EmitterConfigx;
 import com.yukms.yamlxbeans.scalar.BigDecimalSerializer;
 import com.yukms.yamlxbeans.scalar.BigIntegerSerializer;
@@ -34,6 +38,7 @@ import com.yukms.yamlxbeans.scalar.ClassSerializer;
 import com.yukms.yamlxbeans.scalar.DateSerializer;
 import com.yukms.yamlxbeans.scalar.ScalarSerializer;
 import com.yukms.yamlxbeans.scalar.SimpleThrowableSerializer;
+import com.yukms.yamlxbeans.tokenizer.TokenizerConfigx;
 
 /**
  * Stores configuration for reading and writing YAML.
@@ -47,11 +52,14 @@ public class YamlxConfig {
     public final ReadConfig readConfig = new ReadConfig();
     /** 自定义解析 */
     final Map<Class, ScalarSerializer> scalarSerializers = new IdentityHashMap<>();
+    /** The value type of each class read or written, which is cleared when {@link #scalarSerializers} changes. */
+    final Map<Class, ValueType> valueTypes = new ConcurrentHashMap<>();
 
     final Map<String, String> classNameToTag = new HashMap<>();
     final Map<String, Class> tagToClass = new HashMap<>();
     final Map<Beans.Property, Class> propertyToElementType = new HashMap<>();
     final Map<Beans.Property, Class> propertyToDefaultType = new HashMap<>();
+    final Map<Beans.Property, Consumer> propertyToElementConsumer = new HashMap<>();
     boolean beanProperties = true;
     boolean privateFields;
     boolean privateConstructors = true;
@@ -91,6 +99,7 @@ public class YamlxConfig {
         if (type == null) { throw new IllegalArgumentException("type cannot be null."); }
         if (serializer == null) { throw new IllegalArgumentException("serializer cannot be null."); }
         scalarSerializers.put(type, serializer);
+        valueTypes.clear();
     }
 
     /**
@@ -111,6 +120,7 @@ public class YamlxConfig {
                 " class must be a Collection or Map: " + property.getType());
         }
         propertyToElementType.put(property, elementType);
+        readConfig.readPlans.clear();
     }
 
     /**
@@ -127,6 +137,31 @@ public class YamlxConfig {
                 "The class " + type.getName() + " does not have a property named: " + propertyName);
         }
         propertyToDefaultType.put(property, defaultType);
+        readConfig.readPlans.clear();
+    }
+
+    /**
+     * Sets a consumer that is given each element of a Collection property as it is read, instead of the elements being added to
+     * a collection. The property is not set, so the elements are not kept. Other properties of the class are read as usual.
+     *
+     * @param consumer May be null to read the property into a collection again.
+     */
+    public void setPropertyElementConsumer(Class type, String propertyName, Consumer consumer) {
+        if (type == null) { throw new IllegalArgumentException("type cannot be null."); }
+        if (propertyName == null) { throw new IllegalArgumentException("propertyName cannot be null."); }
+        Beans.Property property = Beans.getProperty(type, propertyName, beanProperties, privateFields, this);
+        if (property == null) {
+            throw new IllegalArgumentException(
+                "The class " + type.getName() + " does not have a property named: " + propertyName);
+        }
+        if (!Collection.class.isAssignableFrom(property.getType())) {
+            throw new IllegalArgumentException("The '" + propertyName + "' property on the " + type.getName() +
+                " class must be a Collection: " + property.getType());
+        }
+        if (consumer == null) { propertyToElementConsumer.remove(property); } else {
+            propertyToElementConsumer.put(property, consumer);
+        }
+        readConfig.readPlans.clear();
     }
 
     /**
@@ -135,16 +170,51 @@ public class YamlxConfig {
      */
     public void setBeanProperties(boolean beanProperties) {
         this.beanProperties = beanProperties;
+        readConfig.readPlans.clear();
     }
 
     /** If true, private non-transient fields will be used. Default is false. */
     public void setPrivateFields(boolean privateFields) {
         this.privateFields = privateFields;
+        readConfig.readPlans.clear();
     }
 
     /** If true, private no-arg constructors will be used. Default is true. */
     public void setPrivateConstructors(boolean privateConstructors) {
         this.privateConstructors = privateConstructors;
+        readConfig.readPlans.clear();
+    }
+
+    /**
+     * Looks up the properties and constructors of the classes now, instead of when an object of each class is first read. The
+     * lookups are redone if this configuration is changed afterward.
+     */
+    public void prepare(Class... types) {
+        if (types == null) { throw new IllegalArgumentException("types cannot be null."); }
+        for (Class type : types) {
+            if (type == null) { throw new IllegalArgumentException("types cannot contain null."); }
+            readPlan(type);
+        }
+    }
+
+    /** Returns the read plan for the class, which is made the first time it is needed. */
+    ClassReadPlan readPlan(Class type) {
+        ClassReadPlan plan = readConfig.readPlans.get(type);
+        if (plan == null) {
+            plan = new ClassReadPlan(type, this);
+            readConfig.readPlans.put(type, plan);
+        }
+        return plan;
+    }
+
+    /** Returns the value type of the class, which is looked up the first time it is needed. */
+    ValueType valueType(Class type) {
+        ValueType valueType = valueTypes.get(type);
+        if (valueType == null) {
+            valueType = new ValueType(type, scalarSerializers);
+            valueTypes.put(type, valueType);
+        }
+        return valueType;
     }
 
     /**
@@ -271,10 +341,19 @@ public class YamlxConfig {
         Versionx defaultVersion = new Versionx(1, 1);
         ClassLoader classLoader;
         final Map<Class, ConstructorParameters> constructorParameters = new IdentityHashMap();
+        final Map<Class, ClassReadPlan> readPlans = new ConcurrentHashMap<>();
+        final TagClassCache tagClasses = new TagClassCache();
         boolean ignoreUnknownProperties;
         boolean autoMerge = true;
+        boolean mergeViews;
         boolean classTags = true;
         boolean guessNumberTypes;
+        boolean documentAnchors = true;
+        int maxAnchors = Integer.MAX_VALUE;
+        CollectionFactory collectionFactory;
+        TokenizerConfigx tokenizerConfigx = new TokenizerConfigx();
+        int pipelineCapacity;
+        Executor pipelineExecutor;
 
         ReadConfig() {
         }
@@ -307,6 +386,7 @@ public class YamlxConfig {
             }
             parameters.parameterNames = parameterNames;
             constructorParameters.put(type, parameters);
+            readPlans.clear();
         }
 
         /**
@@ -329,6 +409,91 @@ public class YamlxConfig {
         public void setGuessNumberTypes(boolean guessNumberTypes) {
             this.guessNumberTypes = guessNumberTypes;
         }
+
+        /**
+         * When true, a mapping with merge keys (&lt;&lt;) that is read into a Map, and whose type is unknown or can be a
+         * {@link com.yukms.yamlxbeans.collection.MergedMap}, is read as a MergedMap, which refers to the merged mappings instead
+         * of copying their entries. Default is false.
+         */
+        public void setMergeViews(boolean mergeViews) {
+            this.mergeViews = mergeViews;
+        }
+
+        /**
+         * When true, the anchors of each document are forgotten when the next document is read, as the YAML specification
+         * requires. When false, an alias can refer to an anchor from an earlier document of the stream. Default is true.
+         *
+         * @see #setMaxAnchors(int)
+         */
+        public void setDocumentAnchors(boolean documentAnchors) {
+            this.documentAnchors = documentAnchors;
+        }
+
+        /**
+         * Sets the most anchored objects a reader keeps. When another is read, the oldest anchor is forgotten, so a later alias to
+         * it fails. This bounds the memory used when anchors are kept across the documents of a long stream. Default is
+         * {@link Integer#MAX_VALUE}.
+         */
+        public void setMaxAnchors(int maxAnchors) {
+            if (maxAnchors < 1) { throw new IllegalArgumentException("maxAnchors must be > 0: " + maxAnchors); }
+            this.maxAnchors = maxAnchors;
+        }
+
+        /**
+         * Sets the factory asked first for each collection a sequence is read into, such as a
+         * {@link com.yukms.yamlxbeans.collection.PrimitiveCollectionFactory}. Default is null.
+         */
+        public void setCollectionFactory(CollectionFactory collectionFactory) {
+            this.collectionFactory = collectionFactory;
+        }
+
+        /**
+         * Sets the number of characters buffered ahead of the tokenizer. The buffer is reused for the whole stream and only grows
+         * when a longer lookahead is needed. Default is 8192.
+         */
+        public void setBufferSize(int bufferSize) {
+            tokenizerConfigx.setBufferSize(bufferSize);
+        }
+
+        /** Sets the maximum number of characters requested from the reader by each read. Default is 1024. */
+        public void setReadChunkSize(int readChunkSize) {
+            tokenizerConfigx.setReadChunkSize(readChunkSize);
+        }
+
+        /**
+         * When true, scalars without escapes or folding are read in place from the tokenizer's buffer and only copied into a
+         * String when a String is needed. Keys naming a property and numbers are read from the buffer without a String. Default
+         * is false.
+         */
+        public void setScalarViews(boolean scalarViews) {
+            tokenizerConfigx.setScalarViews(scalarViews);
+        }
+
+        /**
+         * When true, the line number of the tokenizer's position is only counted when it is needed, such as for an error message.
+         * Default is false.
+         */
+        public void setLazyPositions(boolean lazyPositions) {
+            tokenizerConfigx.setLazyPositions(lazyPositions);
+        }
+
+        /**
+         * Sets the most events that are parsed ahead of the objects being read. When greater than 0, the YAML is tokenized and
+         * parsed on another thread while the objects are read on the calling thread, see
+         * {@link com.yukms.yamlxbeans.parser.PipelinedCursor}. A reader that is not read to the end of its stream should be
+         * closed to stop the other thread. Default is 0.
+         */
+        public void setPipelineCapacity(int pipelineCapacity) {
+            if (pipelineCapacity < 0) {
+                throw new IllegalArgumentException("pipelineCapacity must be >= 0: " + pipelineCapacity);
+            }
+            this.pipelineCapacity = pipelineCapacity;
+        }
+
+        /** Sets the executor that runs the parser when {@link #setPipelineCapacity(int) pipelined}, or null to start a thread. */
+        public void setPipelineExecutor(Executor pipelineExecutor) {
+            this.pipelineExecutor = pipelineExecutor;
+        }
     }
 
     static class ConstructorParameters {
@@ -20,25 +20,43 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
-import com.yukms.yamlxbeans.Beans.Property;
-import com.yukms.yamlxbeans.parser.AliasEvent;
-import com.yukms.yamlxbeans.parser.CollectionStartEvent;
-import com.yukms.yamlxbeans.parser.Event;
+import com.yukms.yamlxbeans.ClassReadPlan.PropertyPlan;
+import com.yukms.yamlxbeans.ValueType.Kind;
+import com.yukms.yamlxbeans.YamlxConfig.ReadConfig;
+import com.yukms.yamlxbeans.collection.DoubleList;
+import com.yukms.yamlxbeans.collection.IntList;
+import com.yukms.yamlxbeans.collection.LongList;
+import com.yukms.yamlxbeans.collection.MergedMap;
+import com.yukms.yamlxbeans.parser.EventType;
 import com.yukms.yamlxbeans.parser.Parser;
-import com.yukms.yamlxbeans.parser.ScalarEvent;
+import com.yukms.yamlxbeans.parser.PipelinedCursor;
+import com.yukms.yamlxbeans.parser.YamlCursor;
 import com.yukms.yamlxbeans.scalar.ScalarSerializer;
-import com.yukms.yamlxbeans.parser.EventType;
 import com.yukms.yamlxbeans.tokenizer.Tokenizer;
+import com.yukms.yamlxbeans.tokenizer.Utf8Reader;
 
 /**
  * Deserializes Java objects from YAML.
@@ -46,25 +64,89 @@ import com.yukms.yamlxbeans.tokenizer.Tokenizer;
  * @author <a href="mailto:misc@n4te.com">Nathan Sweet</a>
  */
 public class YamlxReader {
+    /** The fewest characters {@link #readAll(Class, Executor)} gives a reader, so small documents are read in batches. */
+    private static final int MIN_RUN_LENGTH = 64 * 1024;
     private final YamlxConfig config;
-    private Parser parser;
-    private final Map<String, Object> anchors = new HashMap<>();
+    private YamlCursor cursor;
+    private final Map<String, Object> anchors;
+    private int peakAnchorCount;
+    /** The key set of each level of nested beans being read. */
+    private final List<KeySet> keySets = new ArrayList<>();
+    private int beanDepth;
+    /** The String or ByteBuffer being read, for {@link #readAll(Class, Executor)}, or null. */
+    private Object source;
+    /** True after {@link #readAll(Class, Executor)} has read the rest of the documents without the cursor. */
+    private boolean ended;
+    /** Identifies the document being read by the iterator {@link #readSequence(Class)} returned, or null. */
+    private Object document;
+    /** False if a subclass overrides {@link #readValue(Class, Class, Class)}, so every value has to be read by it. */
+    private final boolean setPrimitives = !overrides(getClass(), "readValue", Class.class, Class.class, Class.class);
+    /**
+     * The classes found for tags. A subclass that overrides {@link #findTagClass(String, ClassLoader)} has its own, so the
+     * override is called once for each tag it reads.
+     */
+    private final TagClassCache tagClasses;
 
     public YamlxReader(Reader reader) {
         this(reader, new YamlxConfig());
     }
 
     public YamlxReader(Reader reader, YamlxConfig config) {
+        this(reader, config, config.readConfig.pipelineCapacity > 0);
+    }
+
+    private YamlxReader(Reader reader, YamlxConfig config, boolean pipelined) {
         this.config = config;
-        parser = new Parser(reader, config.readConfig.defaultVersion);
+        int maxAnchors = config.readConfig.maxAnchors;
+        anchors = maxAnchors == Integer.MAX_VALUE ? new HashMap<String, Object>() : new AnchorMap(maxAnchors);
+        tagClasses = overrides(getClass(), "findTagClass", String.class, ClassLoader.class) ? new TagClassCache()
+            : config.readConfig.tagClasses;
+        ReadConfig readConfig = config.readConfig;
+        if (pipelined) {
+            cursor = new PipelinedCursor(reader, readConfig.defaultVersion, readConfig.tokenizerConfigx,
+                readConfig.pipelineCapacity, readConfig.pipelineExecutor);
+        } else {
+            cursor = new YamlCursor(reader, readConfig.defaultVersion, readConfig.tokenizerConfigx);
+        }
     }
 
     public YamlxReader(String yaml) {
-        this(new StringReader(yaml));
+        this(yaml, new YamlxConfig());
     }
 
     public YamlxReader(String yaml, YamlxConfig config) {
         this(new StringReader(yaml), config);
+        source = yaml;
+    }
+
+    /** Reads the UTF-8 bytes remaining in the buffer. The position of the buffer is not changed. */
+    public YamlxReader(ByteBuffer bytes) {
+        this(bytes, new YamlxConfig());
+    }
+
+    /** Reads the UTF-8 bytes remaining in the buffer. The position of the buffer is not changed. */
+    public YamlxReader(ByteBuffer bytes, YamlxConfig config) {
+        this(new Utf8Reader(bytes), config);
+        source = bytes.duplicate();
+    }
+
+    /** Reads a UTF-8 file by mapping it into memory. */
+    public YamlxReader(Path path) throws IOException {
+        this(path, new YamlxConfig());
+    }
+
+    /** Reads a UTF-8 file by mapping it into memory. */
+    public YamlxReader(Path path, YamlxConfig config) throws IOException {
+        this(map(path), config);
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        if (path == null) { throw new IllegalArgumentException("path cannot be null."); }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) { throw new YamlxException("File is too large to map: " + path); }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
     }
 
     public YamlxConfig getConfig() {
@@ -73,14 +155,26 @@ public class YamlxReader {
 
     /**
      * Return the object with the given alias, or null. This is only valid after objects have been read and before
-     * {@link #close()}
+     * {@link #close()}. Unless {@link YamlxConfig.ReadConfig#setDocumentAnchors(boolean)} is false, only the anchors of the last
+     * document read are found.
      */
     public Object get(String alias) {
         return anchors.get(alias);
     }
 
+    /** Returns the number of anchored objects the reader holds. */
+    public int getAnchorCount() {
+        return anchors.size();
+    }
+
+    /** Returns the most anchored objects the reader has held at once. */
+    public int getPeakAnchorCount() {
+        return Math.max(peakAnchorCount, anchors.size());
+    }
+
     public void close() throws IOException {
-        parser.close();
+        document = null;
+        cursor.close();
         anchors.clear();
     }
 
@@ -108,52 +202,341 @@ public class YamlxReader {
      */
     public <T> T read(Class<T> type, Class elementType) throws YamlxException {
         try {
-            while (true) {
-                Event event = parser.getNextEvent();
-                if (event == null) {
-                    return null;
-                }
-                if (event.type == EventType.STREAM_END) {
-                    return null;
+            if (!nextDocument()) {
+                return null;
+            }
+            beanDepth = 0;
+            return (T) readValue(type, elementType, null);
+        } catch (Parser.ParserException ex) {
+            throw new YamlxException("Error parsing YAML.", ex);
+        } catch (Tokenizer.TokenizerException ex) {
+            throw new YamlxException("Error tokenizing YAML.", ex);
+        }
+    }
+
+    /**
+     * Reads the next YAML document, which must be a sequence, one element at a time. Each element is read when the iterator
+     * reaches it and is not kept by the reader, so a sequence larger than the heap can be read. Elements with an anchor are kept
+     * for aliases later in the document, see {@link YamlxConfig.ReadConfig#setMaxAnchors(int)}. An empty document has no
+     * elements.
+     * <p>
+     * The iterator ends at the end of the sequence, leaving the reader before the next document. Reading another document before
+     * then ends the iterator early. Errors reading an element are thrown as an {@link UncheckedIOException} whose cause is the
+     * YamlxException.
+     *
+     * @param elementType The type of the elements. If null, each element is read the same as by {@link #read()}.
+     * @return The iterator, or null if there are no more documents.
+     */
+    public <T> Iterator<T> readSequence(final Class<T> elementType) throws YamlxException {
+        try {
+            if (!nextDocument()) {
+                return null;
+            }
+            if (cursor.getEventType() == EventType.SCALAR && cursor.getText() == null && cursor.getTag() == null) {
+                cursor.next();
+                return Collections.emptyIterator();
+            }
+            if (cursor.getEventType() != EventType.SEQUENCE_START) {
+                throw new YamlReaderException("Expected a sequence but found: " + cursor.getEventType());
+            }
+            cursor.next();
+        } catch (Parser.ParserException ex) {
+            throw new YamlxException("Error parsing YAML.", ex);
+        } catch (Tokenizer.TokenizerException ex) {
+            throw new YamlxException("Error tokenizing YAML.", ex);
+        }
+        final Object document = new Object();
+        this.document = document;
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                if (YamlxReader.this.document != document) { return false; }
+                if (cursor.getEventType() != EventType.SEQUENCE_END) { return true; }
+                YamlxReader.this.document = null;
+                try {
+                    cursor.next();
+                } catch (Parser.ParserException ex) {
+                    throw new UncheckedIOException(new YamlxException("Error parsing YAML.", ex));
+                } catch (Tokenizer.TokenizerException ex) {
+                    throw new UncheckedIOException(new YamlxException("Error tokenizing YAML.", ex));
                 }
-                if (event.type == EventType.DOCUMENT_START) {
-                    break;
+                return false;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) { throw new NoSuchElementException(); }
+                try {
+                    beanDepth = 0;
+                    return (T) readValue(elementType, null, null);
+                } catch (YamlxException ex) {
+                    YamlxReader.this.document = null;
+                    throw new UncheckedIOException(ex);
+                } catch (Parser.ParserException ex) {
+                    YamlxReader.this.document = null;
+                    throw new UncheckedIOException(new YamlxException("Error parsing YAML.", ex));
+                } catch (Tokenizer.TokenizerException ex) {
+                    YamlxReader.this.document = null;
+                    throw new UncheckedIOException(new YamlxException("Error tokenizing YAML.", ex));
                 }
             }
-            return (T) readValue(type, elementType, null);
+        };
+    }
+
+    /**
+     * Reads the rest of the documents, each into an object of the specified type, and returns them in the order of the documents.
+     * An empty document is read as null. When the reader was created for a String, ByteBuffer or Path and no document has been
+     * read yet, the input is split into runs of documents where "---" starts a line, and the runs are read at the same time by
+     * the executor, each with its own parser. Otherwise, or when {@link YamlxConfig.ReadConfig#setDocumentAnchors(boolean)} is
+     * false, an element consumer is set or this class is extended, the documents are read one at a time on the calling thread.
+     * <p>
+     * If reading a run fails, the runs that have not started are cancelled. The documents of the runs before it are kept and
+     * skipped on the calling thread without being read again, and the rest are read on the calling thread, so the exception has
+     * the line and column in the whole input.
+     *
+     * @param executor Reads the runs of documents, or null to use {@link ForkJoinPool#commonPool()}.
+     */
+    public <T> List<T> readAll(Class<T> type, Executor executor) throws YamlxException {
+        List<T> documents = new ArrayList<>();
+        if (source != null && cursor.getEventType() == null && config.readConfig.documentAnchors &&
+            getClass() == YamlxReader.class && config.propertyToElementConsumer.isEmpty()) {
+            if (readAllParallel(type, executor == null ? ForkJoinPool.commonPool() : executor, documents)) {
+                ended = true;
+                return documents;
+            }
+        }
+        try {
+            // The documents already read by the runs before one that failed are not read into objects again.
+            for (int read = documents.size(); read > 0 && nextDocument(); read--) {
+                cursor.skipValue();
+            }
+            while (nextDocument()) {
+                beanDepth = 0;
+                documents.add((T) readValue(type, null, null));
+            }
         } catch (Parser.ParserException ex) {
             throw new YamlxException("Error parsing YAML.", ex);
         } catch (Tokenizer.TokenizerException ex) {
             throw new YamlxException("Error tokenizing YAML.", ex);
         }
+        return documents;
     }
 
-    /** Reads an object from the YAML. Can be overidden to take some action for any of the objects returned. */
-    protected Object readValue(Class type, Class elementType, Class defaultType)
-        throws YamlxException, Parser.ParserException, Tokenizer.TokenizerException {
-        String tag = null;
-        String anchor = null;
-        Event event = parser.peekNextEvent();
-
-        switch (event.type) {
-            case ALIAS:
-                parser.getNextEvent();
-                anchor = ((AliasEvent) event).anchor;
-                Object value = anchors.get(anchor);
-                if (value == null) {
-                    throw new YamlReaderException("Unknown anchor: " + anchor);
+    /**
+     * Reads runs of documents with readers run by the executor, adds their objects in order and returns true. Returns false if
+     * there is only one run, or if reading a run fails, after adding the objects of the runs before it and cancelling the runs
+     * that have not started.
+     */
+    private <T> boolean readAllParallel(final Class<T> type, Executor executor, List<T> documents) {
+        IntList starts = source instanceof String ? DocumentSplitter.split((String) source, MIN_RUN_LENGTH)
+            : DocumentSplitter.split((ByteBuffer) source, MIN_RUN_LENGTH);
+        if (starts.size() == 1) { return false; }
+        List<CompletableFuture<List<T>>> runs = new ArrayList<>(starts.size());
+        for (int i = 0, n = starts.size(); i < n; i++) {
+            final int start = starts.getInt(i), end = i + 1 < n ? starts.getInt(i + 1) : sourceLength();
+            runs.add(CompletableFuture.supplyAsync(new Supplier<List<T>>() {
+                @Override
+                public List<T> get() {
+                    try {
+                        return new YamlxReader(sourceReader(start, end), config, false).readAll(type, null);
+                    } catch (YamlxException ex) {
+                        throw new CompletionException(ex);
+                    }
                 }
-                return value;
-            case MAPPING_START:
-            case SEQUENCE_START:
-                tag = ((CollectionStartEvent) event).tag;
-                anchor = ((CollectionStartEvent) event).anchor;
-                break;
-            case SCALAR:
-                tag = ((ScalarEvent) event).tag;
-                anchor = ((ScalarEvent) event).anchor;
+            }, executor));
+        }
+        for (CompletableFuture<List<T>> run : runs) {
+            try {
+                documents.addAll(run.join());
+            } catch (CompletionException ex) {
+                cancel(runs);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Cancels the futures that have not completed, so the tasks that have not started are not run. */
+    private static void cancel(List<? extends CompletableFuture<?>> futures) {
+        for (CompletableFuture<?> future : futures) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * Reads the next document like {@link #read(Class, Class)}, but when its root is a large block sequence or mapping, slices
+     * of its entries are read at the same time by the executor, each with its own parser, and the collections, maps or arrays
+     * read from the slices are joined in order. The entries are sliced where a line starts at the indent of the root, see
+     * {@link DocumentSplitter#splitEntries(CharSequence, int)}.
+     * <p>
+     * The document is read on the calling thread when it could not be read in slices: when the reader was not created for a
+     * String, ByteBuffer or Path, a document has already been read, the input has more than one document, this class is extended,
+     * an element consumer is set, the type is not read as a Collection, Map or array, or the root is flow style or has a tag,
+     * anchor, directive, merge key or complex key. It is also read again on the calling thread when reading a slice fails, such
+     * as for an alias to an anchor in another slice, or when a key of a Map is in more than one slice and duplicate keys are not
+     * allowed. The slices that have not started are then cancelled. Anchors in the document are not kept for
+     * {@link #get(String)}.
+     *
+     * @param executor Reads the slices, or null to use {@link ForkJoinPool#commonPool()}.
+     */
+    public <T> T read(Class<T> type, Class elementType, Executor executor) throws YamlxException {
+        if (source != null && cursor.getEventType() == null && getClass() == YamlxReader.class) {
+            try {
+                Object root = readSlices(type, elementType, executor == null ? ForkJoinPool.commonPool() : executor);
+                if (root != null) {
+                    ended = true;
+                    return (T) root;
+                }
+            } catch (CompletionException ex) {
+                // Reading on this thread throws the exception with its position in the whole document.
+            }
+        }
+        return read(type, elementType);
+    }
+
+    /**
+     * Reads slices of the root collection with readers run by the executor and joins them, or returns null if the document is not
+     * read in slices.
+     */
+    private Object readSlices(final Class type, final Class elementType, Executor executor) {
+        // Consumers would be called by the executor's threads, and called again if the document is read again after a failure.
+        if (!config.propertyToElementConsumer.isEmpty()) { return null; }
+        if (type != null && type != Object.class) {
+            ValueType valueType = config.valueType(type);
+            if (valueType.serializer != null ||
+                valueType.kind != Kind.COLLECTION && valueType.kind != Kind.MAP && valueType.kind != Kind.ARRAY) { return null; }
+        }
+        IntList starts = source instanceof String ? DocumentSplitter.splitEntries((String) source, MIN_RUN_LENGTH)
+            : DocumentSplitter.splitEntries((ByteBuffer) source, MIN_RUN_LENGTH);
+        if (starts == null || starts.size() == 1) { return null; }
+        List<CompletableFuture<Object>> slices = new ArrayList<>(starts.size());
+        for (int i = 0, n = starts.size(); i < n; i++) {
+            final int start = starts.getInt(i), end = i + 1 < n ? starts.getInt(i + 1) : sourceLength();
+            slices.add(CompletableFuture.supplyAsync(new Supplier<Object>() {
+                @Override
+                public Object get() {
+                    try {
+                        YamlxReader reader = new YamlxReader(sourceReader(start, end), config, false);
+                        Object slice = reader.read(type, elementType);
+                        if (!(slice instanceof Collection) && !(slice instanceof Map) && (slice == null || !slice.getClass()
+                            .isArray()) || reader.nextDocument()) {
+                            throw new CompletionException(new YamlReaderException("Unable to read the document in slices."));
+                        }
+                        return slice;
+                    } catch (YamlxException ex) {
+                        throw new CompletionException(ex);
+                    }
+                }
+            }, executor));
+        }
+        try {
+            return joinSlices(slices);
+        } catch (CompletionException ex) {
+            cancel(slices);
+            throw ex;
+        }
+    }
+
+    /** Joins the collections, maps or arrays read from the slices in order. */
+    private Object joinSlices(List<CompletableFuture<Object>> slices) {
+        Object root = slices.get(0).join();
+        if (root.getClass().isArray()) {
+            Object[] arrays = new Object[slices.size()];
+            int length = 0;
+            for (int i = 0, n = slices.size(); i < n; i++) {
+                arrays[i] = slices.get(i).join();
+                if (arrays[i].getClass() != root.getClass()) {
+                    throw new CompletionException(new YamlReaderException("Unable to join the slices of the document."));
+                }
+                length += Array.getLength(arrays[i]);
+            }
+            root = Array.newInstance(root.getClass().getComponentType(), length);
+            int offset = 0;
+            for (Object array : arrays) {
+                int arrayLength = Array.getLength(array);
+                System.arraycopy(array, 0, root, offset, arrayLength);
+                offset += arrayLength;
+            }
+            return root;
+        }
+        for (int i = 1, n = slices.size(); i < n; i++) {
+            Object slice = slices.get(i).join();
+            if (root instanceof Collection && slice instanceof Collection) {
+                ((Collection) root).addAll((Collection) slice);
+            } else if (root instanceof Map && slice instanceof Map) {
+                Map map = (Map) root;
+                for (Object item : ((Map) slice).entrySet()) {
+                    Entry entry = (Entry) item;
+                    if (!config.allowDuplicates && map.containsKey(entry.getKey())) {
+                        throw new CompletionException(new YamlReaderException("Duplicate key found '" + entry.getKey() + "'"));
+                    }
+                    map.put(entry.getKey(), entry.getValue());
+                }
+            } else {
+                throw new CompletionException(new YamlReaderException("Unable to join the slices of the document."));
+            }
+        }
+        return root;
+    }
+
+    /** Returns the number of characters in the String or bytes in the ByteBuffer being read. */
+    private int sourceLength() {
+        return source instanceof String ? ((String) source).length() : ((ByteBuffer) source).remaining();
+    }
+
+    /** Returns a reader for the characters or bytes being read from the start offset to the end offset. */
+    private Reader sourceReader(int start, int end) {
+        if (source instanceof String) { return new StringReader(((String) source).substring(start, end)); }
+        ByteBuffer bytes = ((ByteBuffer) source).duplicate();
+        int position = bytes.position();
+        bytes.limit(position + end).position(position + start);
+        return new Utf8Reader(bytes);
+    }
+
+    /**
+     * Moves the cursor to the first event of the next document and returns true, or returns false if there are no more documents.
+     */
+    private boolean nextDocument() throws Parser.ParserException, Tokenizer.TokenizerException {
+        document = null;
+        if (ended) {
+            return false;
+        }
+        // The cursor is on the last event of the previous document, or before the first event.
+        while (true) {
+            EventType eventType = cursor.next();
+            if (eventType == null) {
+                return false;
+            }
+            if (eventType == EventType.STREAM_END) {
+                return false;
+            }
+            if (eventType == EventType.DOCUMENT_START) {
                 break;
-            default:
+            }
+        }
+        if (config.readConfig.documentAnchors && !anchors.isEmpty()) {
+            peakAnchorCount = getPeakAnchorCount();
+            anchors.clear();
+        }
+        cursor.next();
+        return true;
+    }
+
+    /**
+     * Reads an object from the YAML, starting at the cursor's current event and leaving the cursor on the event after the object.
+     * Can be overidden to take some action for any of the objects returned.
+     */
+    protected Object readValue(Class type, Class elementType, Class defaultType)
+        throws YamlxException, Parser.ParserException, Tokenizer.TokenizerException {
+        String tag = cursor.getTag();
+        String anchor = cursor.getAnchor();
+        if (cursor.getEventType() == EventType.ALIAS) {
+            Object value = anchors.get(anchor);
+            if (value == null) {
+                throw new YamlReaderException("Unknown anchor: " + anchor);
+            }
+            cursor.next();
+            return value;
         }
 
         return readValueInternal(this.chooseType(tag, defaultType, type), elementType, anchor);
@@ -170,7 +553,7 @@ public class YamlxReader {
                 : config.readConfig.classLoader);
 
             try {
-                Class<?> loadedFromTag = findTagClass(tag, classLoader);
+                Class<?> loadedFromTag = tagClasses.findTagClass(tag, classLoader, this);
                 if (loadedFromTag != null) {
                     return loadedFromTag;
                 }
@@ -199,6 +582,9 @@ public class YamlxReader {
      * <p>
      * If this throws a ClassNotFoundException, parsing will fail.
      * <p>
+     * The result is cached, so this is called once for each tag and class loader. The cache is shared by the readers that use the
+     * same {@link YamlxConfig}, unless this method is overridden.
+     * <p>
      * The default implementation is simply
      *
      * <pre>
@@ -216,32 +602,22 @@ public class YamlxReader {
 
     private Object readValueInternal(Class type, Class elementType, String anchor)
         throws YamlxException, Parser.ParserException, Tokenizer.TokenizerException {
-        if (type == null || type == Object.class) {
-            Event event = parser.peekNextEvent();
-            switch (event.type) {
+        boolean untyped = type == null || type == Object.class;
+        if (untyped) {
+            switch (cursor.getEventType()) {
                 case MAPPING_START:
                     type = LinkedHashMap.class;
                     break;
                 case SCALAR:
                     if (config.readConfig.guessNumberTypes) {
-                        String value = ((ScalarEvent) event).value;
-                        if (value != null) {
-                            try {
-                                Integer convertedValue = Integer.decode(value);
-                                if (anchor != null) {
-                                    anchors.put(anchor, convertedValue);
-                                }
-                                parser.getNextEvent();
-                                return convertedValue;
-                            } catch (NumberFormatException ignored) { }
-                            try {
-                                Float convertedValue = Float.valueOf(value);
-                                if (anchor != null) {
-                                    anchors.put(anchor, convertedValue);
-                                }
-                                parser.getNextEvent();
-                                return convertedValue;
-                            } catch (NumberFormatException ignored) { }
+                        CharSequence value = cursor.getTextSequence();
+                        Number convertedValue = value == null ? null : NumberParser.guess(value);
+                        if (convertedValue != null) {
+                            if (anchor != null) {
+                                anchors.put(anchor, convertedValue);
+                            }
+                            cursor.next();
+                            return convertedValue;
                         }
                     }
                     type = String.class;
@@ -250,69 +626,35 @@ public class YamlxReader {
                     type = ArrayList.class;
                     break;
                 default:
-                    throw new YamlReaderException("Expected scalar, sequence, or mapping but found: " + event.type);
+                    throw new YamlReaderException("Expected scalar, sequence, or mapping but found: " + cursor.getEventType());
             }
         }
 
         if (type == String.class) {
-            Event event = parser.getNextEvent();
-            if (event.type != EventType.SCALAR) {
-                throw new YamlReaderException("Expected scalar for String type but found: " + event.type);
+            if (cursor.getEventType() != EventType.SCALAR) {
+                throw new YamlReaderException("Expected scalar for String type but found: " + cursor.getEventType());
             }
-            String value = ((ScalarEvent) event).value;
+            String value = cursor.getText();
             if (anchor != null) {
                 anchors.put(anchor, value);
             }
+            cursor.next();
             return value;
         }
 
-        if (Beans.isScalar(type)) {
-            Event event = parser.getNextEvent();
-            if (event.type != EventType.SCALAR) {
+        ValueType valueType = config.valueType(type);
+        if (valueType.kind == Kind.SCALAR) {
+            if (cursor.getEventType() != EventType.SCALAR) {
                 throw new YamlReaderException(
-                    "Expected scalar for primitive type '" + type + "' but found: " + event.type);
+                    "Expected scalar for primitive type '" + type + "' but found: " + cursor.getEventType());
             }
-            String value = ((ScalarEvent) event).value;
+            CharSequence value = cursor.getTextSequence();
             try {
-                Object convertedValue;
-                if (type == Integer.TYPE) {
-                    convertedValue = value.length() == 0 ? 0 : Integer.decode(value);
-                } else if (type == Integer.class) {
-                    convertedValue = value.length() == 0 ? null : Integer.decode(value);
-                } else if (type == Boolean.TYPE) {
-                    convertedValue = value.length() == 0 ? false : Boolean.valueOf(value);
-                } else if (type == Boolean.class) {
-                    convertedValue = value.length() == 0 ? null : Boolean.valueOf(value);
-                } else if (type == Float.TYPE) {
-                    convertedValue = value.length() == 0 ? 0 : Float.valueOf(value);
-                } else if (type == Float.class) {
-                    convertedValue = value.length() == 0 ? null : Float.valueOf(value);
-                } else if (type == Double.TYPE) {
-                    convertedValue = value.length() == 0 ? 0 : Double.valueOf(value);
-                } else if (type == Double.class) {
-                    convertedValue = value.length() == 0 ? null : Double.valueOf(value);
-                } else if (type == Long.TYPE) {
-                    convertedValue = value.length() == 0 ? 0 : Long.decode(value);
-                } else if (type == Long.class) {
-                    convertedValue = value.length() == 0 ? null : Long.decode(value);
-                } else if (type == Short.TYPE) {
-                    convertedValue = value.length() == 0 ? 0 : Short.decode(value);
-                } else if (type == Short.class) {
-                    convertedValue = value.length() == 0 ? null : Short.decode(value);
-                } else if (type == Character.TYPE) {
-                    convertedValue = value.length() == 0 ? 0 : value.charAt(0);
-                } else if (type == Character.class) {
-                    convertedValue = value.length() == 0 ? null : value.charAt(0);
-                } else if (type == Byte.TYPE) {
-                    convertedValue = value.length() == 0 ? 0 : Byte.decode(value);
-                } else if (type == Byte.class) {
-                    convertedValue = value.length() == 0 ? null : Byte.decode(value);
-                } else {
-                    throw new YamlxException("Unknown field type.");
-                }
+                Object convertedValue = convertScalar(value, type);
                 if (anchor != null) {
                     anchors.put(anchor, convertedValue);
                 }
+                cursor.next();
                 return convertedValue;
             } catch (Exception ex) {
                 throw new YamlReaderException("Unable to convert value to required type \"" + type + "\": " + value,
@@ -320,45 +662,41 @@ public class YamlxReader {
             }
         }
 
-        if (Enum.class.isAssignableFrom(type)) {
-            Event event = parser.getNextEvent();
-            if (event.type != EventType.SCALAR) {
-                throw new YamlReaderException("Expected scalar for enum type but found: " + event.type);
-            }
-            String enumValueName = ((ScalarEvent) event).value;
-            if (enumValueName.length() == 0) {
-                return null;
+        if (valueType.kind == Kind.ENUM) {
+            if (cursor.getEventType() != EventType.SCALAR) {
+                throw new YamlReaderException("Expected scalar for enum type but found: " + cursor.getEventType());
             }
-            try {
-                return Enum.valueOf(type, enumValueName);
-            } catch (Exception ex) {
-                throw new YamlReaderException(
-                    "Unable to find enum value '" + enumValueName + "' for enum class: " + type.getName());
+            CharSequence enumValueName = cursor.getTextSequence();
+            Object value = null;
+            if (enumValueName.length() != 0) {
+                value = valueType.enumConstant(enumValueName);
+                if (value == null) {
+                    throw new YamlReaderException(
+                        "Unable to find enum value '" + enumValueName + "' for enum class: " + type.getName());
+                }
             }
+            cursor.next();
+            return value;
         }
 
-        for (Entry<Class, ScalarSerializer> entry : config.scalarSerializers.entrySet()) {
-            if (entry.getKey().isAssignableFrom(type)) {
-                ScalarSerializer serializer = entry.getValue();
-                Event event = parser.getNextEvent();
-                if (event.type != EventType.SCALAR) {
-                    throw new YamlReaderException(
-                        "Expected scalar for type '" + type + "' to be deserialized by scalar serializer '" +
-                            serializer.getClass().getName() + "' but found: " + event.type);
-                }
-                Object value = serializer.read(((ScalarEvent) event).value);
-                if (anchor != null) {
-                    anchors.put(anchor, value);
-                }
-                return value;
+        ScalarSerializer serializer = valueType.serializer;
+        if (serializer != null) {
+            if (cursor.getEventType() != EventType.SCALAR) {
+                throw new YamlReaderException(
+                    "Expected scalar for type '" + type + "' to be deserialized by scalar serializer '" +
+                        serializer.getClass().getName() + "' but found: " + cursor.getEventType());
+            }
+            Object value = serializer.read(cursor.getText());
+            if (anchor != null) {
+                anchors.put(anchor, value);
             }
+            cursor.next();
+            return value;
         }
 
-        Event event = parser.peekNextEvent();
-        switch (event.type) {
+        switch (cursor.getEventType()) {
             case MAPPING_START: {
                 // Must be a map or an object.
-                event = parser.getNextEvent();
                 Object object;
                 try {
                     object = createObject(type);
@@ -368,13 +706,25 @@ public class YamlxReader {
                 if (anchor != null) {
                     anchors.put(anchor, object);
                 }
-                List<Object> keys = new ArrayList<>();
+                cursor.next();
+                // Entries are added to the map, which stays the same if the object becomes a MergedMap.
+                Map map = object instanceof Map ? (Map) object : null;
+                ClassReadPlan plan = map != null ? null : config.readPlan(type);
+                KeySet keys = null;
+                if (plan != null && (!config.allowDuplicates || config.readConfig.autoMerge)) {
+                    if (beanDepth == keySets.size()) { keySets.add(new KeySet()); }
+                    keys = keySets.get(beanDepth++);
+                    keys.clear(plan.getIndexedKeyCount());
+                }
+                // The values of the merge keys of a bean, which are merged after its own keys are read.
+                List<Object> merges = null;
                 while (true) {
-                    if (parser.peekNextEvent().type == EventType.MAPPING_END) {
-                        parser.getNextEvent();
+                    if (cursor.getEventType() == EventType.MAPPING_END) {
+                        cursor.next();
                         break;
                     }
-                    Object key = readValue(null, null, null);
+                    PropertyPlan property = plan == null ? null : propertyKey(plan);
+                    Object key = property != null ? property.name : readValue(null, null, null);
                     // Explicit key/value pairs (using "? key\n: value\n") will come back as a map.
                     boolean isExplicitKey = key instanceof Map;
                     Object value = null;
@@ -383,17 +733,14 @@ public class YamlxReader {
                         key = nameValuePair.getKey();
                         value = nameValuePair.getValue();
                     }
-                    if (object instanceof Map) {
+                    if (map != null) {
                         // Add to map.
                         if (config.tagSuffix != null) {
-                            Event nextEvent = parser.peekNextEvent();
-                            switch (nextEvent.type) {
+                            switch (cursor.getEventType()) {
                                 case MAPPING_START:
                                 case SEQUENCE_START:
-                                    ((Map) object).put(key + config.tagSuffix, ((CollectionStartEvent) nextEvent).tag);
-                                    break;
                                 case SCALAR:
-                                    ((Map) object).put(key + config.tagSuffix, ((ScalarEvent) nextEvent).tag);
+                                    map.put(key + config.tagSuffix, cursor.getTag());
                                     break;
                             }
                         }
@@ -404,36 +751,58 @@ public class YamlxReader {
                             throw new YamlReaderException("Duplicate key found '" + key + "'");
                         }
                         if (config.readConfig.autoMerge && "<<".equals(key) && value != null) {
+                            if (config.readConfig.mergeViews && !(object instanceof MergedMap) &&
+                                (untyped || type.isAssignableFrom(MergedMap.class))) {
+                                object = new MergedMap(map);
+                                if (anchor != null) {
+                                    anchors.put(anchor, object);
+                                }
+                            }
                             mergeMap((Map) object, value);
                         } else {
-                            ((Map) object).put(key, value);
+                            map.put(key, value);
+                        }
+                    } else if (config.readConfig.autoMerge && "<<".equals(key)) {
+                        if (!isExplicitKey) {
+                            value = readValue(null, null, null);
+                        }
+                        if (value != null) {
+                            if (merges == null) { merges = new ArrayList<>(1); }
+                            merges.add(value);
                         }
                     } else {
                         // Set field on object.
                         try {
-                            if (!config.allowDuplicates && keys.contains(key)) {
+                            if (property == null) { property = plan.getProperty((String) key); }
+                            if (keys != null && !keys.add(property, key) && !config.allowDuplicates) {
                                 throw new YamlReaderException("Duplicate key found '" + key + "'");
                             }
-                            keys.add(key);
-
-                            Property property = Beans
-                                .getProperty(type, (String) key, config.beanProperties, config.privateFields, config);
                             if (property == null) {
                                 if (config.readConfig.ignoreUnknownProperties) {
+                                    if (!isExplicitKey) {
+                                        // A value with an anchor is read, so aliases later in the document can refer to it.
+                                        if (cursor.getAnchor() != null) { readValue(null, null, null); } else {
+                                            cursor.skipValue();
+                                        }
+                                    }
                                     continue;
                                 }
                                 throw new YamlReaderException(
                                     "Unable to find property '" + key + "' on class: " + type.getName());
                             }
-                            Class propertyElementType = config.propertyToElementType.get(property);
-                            if (propertyElementType == null) {
-                                propertyElementType = property.getElementType();
-                            }
-                            Class propertyDefaultType = config.propertyToDefaultType.get(property);
-                            if (!isExplicitKey) {
-                                value = readValue(property.getType(), propertyElementType, propertyDefaultType);
+                            if (property.elementConsumer != null) {
+                                if (!isExplicitKey) {
+                                    value = readElements(property);
+                                }
+                                if (value != null) {
+                                    for (Object element : (Collection) value) { property.elementConsumer.accept(element); }
+                                }
+                            } else if (isExplicitKey) {
+                                property.property.set(object, value);
+                            } else if (!setPrimitive(object, property)) {
+                                value = readValue(property.property.getType(), property.elementType, property.defaultType);
+                                property.property.set(object, value);
                             }
-                            property.set(object, value);
                         } catch (Exception ex) {
                             if (ex instanceof YamlReaderException) {
                                 throw (YamlReaderException) ex;
@@ -443,6 +812,12 @@ public class YamlxReader {
                         }
                     }
                 }
+                if (merges != null) {
+                    for (Object merge : merges) {
+                        mergeBean(object, plan, keys, merge);
+                    }
+                }
+                if (keys != null) { beanDepth--; }
                 if (object instanceof DeferredConstruction) {
                     try {
                         object = ((DeferredConstruction) object).construct();
@@ -457,15 +832,26 @@ public class YamlxReader {
             }
             case SEQUENCE_START: {
                 // Must be a collection or an array.
-                event = parser.getNextEvent();
-                Collection collection;
-                if (Collection.class.isAssignableFrom(type)) {
-                    try {
-                        collection = (Collection) Beans.createObject(type, config.privateConstructors);
-                    } catch (InvocationTargetException ex) {
-                        throw new YamlReaderException("Error creating object.", ex);
+                Collection collection = null;
+                if (valueType.kind == Kind.COLLECTION) {
+                    if (config.readConfig.collectionFactory != null) {
+                        collection = config.readConfig.collectionFactory.newCollection(type, elementType);
+                    }
+                    if (collection == null) {
+                        try {
+                            collection = (Collection) config.readPlan(type).createObject();
+                        } catch (InvocationTargetException ex) {
+                            throw new YamlReaderException("Error creating object.", ex);
+                        }
+                    }
+                } else if (valueType.kind == Kind.ARRAY && type.getComponentType().isPrimitive() && setPrimitives) {
+                    cursor.next();
+                    Object array = readPrimitiveArray(type.getComponentType());
+                    if (anchor != null) {
+                        anchors.put(anchor, array);
                     }
-                } else if (type.isArray()) {
+                    return array;
+                } else if (valueType.kind == Kind.ARRAY) {
                     collection = new ArrayList();
                     elementType = type.getComponentType();
                 } else {
@@ -474,13 +860,15 @@ public class YamlxReader {
                 if (!type.isArray() && anchor != null) {
                     anchors.put(anchor, collection);
                 }
+                cursor.next();
                 while (true) {
-                    event = parser.peekNextEvent();
-                    if (event.type == EventType.SEQUENCE_END) {
-                        parser.getNextEvent();
+                    if (cursor.getEventType() == EventType.SEQUENCE_END) {
+                        cursor.next();
                         break;
                     }
-                    collection.add(readValue(elementType, null, null));
+                    if (!addPrimitive(collection)) {
+                        collection.add(readValue(elementType, null, null));
+                    }
                 }
                 if (!type.isArray()) {
                     return collection;
@@ -497,14 +885,54 @@ public class YamlxReader {
             }
             case SCALAR:
                 // Interpret an empty scalar as null.
-                if (((ScalarEvent) event).value == null || ((ScalarEvent) event).value.length() == 0) {
-                    event = parser.getNextEvent();
+                if (cursor.getTextLength() == 0) {
+                    cursor.next();
                     return null;
                 }
                 // Fall through.
             default:
                 throw new YamlReaderException(
-                    "Expected data for a " + type.getName() + " field but found: " + event.type);
+                    "Expected data for a " + type.getName() + " field but found: " + cursor.getEventType());
+        }
+    }
+
+    /** Converts the value of a scalar to a primitive, a primitive wrapper or a String. An empty value is 0, false or null. */
+    private static Object convertScalar(CharSequence value, Class type) throws YamlxException {
+        if (type == String.class) { return value == null ? null : value.toString(); }
+        if (type == Integer.TYPE) {
+            return value.length() == 0 ? 0 : (int) NumberParser.parseLong(value, type);
+        } else if (type == Integer.class) {
+            return value.length() == 0 ? null : Integer.valueOf((int) NumberParser.parseLong(value, type));
+        } else if (type == Boolean.TYPE) {
+            return value.length() == 0 ? false : parseBoolean(value);
+        } else if (type == Boolean.class) {
+            return value.length() == 0 ? null : Boolean.valueOf(parseBoolean(value));
+        } else if (type == Float.TYPE) {
+            return value.length() == 0 ? 0 : NumberParser.parseFloat(value);
+        } else if (type == Float.class) {
+            return value.length() == 0 ? null : Float.valueOf(NumberParser.parseFloat(value));
+        } else if (type == Double.TYPE) {
+            return value.length() == 0 ? 0 : NumberParser.parseDouble(value);
+        } else if (type == Double.class) {
+            return value.length() == 0 ? null : Double.valueOf(NumberParser.parseDouble(value));
+        } else if (type == Long.TYPE) {
+            return value.length() == 0 ? 0 : NumberParser.parseLong(value, type);
+        } else if (type == Long.class) {
+            return value.length() == 0 ? null : Long.valueOf(NumberParser.parseLong(value, type));
+        } else if (type == Short.TYPE) {
+            return value.length() == 0 ? 0 : (short) NumberParser.parseLong(value, type);
+        } else if (type == Short.class) {
+            return value.length() == 0 ? null : Short.valueOf((short) NumberParser.parseLong(value, type));
+        } else if (type == Character.TYPE) {
+            return value.length() == 0 ? 0 : value.charAt(0);
+        } else if (type == Character.class) {
+            return value.length() == 0 ? null : value.charAt(0);
+        } else if (type == Byte.TYPE) {
+            return value.length() == 0 ? 0 : (byte) NumberParser.parseLong(value, type);
+        } else if (type == Byte.class) {
+            return value.length() == 0 ? null : Byte.valueOf((byte) NumberParser.parseLong(value, type));
+        } else {
+            throw new YamlxException("Unknown field type.");
         }
     }
 
@@ -513,6 +941,8 @@ public class YamlxReader {
     private void mergeMap(Map<String, Object> dest, Object source) throws YamlReaderException {
         if (source instanceof Collection) {
             for (Object item : ((Collection<Object>) source)) { mergeMap(dest, item); }
+        } else if (source instanceof Map && dest instanceof MergedMap) {
+            ((MergedMap) dest).merge((Map) source);
         } else if (source instanceof Map) {
             Map<String, Object> map = (Map<String, Object>) source;
             for (Map.Entry<String, Object> entry : map.entrySet()) {
@@ -527,17 +957,259 @@ public class YamlxReader {
 
     }
 
+    /**
+     * Sets the properties of a bean from the entries of a merged mapping, or of each mapping in a merged sequence, except for the
+     * keys that the bean's own mapping or an earlier merged mapping had.
+     */
+    private void mergeBean(Object object, ClassReadPlan plan, KeySet keys, Object source) throws YamlReaderException {
+        if (source instanceof Collection) {
+            for (Object item : (Collection) source) { mergeBean(object, plan, keys, item); }
+        } else if (source instanceof Map) {
+            for (Object item : ((Map) source).entrySet()) {
+                Entry entry = (Entry) item;
+                String key = String.valueOf(entry.getKey());
+                PropertyPlan property = plan.getProperty(key);
+                if (!keys.add(property, key)) { continue; }
+                if (property == null) {
+                    if (config.readConfig.ignoreUnknownProperties) { continue; }
+                    throw new YamlReaderException(
+                        "Unable to find property '" + key + "' on class: " + plan.getType().getName());
+                }
+                Object value = entry.getValue();
+                try {
+                    property.property.set(object, convertMerged(value, property.property.getType()));
+                } catch (YamlReaderException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    throw new YamlReaderException(
+                        "Error setting property '" + key + "' on class: " + plan.getType().getName(), ex);
+                }
+            }
+        } else {
+            throw new YamlReaderException(
+                "Expected a mapping or a sequence of mappings for a '<<' merge field but found: " +
+                    source.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Returns a merged value as the type of the property it is set on. A scalar value, or a String for an enum or a type with a
+     * scalar serializer, is converted. Other values must already be of the type.
+     */
+    private Object convertMerged(Object value, Class type) throws YamlxException {
+        ValueType valueType = config.valueType(type);
+        if (value == null) { return valueType.kind == Kind.SCALAR && type.isPrimitive() ? convertScalar("", type) : null; }
+        if (type.isInstance(value)) { return value; }
+        if (valueType.kind == Kind.SCALAR && Beans.isScalar(value.getClass())) {
+            return convertScalar(String.valueOf(value), type);
+        }
+        if (value instanceof String) {
+            if (valueType.kind == Kind.ENUM) { return Enum.valueOf(type, (String) value); }
+            if (valueType.serializer != null) { return valueType.serializer.read((String) value); }
+        }
+        throw new YamlReaderException(
+            "Unable to merge a " + value.getClass().getName() + " into a property of type: " + type.getName());
+    }
+
+    /**
+     * Reads a sequence for a property with an element consumer, giving the consumer each element as it is read, and returns null.
+     * A sequence with an anchor is read into a collection and returned instead, so aliases can refer to it.
+     */
+    private Object readElements(PropertyPlan property)
+        throws YamlxException, Parser.ParserException, Tokenizer.TokenizerException {
+        if (cursor.getEventType() != EventType.SEQUENCE_START || cursor.getAnchor() != null) {
+            return readValue(property.property.getType(), property.elementType, property.defaultType);
+        }
+        cursor.next();
+        while (cursor.getEventType() != EventType.SEQUENCE_END) {
+            property.elementConsumer.accept(readValue(property.elementType, null, null));
+        }
+        cursor.next();
+        return null;
+    }
+
+    /**
+     * Sets an int, long or double property from a scalar without boxing the value, then moves to the next event. Returns false if
+     * the property is not of those types or the value has to be read by {@link #readValue(Class, Class, Class)}.
+     */
+    private boolean setPrimitive(Object object, PropertyPlan property) throws Exception {
+        Class type = property.property.getType();
+        if (type != int.class && type != long.class && type != double.class || property.defaultType != null) { return false; }
+        CharSequence value = primitiveText();
+        if (value == null) { return false; }
+        if (type == int.class) {
+            property.property.setInt(object, (int) parseLong(value, type));
+        } else if (type == long.class) {
+            property.property.setLong(object, parseLong(value, type));
+        } else {
+            property.property.setDouble(object, parseDouble(value, type));
+        }
+        cursor.next();
+        return true;
+    }
+
+    /**
+     * Adds the current scalar to an {@link IntList}, {@link LongList} or {@link DoubleList} without boxing it, then moves to the
+     * next event. Returns false if the collection is not one of those or the element has to be read by
+     * {@link #readValue(Class, Class, Class)}.
+     */
+    private boolean addPrimitive(Collection collection) throws YamlxException {
+        if (!(collection instanceof IntList || collection instanceof LongList || collection instanceof DoubleList)) {
+            return false;
+        }
+        CharSequence value = primitiveText();
+        // An empty scalar is read as null, which the lists do not allow.
+        if (value == null || value.length() == 0) { return false; }
+        if (collection instanceof IntList) {
+            ((IntList) collection).addInt((int) parseLong(value, Integer.class));
+        } else if (collection instanceof LongList) {
+            ((LongList) collection).addLong(parseLong(value, Long.class));
+        } else {
+            ((DoubleList) collection).addDouble(parseDouble(value, Double.class));
+        }
+        cursor.next();
+        return true;
+    }
+
+    /**
+     * Reads the elements of a sequence into an array of a primitive type, starting at the cursor's current event and leaving the
+     * cursor on the event after the sequence end. Elements are parsed straight into the array unless they have to be read by
+     * {@link #readValue(Class, Class, Class)}.
+     */
+    private Object readPrimitiveArray(Class type) throws YamlxException {
+        Object array = Array.newInstance(type, 16);
+        int size = 0;
+        while (cursor.getEventType() != EventType.SEQUENCE_END) {
+            if (size == Array.getLength(array)) {
+                Object grown = Array.newInstance(type, size << 1);
+                System.arraycopy(array, 0, grown, 0, size);
+                array = grown;
+            }
+            CharSequence value = primitiveText();
+            if (value == null || value.length() == 0) {
+                Object element = readValue(type, null, null);
+                if (element == null) {
+                    throw new YamlReaderException("A null value cannot be an element of an array of: " + type);
+                }
+                Array.set(array, size++, element);
+                continue;
+            }
+            if (type == int.class) {
+                ((int[]) array)[size] = (int) parseLong(value, type);
+            } else if (type == long.class) {
+                ((long[]) array)[size] = parseLong(value, type);
+            } else if (type == double.class) {
+                ((double[]) array)[size] = parseDouble(value, type);
+            } else if (type == float.class) {
+                ((float[]) array)[size] = (float) parseDouble(value, type);
+            } else if (type == short.class) {
+                ((short[]) array)[size] = (short) parseLong(value, type);
+            } else if (type == byte.class) {
+                ((byte[]) array)[size] = (byte) parseLong(value, type);
+            } else if (type == boolean.class) {
+                ((boolean[]) array)[size] = parseBoolean(value);
+            } else {
+                ((char[]) array)[size] = value.length() == 0 ? 0 : value.charAt(0);
+            }
+            size++;
+            cursor.next();
+        }
+        cursor.next();
+        if (size == Array.getLength(array)) { return array; }
+        Object trimmed = Array.newInstance(type, size);
+        System.arraycopy(array, 0, trimmed, 0, size);
+        return trimmed;
+    }
+
+    /**
+     * Returns the value of the current event if it is a scalar without a tag or anchor, so it can be parsed without
+     * {@link #readValue(Class, Class, Class)}. Else returns null.
+     */
+    private CharSequence primitiveText() {
+        if (!setPrimitives || cursor.getEventType() != EventType.SCALAR || cursor.getTag() != null ||
+            cursor.getAnchor() != null) { return null; }
+        return cursor.getTextSequence();
+    }
+
+    /**
+     * Returns the property whose exact name is the key at the cursor and moves to the value, if the key can be read without
+     * {@link #readValue(Class, Class, Class)}. Else returns null and leaves the cursor on the key.
+     */
+    private PropertyPlan propertyKey(ClassReadPlan plan) {
+        CharSequence key = primitiveText();
+        if (key == null) { return null; }
+        // A property can be named like a number, such as NaN, which a guessed key would be read as.
+        if (config.readConfig.guessNumberTypes && NumberParser.guess(key) != null) { return null; }
+        PropertyPlan property = plan.getNamedProperty(key);
+        if (property != null) { cursor.next(); }
+        return property;
+    }
+
+    /** Parses an int, long, short or byte, or their wrappers, the same way {@link #readValue(Class, Class, Class)} does. */
+    private long parseLong(CharSequence value, Class type) throws YamlReaderException {
+        if (value.length() == 0) { return 0; }
+        try {
+            return NumberParser.parseLong(value, type);
+        } catch (NumberFormatException ex) {
+            throw new YamlReaderException("Unable to convert value to required type \"" + type + "\": " + value, ex);
+        }
+    }
+
+    /** Parses a double or float, or their wrappers, the same way {@link #readValue(Class, Class, Class)} does. */
+    private double parseDouble(CharSequence value, Class type) throws YamlReaderException {
+        if (value.length() == 0) { return 0; }
+        try {
+            if (type == float.class || type == Float.class) { return NumberParser.parseFloat(value); }
+            return NumberParser.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            throw new YamlReaderException("Unable to convert value to required type \"" + type + "\": " + value, ex);
+        }
+    }
+
+    /** Returns true if the value is "true", ignoring case, the same as {@link Boolean#parseBoolean(String)}. */
+    private static boolean parseBoolean(CharSequence value) {
+        if (value.length() != 4) { return false; }
+        for (int i = 0; i < 4; i++) {
+            if (Character.toLowerCase(value.charAt(i)) != "true".charAt(i)) { return false; }
+        }
+        return true;
+    }
+
+    private static boolean overrides(Class type, String name, Class... parameterTypes) {
+        for (; type != YamlxReader.class; type = type.getSuperclass()) {
+            try {
+                type.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException ignored) { }
+        }
+        return false;
+    }
+
     /** Returns a new object of the requested type. */
     protected Object createObject(Class type) throws InvocationTargetException {
         // Use deferred construction if a non-zero-arg constructor is available.
-        DeferredConstruction deferredConstruction = Beans.getDeferredConstruction(type, config);
-        if (deferredConstruction != null) { return deferredConstruction; }
-        return Beans.createObject(type, config.privateConstructors);
+        return config.readPlan(type).newInstance();
+    }
+
+    /** Keeps the most recently defined anchors, forgetting the oldest one when there are more than the maximum. */
+    private static class AnchorMap extends LinkedHashMap<String, Object> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxAnchors;
+
+        AnchorMap(int maxAnchors) {
+            this.maxAnchors = maxAnchors;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Entry<String, Object> eldest) {
+            return size() > maxAnchors;
+        }
     }
 
     public class YamlReaderException extends YamlxException {
         public YamlReaderException(String message, Throwable cause) {
-            super("Line " + parser.getLineNumber() + ", column " + parser.getColumn() + ": " + message, cause);
+            super("Line " + cursor.getLineNumber() + ", column " + cursor.getColumn() + ": " + message, cause);
         }
 
         public YamlReaderException(String message) {
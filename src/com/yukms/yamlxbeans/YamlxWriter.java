@@ -31,6 +31,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import com.yukms.yamlxbeans.Beans.Property;
+import com.yukms.yamlxbeans.ValueType.Kind;
 import com.yukms.yamlxbeans.YamlxConfig.WriteClassName;
 import com.yukms.yamlxbeans.YamlxConfig.WriteConfig;
 import com.yukms.yamlxbeans.document.YamlElement;
@@ -43,7 +44,6 @@ import com.yukms.yamlxbeans.parser.Event;
 import com.yukms.yamlxbeans.parser.MappingStartEvent;
 import com.yukms.yamlxbeans.parser.ScalarEvent;
 import com.yukms.yamlxbeans.parser.SequenceStartEvent;
-import com.yukms.yamlxbeans.scalar.ScalarSerializer;
 
 /**
  * Serializes Java objects as YAML.
@@ -162,14 +162,15 @@ public class YamlxWriter {
             fieldClass = valueClass;
         }
 
-        if (object instanceof Enum) {
+        ValueType valueType = config.valueType(valueClass);
+        if (valueType.kind == Kind.ENUM) {
             emitter.emit(new ScalarEvent(null, null, new boolean[] { true, true }, ((Enum) object).name(),
                 this.config.writeConfig.quote.c));
             return;
         }
 
         String anchor = null;
-        if (!Beans.isScalar(valueClass)) {
+        if (valueType.kind != Kind.SCALAR) {
             anchor = anchoredObjects.get(object);
             if (config.writeConfig.autoAnchor) {
                 Integer count = referenceCount.get(object);
@@ -211,17 +212,14 @@ public class YamlxWriter {
             }
         }
 
-        for (Entry<Class, ScalarSerializer> entry : config.scalarSerializers.entrySet()) {
-            if (entry.getKey().isAssignableFrom(valueClass)) {
-                ScalarSerializer serializer = entry.getValue();
-                emitter.emit(
-                    new ScalarEvent(null, tag, new boolean[] { tag == null, tag == null }, serializer.write(object),
-                        (char) 0));
-                return;
-            }
+        if (valueType.serializer != null) {
+            emitter.emit(
+                new ScalarEvent(null, tag, new boolean[] { tag == null, tag == null }, valueType.serializer.write(object),
+                    (char) 0));
+            return;
         }
 
-        if (Beans.isScalar(valueClass)) {
+        if (valueType.kind == Kind.SCALAR) {
             char style = 0;
             String string = String.valueOf(object);
             if (valueClass == String.class) {
@@ -234,7 +232,7 @@ public class YamlxWriter {
             return;
         }
 
-        if (object instanceof Collection) {
+        if (valueType.kind == Kind.COLLECTION) {
             emitter.emit(new SequenceStartEvent(anchor, tag, !showTag, false));
             for (Object item : (Collection) object) {
                 if (isRoot && !config.writeConfig.writeRootElementTags) {
@@ -246,7 +244,7 @@ public class YamlxWriter {
             return;
         }
 
-        if (object instanceof Map) {
+        if (valueType.kind == Kind.MAP) {
             emitter.emit(new MappingStartEvent(anchor, tag, !showTag, false));
             Map map = (Map) object;
             for (Object item : map.entrySet()) {
@@ -338,7 +336,11 @@ public class YamlxWriter {
     }
 
     private void countObjectReferences(Object object) throws YamlxException {
-        if (object == null || Beans.isScalar(object.getClass())) {
+        if (object == null) {
+            return;
+        }
+        ValueType valueType = config.valueType(object.getClass());
+        if (valueType.kind == Kind.SCALAR) {
             return;
         }
 
@@ -350,21 +352,21 @@ public class YamlxWriter {
         }
         referenceCount.put(object, 1);
 
-        if (object instanceof Collection) {
+        if (valueType.kind == Kind.COLLECTION) {
             for (Object item : (Collection) object) {
                 countObjectReferences(item);
             }
             return;
         }
 
-        if (object instanceof Map) {
+        if (valueType.kind == Kind.MAP) {
             for (Object value : ((Map) object).values()) {
                 countObjectReferences(value);
             }
             return;
         }
 
-        if (object.getClass().isArray()) {
+        if (valueType.kind == Kind.ARRAY) {
             for (int i = 0, n = Array.getLength(object); i < n; i++) {
                 countObjectReferences(Array.get(object, i));
             }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2008 Nathan Sweet
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.yukms.yamlxbeans.collection;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A list of int values stored in an int array. The values are only boxed when they are read through the {@link java.util.List}
+ * methods, and null cannot be added.
+ */
+public class IntList extends AbstractList<Integer> implements RandomAccess {
+    private int[] items;
+    private int size;
+
+    public IntList() {
+        this(16);
+    }
+
+    public IntList(int capacity) {
+        if (capacity < 0) { throw new IllegalArgumentException("capacity cannot be < 0: " + capacity); }
+        items = new int[capacity];
+    }
+
+    public void addInt(int value) {
+        if (size == items.length) { items = Arrays.copyOf(items, Math.max(8, size << 1)); }
+        items[size++] = value;
+    }
+
+    public int getInt(int index) {
+        if (index >= size) { throw new IndexOutOfBoundsException("index can't be >= size: " + index + " >= " + size); }
+        return items[index];
+    }
+
+    /** Returns a new array holding the values. */
+    public int[] toIntArray() {
+        return Arrays.copyOf(items, size);
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public Integer set(int index, Integer value) {
+        Integer old = getInt(index);
+        items[index] = value;
+        return old;
+    }
+
+    @Override
+    public void add(int index, Integer value) {
+        if (index > size || index < 0) { throw new IndexOutOfBoundsException("index can't be > size: " + index + " > " + size); }
+        int item = value;
+        addInt(item);
+        System.arraycopy(items, index, items, index + 1, size - 1 - index);
+        items[index] = item;
+        modCount++;
+    }
+
+    @Override
+    public Integer remove(int index) {
+        Integer old = getInt(index);
+        System.arraycopy(items, index + 1, items, index, size - 1 - index);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2008 Nathan Sweet
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.yukms.yamlxbeans.collection;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map read from a mapping with merge keys (&lt;&lt;), which layers its own entries over the merged maps instead of copying
+ * them.
+ * A key is looked up in the map's own entries, then in each merged map in the order they were merged. Iteration returns the
+ * map's own entries first.
+ * <p>
+ * The merged maps are not copied until the map is changed, so until then changes to a merged map show through. Entries of a
+ * merged map cannot be changed through this map, and entries cannot be removed through its iterators until it has been changed.
+ */
+public class MergedMap<K, V> extends AbstractMap<K, V> {
+    private final Map<K, V> entries;
+    private List<Map<? extends K, ? extends V>> merged = new ArrayList<>(2);
+
+    /** @param entries The map's own entries. They are used, not copied. */
+    public MergedMap(Map<K, V> entries) {
+        if (entries == null) { throw new IllegalArgumentException("entries cannot be null."); }
+        this.entries = entries;
+    }
+
+    /** Adds a map whose entries are used for the keys that neither this map's own entries nor an earlier merged map has. */
+    public void merge(Map<? extends K, ? extends V> map) {
+        if (map == null) { throw new IllegalArgumentException("map cannot be null."); }
+        if (merged == null) {
+            for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+                if (!entries.containsKey(entry.getKey())) { entries.put(entry.getKey(), entry.getValue()); }
+            }
+        } else {
+            merged.add(map);
+        }
+    }
+
+    /** Returns true if the merged entries have been copied into the map's own entries. */
+    public boolean isMaterialized() {
+        return merged == null;
+    }
+
+    @Override
+    public V get(Object key) {
+        V value = entries.get(key);
+        if (value != null || merged == null || entries.containsKey(key)) { return value; }
+        for (Map<? extends K, ? extends V> map : merged) {
+            value = map.get(key);
+            if (value != null || map.containsKey(key)) { return value; }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (entries.containsKey(key)) { return true; }
+        if (merged != null) {
+            for (Map<? extends K, ? extends V> map : merged) {
+                if (map.containsKey(key)) { return true; }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        if (merged == null) { return entries.size(); }
+        // The merged maps may have changed, so the keys they do not hide are counted each time.
+        int size = entries.size();
+        for (int i = 0, n = merged.size(); i < n; i++) {
+            for (Object key : merged.get(i).keySet()) {
+                if (!isHidden(key, merged, i)) { size++; }
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                if (merged == null) { return entries.entrySet().iterator(); }
+                return new MergedIterator();
+            }
+
+            @Override
+            public int size() {
+                return MergedMap.this.size();
+            }
+        };
+    }
+
+    @Override
+    public V put(K key, V value) {
+        materialize();
+        return entries.put(key, value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        materialize();
+        return entries.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        merged = null;
+        entries.clear();
+    }
+
+    /** Copies the merged entries into the map's own entries, so the map can be changed. */
+    private void materialize() {
+        if (merged == null) { return; }
+        List<Map<? extends K, ? extends V>> merged = this.merged;
+        this.merged = null;
+        for (Map<? extends K, ? extends V> map : merged) {
+            merge(map);
+        }
+    }
+
+    /** Returns true if the key is in the map's own entries or in a merged map before the one at the index. */
+    private boolean isHidden(Object key, List<Map<? extends K, ? extends V>> merged, int index) {
+        if (entries.containsKey(key)) { return true; }
+        for (int i = 0; i < index; i++) {
+            if (merged.get(i).containsKey(key)) { return true; }
+        }
+        return false;
+    }
+
+    private class MergedIterator implements Iterator<Entry<K, V>> {
+        private final List<Map<? extends K, ? extends V>> merged = MergedMap.this.merged;
+        private Iterator<? extends Entry<? extends K, ? extends V>> iterator = entries.entrySet().iterator();
+        private int index = -1;
+        private Entry<K, V> next;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (iterator.hasNext()) {
+                    Entry<? extends K, ? extends V> entry = iterator.next();
+                    if (index == -1) {
+                        next = (Entry<K, V>) entry;
+                    } else if (!isHidden(entry.getKey(), merged, index)) {
+                        next = new SimpleImmutableEntry<K, V>(entry.getKey(), entry.getValue());
+                    }
+                } else if (++index < merged.size()) {
+                    iterator = merged.get(index).entrySet().iterator();
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) { throw new NoSuchElementException(); }
+            Entry<K, V> entry = next;
+            next = null;
+            return entry;
+        }
+    }
+}
@@ -11,18 +11,14 @@ import static com.yukms.yamlxbeans.parser.EventType.SEQUENCE_END;
 import static com.yukms.yamlxbeans.parser.EventType.SEQUENCE_START;
 import com.yukms.yamlxbeans.Versionx;
 import com.yukms.yamlxbeans.YamlxException;
-import com.yukms.yamlxbeans.parser.AliasEvent;
-import com.yukms.yamlxbeans.parser.Event;
-import com.yukms.yamlxbeans.parser.MappingStartEvent;
-import com.yukms.yamlxbeans.parser.Parser;
+import com.yukms.yamlxbeans.parser.EventType;
 import com.yukms.yamlxbeans.parser.Parser.ParserException;
-import com.yukms.yamlxbeans.parser.ScalarEvent;
-import com.yukms.yamlxbeans.parser.SequenceStartEvent;
+import com.yukms.yamlxbeans.parser.YamlCursor;
 import com.yukms.yamlxbeans.tokenizer.Tokenizer;
 
 public class YamlDocumentReader {
 
-    Parser parser;
+    YamlCursor cursor;
 
     public YamlDocumentReader(String yaml) {
         this(new StringReader(yaml));
@@ -38,23 +34,25 @@ public class YamlDocumentReader {
 
     public YamlDocumentReader(Reader reader, Versionx version) {
         if (version == null) { version = Versionx.DEFAULT_VERSION; }
-        parser = new Parser(reader, version);
+        cursor = new YamlCursor(reader, version);
     }
 
     public YamlDocument read() throws YamlxException {
         try {
+            // The cursor is on the next event to read, or before the first event.
+            EventType type = cursor.getEventType();
+            if (type == null) { type = cursor.next(); }
             while (true) {
-                Event event = parser.peekNextEvent();
-                if (event == null) { return null; }
-                switch (event.type) {
+                if (type == null) { return null; }
+                switch (type) {
                     case STREAM_START:
-                        parser.getNextEvent(); // consume it
+                        type = cursor.next(); // consume it
                         break;
                     case STREAM_END:
-                        parser.getNextEvent(); // consume it
+                        cursor.next(); // consume it
                         return null;
                     case DOCUMENT_START:
-                        parser.getNextEvent(); // consume it
+                        cursor.next(); // consume it
                         return readDocument();
                     default:
                         throw new IllegalStateException();
@@ -69,8 +67,7 @@ public class YamlDocumentReader {
     }
 
     private YamlDocument readDocument() {
-        Event event = parser.peekNextEvent();
-        switch (event.type) {
+        switch (cursor.getEventType()) {
             case MAPPING_START:
                 return readMapping();
             case SEQUENCE_START:
@@ -81,21 +78,19 @@ public class YamlDocumentReader {
     }
 
     private YamlMapping readMapping() {
-        Event event = parser.getNextEvent();
-        if (event.type != MAPPING_START) { throw new IllegalStateException(); }
+        if (cursor.getEventType() != MAPPING_START) { throw new IllegalStateException(); }
         YamlMapping element = new YamlMapping();
-        MappingStartEvent mapping = (MappingStartEvent) event;
-        element.setTag(mapping.tag);
-        element.setAnchor(mapping.anchor);
+        element.setTag(cursor.getTag());
+        element.setAnchor(cursor.getAnchor());
+        cursor.next(); // consume it
         readMappingElements(element);
         return element;
     }
 
     private void readMappingElements(YamlMapping mapping) {
         while (true) {
-            Event event = parser.peekNextEvent();
-            if (event.type == MAPPING_END) {
-                parser.getNextEvent(); // consume it
+            if (cursor.getEventType() == MAPPING_END) {
+                cursor.next(); // consume it
                 return;
             } else {
                 YamlEntry entry = readEntry();
@@ -111,8 +106,7 @@ public class YamlDocumentReader {
     }
 
     private YamlElement readValue() {
-        Event event = parser.peekNextEvent();
-        switch (event.type) {
+        switch (cursor.getEventType()) {
             case SCALAR:
                 return readScalar();
             case ALIAS:
@@ -127,30 +121,27 @@ public class YamlDocumentReader {
     }
 
     private YamlAlias readAlias() {
-        Event event = parser.getNextEvent();
-        if (event.type != ALIAS) { throw new IllegalStateException(); }
+        if (cursor.getEventType() != ALIAS) { throw new IllegalStateException(); }
         YamlAlias element = new YamlAlias();
-        AliasEvent alias = (AliasEvent) event;
-        element.setAnchor(alias.anchor);
+        element.setAnchor(cursor.getAnchor());
+        cursor.next(); // consume it
         return element;
     }
 
     private YamlSequence readSequence() {
-        Event event = parser.getNextEvent();
-        if (event.type != SEQUENCE_START) { throw new IllegalStateException(); }
+        if (cursor.getEventType() != SEQUENCE_START) { throw new IllegalStateException(); }
         YamlSequence element = new YamlSequence();
-        SequenceStartEvent sequence = (SequenceStartEvent) event;
-        element.setTag(sequence.tag);
-        element.setAnchor(sequence.anchor);
+        element.setTag(cursor.getTag());
+        element.setAnchor(cursor.getAnchor());
+        cursor.next(); // consume it
         readSequenceElements(element);
         return element;
     }
 
     private void readSequenceElements(YamlSequence sequence) {
         while (true) {
-            Event event = parser.peekNextEvent();
-            if (event.type == SEQUENCE_END) {
-                parser.getNextEvent(); // consume it
+            if (cursor.getEventType() == SEQUENCE_END) {
+                cursor.next(); // consume it
                 return;
             } else {
                 YamlElement element = readValue();
@@ -160,13 +151,12 @@ public class YamlDocumentReader {
     }
 
     private YamlScalar readScalar() {
-        Event event = parser.getNextEvent();
-        if (event.type != SCALAR) { throw new IllegalStateException(); }
-        ScalarEvent scalar = (ScalarEvent) event;
+        if (cursor.getEventType() != SCALAR) { throw new IllegalStateException(); }
         YamlScalar element = new YamlScalar();
-        element.setTag(scalar.tag);
-        element.setAnchor(scalar.anchor);
-        element.setValue(scalar.value);
+        element.setTag(cursor.getTag());
+        element.setAnchor(cursor.getAnchor());
+        element.setValue(cursor.getText());
+        cursor.next(); // consume it
         return element;
     }
 
@@ -24,6 +24,8 @@ public class Event {
     public static final Event STREAM_START = new Event(EventType.STREAM_START);
     public static final Event DOCUMENT_END_TRUE = new DocumentEndEvent(true);
     public static final Event DOCUMENT_END_FALSE = new DocumentEndEvent(false);
+    /** Returned by a non-blocking parser when it needs more input before it can produce the next event. */
+    public static final Event NEED_MORE_INPUT = new Event(EventType.NEED_MORE_INPUT);
 
     public final EventType type;
 
@@ -27,7 +27,8 @@ public enum EventType {
     MAPPING_END, //
     DOCUMENT_START, //
     DOCUMENT_END, //
-    ALIAS;
+    ALIAS, //
+    NEED_MORE_INPUT;
 
     public String toString() {
         return name().toLowerCase().replace('_', ' ');
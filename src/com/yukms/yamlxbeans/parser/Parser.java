@@ -19,9 +19,9 @@ package com.yukms.yamlxbeans.parser;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 
 import com.yukms.yamlxbeans.Versionx;
@@ -33,6 +33,7 @@ import com.yukms.yamlxbeans.tokenizer.TagToken;
 import com.yukms.yamlxbeans.tokenizer.Token;
 import com.yukms.yamlxbeans.tokenizer.TokenType;
 import com.yukms.yamlxbeans.tokenizer.Tokenizer;
+import com.yukms.yamlxbeans.tokenizer.TokenizerConfigx;
 
 /**
  * Parses a stream of tokens into events.
@@ -42,34 +43,66 @@ import com.yukms.yamlxbeans.tokenizer.Tokenizer;
  */
 public class Parser {
     private Tokenizer tokenizer;
-    private List<Production> parseStack;
-    private final List<String> tags = new LinkedList<>();
-    private final List<String> anchors = new LinkedList<>();
+    /** The productions still to run, with the next one last. */
+    private int[] parseStack = new int[32];
+    private int parseStackSize;
+    /** The anchor and tag of each node being parsed, with the innermost last. */
+    private String[] anchors = new String[16];
+    private String[] tags = new String[16];
+    private int propertiesSize;
     private Map<String, String> tagHandles = new HashMap<>();
     private Versionx defaultVersion;
     private Versionx documentVersion;
-    private final Production[] table = new Production[46];
     private Event peekedEvent;
+    private CharSequence lastScalarValue;
+
+    // The event made by the last production. Productions only set the fields used by the type of event they return.
+    String eventAnchor;
+    String eventTag;
+    boolean eventImplicit;
+    boolean eventQuotedImplicit;
+    boolean eventFlowStyle;
+    boolean eventExplicit;
+    CharSequence eventValue;
+    char eventStyle;
+    Versionx eventVersion;
+    Map<String, String> eventTags;
 
     public Parser(Reader reader) {
         this(reader, new Versionx(1, 1));
     }
 
     public Parser(Reader reader, Versionx defaultVersion) {
+        this(reader, defaultVersion, new TokenizerConfigx());
+    }
+
+    public Parser(Reader reader, Versionx defaultVersion, TokenizerConfigx tokenizerConfig) {
         if (reader == null) {
             throw new IllegalArgumentException("reader cannot be null.");
         }
         if (defaultVersion == null) {
             throw new IllegalArgumentException("defaultVersion cannot be null.");
         }
-        tokenizer = new Tokenizer(reader);
+        tokenizer = new Tokenizer(reader, tokenizerConfig);
         this.defaultVersion = defaultVersion;
-        initProductionTable();
-
-        parseStack = new LinkedList<>();
-        parseStack.add(0, table[P_STREAM]);
-
+        push(P_STREAM);
+    }
 
+    /**
+     * Creates a parser that never blocks. UTF-8 input is given to {@link #feedInput(ByteBuffer)} as it arrives, and
+     * {@link #getNextEvent()} returns {@link Event#NEED_MORE_INPUT} when more input is needed.
+     * <p>
+     * The events and errors are the same as for a parser reading from a Reader. Before making each event, the parser fetches the
+     * tokens the event could need, so {@link #getLineNumber()} and {@link #getColumn()}, and the position in the message of a
+     * {@link ParserException}, can be up to a few tokens later than when reading from a Reader.
+     */
+    public Parser(Versionx defaultVersion, TokenizerConfigx tokenizerConfig) {
+        if (defaultVersion == null) {
+            throw new IllegalArgumentException("defaultVersion cannot be null.");
+        }
+        tokenizer = new Tokenizer(tokenizerConfig);
+        this.defaultVersion = defaultVersion;
+        push(P_STREAM);
     }
 
     public Event getNextEvent() throws ParserException, Tokenizer.TokenizerException {
@@ -80,21 +113,154 @@ public class Parser {
                 peekedEvent = null;
             }
         }
-        while (!parseStack.isEmpty()) {
-            Event event = parseStack.remove(0).produce();
-            if (event != null) {
-                return event;
+        EventType type = nextEventType();
+        return type == null ? null : createEvent(type);
+    }
+
+    /**
+     * Runs productions until one makes an event, then returns the type of the event. The rest of the event is in the event fields.
+     * Returns null after the end of the stream.
+     */
+    EventType nextEventType() throws ParserException, Tokenizer.TokenizerException {
+        if (lastScalarValue != null) {
+            tokenizer.release(lastScalarValue);
+            lastScalarValue = null;
+        }
+        while (parseStackSize > 0) {
+            if (!tokenizer.fetchTokens()) {
+                return EventType.NEED_MORE_INPUT;
+            }
+            EventType type = produce(parseStack[--parseStackSize]);
+            if (type != null) {
+                return type;
             }
         }
         return null;
     }
 
+    /**
+     * Skips the next node, so the next event is the one after it. A collection is skipped by the tokenizer, without building the
+     * values of its scalars, tags and anchors or making its events. The parser must read from a Reader.
+     */
+    public void skipValue() throws ParserException, Tokenizer.TokenizerException {
+        EventType type;
+        if (peekedEvent != null) {
+            type = peekedEvent.type;
+            peekedEvent = null;
+        } else {
+            type = nextEventType();
+        }
+        skipRest(type);
+    }
+
+    /** Skips the rest of the node whose first event was the last one made and has the given type. */
+    void skipRest(EventType type) throws ParserException, Tokenizer.TokenizerException {
+        if (type != EventType.SEQUENCE_START && type != EventType.MAPPING_START) { return; }
+        int entry = parseStack[parseStackSize - 1], end = parseStack[parseStackSize - 2];
+        if (entry == P_BLOCK_SEQUENCE_ENTRY && end == P_BLOCK_SEQUENCE_END ||
+            entry == P_BLOCK_MAPPING_ENTRY && end == P_BLOCK_MAPPING_END ||
+            entry == P_FLOW_SEQUENCE_ENTRY && end == P_FLOW_SEQUENCE_END ||
+            entry == P_FLOW_MAPPING_ENTRY && end == P_FLOW_MAPPING_END) {
+            // The start token was taken, so the tokenizer can take the rest through the end token.
+            tokenizer.skipCollection();
+            parseStackSize -= 2;
+            return;
+        }
+        if (entry == P_INDENTLESS_BLOCK_SEQUENCE_ENTRY && end == P_BLOCK_INDENTLESS_SEQUENCE_END) {
+            // There are no start and end tokens, so each entry is skipped.
+            while (tokenizer.peekNextTokenType() == TokenType.BLOCK_ENTRY) {
+                tokenizer.getNextToken();
+                skipNodeTokens();
+            }
+            parseStackSize -= 2;
+            return;
+        }
+        // A mapping of a single pair in a flow sequence has no start and end tokens either, so its events are made.
+        int depth = 1;
+        while (depth > 0) {
+            type = nextEventType();
+            if (type == null) { break; }
+            if (type == EventType.SEQUENCE_START || type == EventType.MAPPING_START) {
+                depth++;
+            } else if (type == EventType.SEQUENCE_END || type == EventType.MAPPING_END) { depth--; }
+        }
+    }
+
+    /** Takes the tokens of a node in a block collection. A node without content, which is an empty scalar, has no tokens. */
+    private void skipNodeTokens() {
+        while (tokenizer.peekNextTokenType() == TokenType.ANCHOR || tokenizer.peekNextTokenType() == TokenType.TAG) {
+            tokenizer.getNextToken();
+        }
+        switch (tokenizer.peekNextTokenType()) {
+            case SCALAR:
+            case ALIAS:
+                tokenizer.getNextToken();
+                break;
+            case BLOCK_SEQUENCE_START:
+            case BLOCK_MAPPING_START:
+            case FLOW_SEQUENCE_START:
+            case FLOW_MAPPING_START:
+                tokenizer.getNextToken();
+                tokenizer.skipCollection();
+                break;
+        }
+    }
+
+    private Event createEvent(EventType type) {
+        switch (type) {
+            case STREAM_START:
+                return Event.STREAM_START;
+            case STREAM_END:
+                return Event.STREAM_END;
+            case DOCUMENT_START:
+                return new DocumentStartEvent(eventExplicit, eventVersion, eventTags);
+            case DOCUMENT_END:
+                return eventExplicit ? Event.DOCUMENT_END_TRUE : Event.DOCUMENT_END_FALSE;
+            case SEQUENCE_START:
+                return new SequenceStartEvent(eventAnchor, eventTag, eventImplicit, eventFlowStyle);
+            case SEQUENCE_END:
+                return Event.SEQUENCE_END;
+            case MAPPING_START:
+                return new MappingStartEvent(eventAnchor, eventTag, eventImplicit, eventFlowStyle);
+            case MAPPING_END:
+                return Event.MAPPING_END;
+            case SCALAR:
+                return new ScalarEvent(eventAnchor, eventTag, new boolean[] { eventImplicit, eventQuotedImplicit }, eventValue,
+                    eventStyle);
+            case ALIAS:
+                return new AliasEvent(eventAnchor);
+            default:
+                return Event.NEED_MORE_INPUT;
+        }
+    }
+
     public Event peekNextEvent() throws ParserException, Tokenizer.TokenizerException {
         if (peekedEvent != null) {
             return peekedEvent;
         }
-        peekedEvent = getNextEvent();
-        return peekedEvent;
+        Event event = getNextEvent();
+        if (event != Event.NEED_MORE_INPUT) {
+            peekedEvent = event;
+        }
+        return event;
+    }
+
+    /**
+     * Gives a non-blocking parser more UTF-8 input, after {@link #getNextEvent()} returned {@link Event#NEED_MORE_INPUT}. The
+     * bytes are not copied, so the buffer's contents must not change until NEED_MORE_INPUT is returned again.
+     */
+    public void feedInput(ByteBuffer bytes) {
+        tokenizer.feedInput(bytes);
+    }
+
+    /** @see #feedInput(ByteBuffer) */
+    public void feedInput(byte[] bytes, int offset, int length) {
+        tokenizer.feedInput(bytes, offset, length);
+    }
+
+    /** Tells a non-blocking parser that no more input will be fed. */
+    public void endOfInput() {
+        tokenizer.endOfInput();
     }
 
     public int getLineNumber() {
@@ -105,414 +271,469 @@ public class Parser {
         return tokenizer.getColumn();
     }
 
+    /** @see Tokenizer#getPosition() */
+    public long getPosition() {
+        return tokenizer.getPosition();
+    }
+
     public void close() throws IOException {
         tokenizer.close();
     }
 
-    private void initProductionTable() {
-        table[P_STREAM] = () -> {
-            parseStack.add(0, table[P_STREAM_END]);
-            parseStack.add(0, table[P_EXPLICIT_DOCUMENT]);
-            parseStack.add(0, table[P_IMPLICIT_DOCUMENT]);
-            parseStack.add(0, table[P_STREAM_START]);
-            return null;
-        };
-        table[P_STREAM_START] = () -> {
-            tokenizer.getNextToken();
-            return Event.STREAM_START;
-        };
-        table[P_STREAM_END] = () -> {
-            tokenizer.getNextToken();
-            return Event.STREAM_END;
-        };
-        table[P_IMPLICIT_DOCUMENT] = () -> {
-            TokenType type = tokenizer.peekNextTokenType();
-            if (!(type == TokenType.DIRECTIVE || type == TokenType.DOCUMENT_START || type == TokenType.STREAM_END)) {
-                parseStack.add(0, table[P_DOCUMENT_END]);
-                parseStack.add(0, table[P_BLOCK_NODE]);
-                parseStack.add(0, table[P_DOCUMENT_START_IMPLICIT]);
-            }
-            return null;
-        };
-        table[P_EXPLICIT_DOCUMENT] = () -> {
-            if (tokenizer.peekNextTokenType() != TokenType.STREAM_END) {
-                parseStack.add(0, table[P_EXPLICIT_DOCUMENT]);
-                parseStack.add(0, table[P_DOCUMENT_END]);
-                parseStack.add(0, table[P_BLOCK_NODE]);
-                parseStack.add(0, table[P_DOCUMENT_START]);
-            }
-            return null;
-        };
-        table[P_DOCUMENT_START] = () -> {
-            Token token = tokenizer.peekNextToken();
-            DocumentStartEvent documentStartEvent = processDirectives(true);
-            if (tokenizer.peekNextTokenType() != TokenType.DOCUMENT_START) {
-                throw new ParserException("Expected 'document start' but found: " + token.type);
+    private EventType produce(int production) {
+        switch (production) {
+            case P_STREAM: {
+                push(P_STREAM_END);
+                push(P_EXPLICIT_DOCUMENT);
+                push(P_IMPLICIT_DOCUMENT);
+                push(P_STREAM_START);
+                return null;
             }
-            tokenizer.getNextToken();
-            return documentStartEvent;
-        };
-        table[P_DOCUMENT_START_IMPLICIT] = () -> processDirectives(false);
-        table[P_DOCUMENT_END] = () -> {
-            boolean explicit = false;
-            while (tokenizer.peekNextTokenType() == TokenType.DOCUMENT_END) {
+            case P_STREAM_START: {
                 tokenizer.getNextToken();
-                explicit = true;
-            }
-            return explicit ? Event.DOCUMENT_END_TRUE : Event.DOCUMENT_END_FALSE;
-        };
-        table[P_BLOCK_NODE] = () -> {
-            // 这里之后文件就解析结束
-            TokenType type = tokenizer.peekNextTokenType();
-            if (type == TokenType.DIRECTIVE || type == TokenType.DOCUMENT_START || type == TokenType.DOCUMENT_END || type == TokenType.STREAM_END) {
-                parseStack.add(0, table[P_EMPTY_SCALAR]);
-            } else if (type == TokenType.ALIAS) {
-                parseStack.add(0, table[P_ALIAS]);
-            } else {
-                parseStack.add(0, table[P_PROPERTIES_END]);
-                parseStack.add(0, table[P_BLOCK_CONTENT]);
-                parseStack.add(0, table[P_PROPERTIES]);
-            }
-            return null;
-        };
-        table[P_BLOCK_CONTENT] = () -> {
-            TokenType type = tokenizer.peekNextTokenType();
-            if (type == TokenType.BLOCK_SEQUENCE_START) {
-                parseStack.add(0, table[P_BLOCK_SEQUENCE]);
-            } else if (type == TokenType.BLOCK_MAPPING_START) {
-                parseStack.add(0, table[P_BLOCK_MAPPING]);
-            } else if (type == TokenType.FLOW_SEQUENCE_START) {
-                parseStack.add(0, table[P_FLOW_SEQUENCE]);
-            } else if (type == TokenType.FLOW_MAPPING_START) {
-                parseStack.add(0, table[P_FLOW_MAPPING]);
-            } else if (type == TokenType.SCALAR) {
-                parseStack.add(0, table[P_SCALAR]);
-            } else {
-                throw new ParserException("Expected a sequence, mapping, or scalar but found: " + type);
-            }
-            return null;
-        };
-        table[P_PROPERTIES] = () -> {
-            String anchor = null, tagHandle = null, tagSuffix = null;
-            if (tokenizer.peekNextTokenType() == TokenType.ANCHOR) {
-                anchor = ((AnchorToken) tokenizer.getNextToken()).getInstanceName();
-                if (tokenizer.peekNextTokenType() == TokenType.TAG) {
-                    TagToken tagToken = (TagToken) tokenizer.getNextToken();
-                    tagHandle = tagToken.getHandle();
-                    tagSuffix = tagToken.getSuffix();
+                return EventType.STREAM_START;
+            }
+            case P_STREAM_END: {
+                tokenizer.getNextToken();
+                return EventType.STREAM_END;
+            }
+            case P_IMPLICIT_DOCUMENT: {
+                TokenType type = tokenizer.peekNextTokenType();
+                if (!(type == TokenType.DIRECTIVE || type == TokenType.DOCUMENT_START || type == TokenType.STREAM_END)) {
+                    push(P_DOCUMENT_END);
+                    push(P_BLOCK_NODE);
+                    push(P_DOCUMENT_START_IMPLICIT);
                 }
-            } else if (tokenizer.peekNextTokenType() == TokenType.TAG) {
-                TagToken tagToken = (TagToken) tokenizer.getNextToken();
-                tagHandle = tagToken.getHandle();
-                tagSuffix = tagToken.getSuffix();
-                if (tokenizer.peekNextTokenType() == TokenType.ANCHOR) {
-                    anchor = ((AnchorToken) tokenizer.getNextToken()).getInstanceName();
+                return null;
+            }
+            case P_EXPLICIT_DOCUMENT: {
+                if (tokenizer.peekNextTokenType() != TokenType.STREAM_END) {
+                    push(P_EXPLICIT_DOCUMENT);
+                    push(P_DOCUMENT_END);
+                    push(P_BLOCK_NODE);
+                    push(P_DOCUMENT_START);
                 }
+                return null;
             }
-            String tag;
-            if (tagHandle != null && !tagHandle.equals("!")) {
-                if (!tagHandles.containsKey(tagHandle)) {
-                    throw new ParserException("Undefined tag handle: " + tagHandle);
+            case P_DOCUMENT_START: {
+                Token token = tokenizer.peekNextToken();
+                processDirectives(true);
+                if (tokenizer.peekNextTokenType() != TokenType.DOCUMENT_START) {
+                    throw new ParserException("Expected 'document start' but found: " + token.type);
                 }
-                tag = tagHandles.get(tagHandle) + tagSuffix;
-            } else {
-                tag = tagSuffix;
-            }
-            anchors.add(0, anchor);
-            tags.add(0, tag);
-            return null;
-        };
-        table[P_PROPERTIES_END] = () -> {
-            anchors.remove(0);
-            tags.remove(0);
-            return null;
-        };
-        table[P_FLOW_CONTENT] = () -> {
-            TokenType type = tokenizer.peekNextTokenType();
-            if (type == TokenType.FLOW_SEQUENCE_START) {
-                parseStack.add(0, table[P_FLOW_SEQUENCE]);
-            } else if (type == TokenType.FLOW_MAPPING_START) {
-                parseStack.add(0, table[P_FLOW_MAPPING]);
-            } else if (type == TokenType.SCALAR) {
-                parseStack.add(0, table[P_SCALAR]);
-            } else if (type == TokenType.KEY || type == TokenType.FLOW_MAPPING_END/* || type == FLOW_SEQUENCE_END*/) {
-                // 在属性值为null的时候也能打印出类型，但是解析报错
-                parseStack.add(0, table[P_EMPTY_SCALAR]);
-            } else {
-                throw new ParserException("Expected a sequence, mapping, or scalar but found: " + type);
-            }
-            return null;
-        };
-        table[P_BLOCK_SEQUENCE] = () -> {
-            parseStack.add(0, table[P_BLOCK_SEQUENCE_END]);
-            parseStack.add(0, table[P_BLOCK_SEQUENCE_ENTRY]);
-            parseStack.add(0, table[P_BLOCK_SEQUENCE_START]);
-            return null;
-        };
-        table[P_BLOCK_MAPPING] = () -> {
-            parseStack.add(0, table[P_BLOCK_MAPPING_END]);
-            parseStack.add(0, table[P_BLOCK_MAPPING_ENTRY]);
-            parseStack.add(0, table[P_BLOCK_MAPPING_START]);
-            return null;
-        };
-        table[P_FLOW_SEQUENCE] = () -> {
-            parseStack.add(0, table[P_FLOW_SEQUENCE_END]);
-            parseStack.add(0, table[P_FLOW_SEQUENCE_ENTRY]);
-            parseStack.add(0, table[P_FLOW_SEQUENCE_START]);
-            return null;
-        };
-        table[P_FLOW_MAPPING] = () -> {
-            parseStack.add(0, table[P_FLOW_MAPPING_END]);
-            parseStack.add(0, table[P_FLOW_MAPPING_ENTRY]);
-            parseStack.add(0, table[P_FLOW_MAPPING_START]);
-            return null;
-        };
-        table[P_SCALAR] = () -> {
-            ScalarToken token = (ScalarToken) tokenizer.getNextToken();
-            boolean[] implicit;
-            if (token.getPlain() && tags.get(0) == null || "!".equals(tags.get(0))) {
-                implicit = new boolean[] { true, false };
-            } else if (tags.get(0) == null) {
-                implicit = new boolean[] { false, true };
-            } else {
-                implicit = new boolean[] { false, false };
-            }
-            return new ScalarEvent(anchors.get(0), tags.get(0), implicit, token.getValue(), token.getStyle());
-        };
-        table[P_BLOCK_SEQUENCE_ENTRY] = () -> {
-            if (tokenizer.peekNextTokenType() == TokenType.BLOCK_ENTRY) {
                 tokenizer.getNextToken();
+                return EventType.DOCUMENT_START;
+            }
+            case P_DOCUMENT_START_IMPLICIT:
+                processDirectives(false);
+                return EventType.DOCUMENT_START;
+            case P_DOCUMENT_END: {
+                boolean explicit = false;
+                while (tokenizer.peekNextTokenType() == TokenType.DOCUMENT_END) {
+                    tokenizer.getNextToken();
+                    explicit = true;
+                }
+                eventExplicit = explicit;
+                return EventType.DOCUMENT_END;
+            }
+            case P_BLOCK_NODE: {
+                // 这里之后文件就解析结束
                 TokenType type = tokenizer.peekNextTokenType();
-                if (type == TokenType.BLOCK_ENTRY || type == TokenType.BLOCK_END) {
-                    parseStack.add(0, table[P_BLOCK_SEQUENCE_ENTRY]);
-                    parseStack.add(0, table[P_EMPTY_SCALAR]);
+                if (type == TokenType.DIRECTIVE || type == TokenType.DOCUMENT_START || type == TokenType.DOCUMENT_END || type == TokenType.STREAM_END) {
+                    push(P_EMPTY_SCALAR);
+                } else if (type == TokenType.ALIAS) {
+                    push(P_ALIAS);
                 } else {
-                    parseStack.add(0, table[P_BLOCK_SEQUENCE_ENTRY]);
-                    parseStack.add(0, table[P_BLOCK_NODE]);
+                    push(P_PROPERTIES_END);
+                    push(P_BLOCK_CONTENT);
+                    push(P_PROPERTIES);
                 }
+                return null;
             }
-            return null;
-        };
-        table[P_BLOCK_MAPPING_ENTRY] = () -> {
-            TokenType type = tokenizer.peekNextTokenType();
-            if (type == TokenType.KEY) {
-                tokenizer.getNextToken();
-                type = tokenizer.peekNextTokenType();
-                if (type == TokenType.KEY || type == TokenType.VALUE || type == TokenType.BLOCK_END) {
-                    parseStack.add(0, table[P_BLOCK_MAPPING_ENTRY]);
-                    parseStack.add(0, table[P_BLOCK_MAPPING_ENTRY_VALUE]);
-                    parseStack.add(0, table[P_EMPTY_SCALAR]);
+            case P_BLOCK_CONTENT: {
+                TokenType type = tokenizer.peekNextTokenType();
+                if (type == TokenType.BLOCK_SEQUENCE_START) {
+                    push(P_BLOCK_SEQUENCE);
+                } else if (type == TokenType.BLOCK_MAPPING_START) {
+                    push(P_BLOCK_MAPPING);
+                } else if (type == TokenType.FLOW_SEQUENCE_START) {
+                    push(P_FLOW_SEQUENCE);
+                } else if (type == TokenType.FLOW_MAPPING_START) {
+                    push(P_FLOW_MAPPING);
+                } else if (type == TokenType.SCALAR) {
+                    push(P_SCALAR);
                 } else {
-                    parseStack.add(0, table[P_BLOCK_MAPPING_ENTRY]);
-                    parseStack.add(0, table[P_BLOCK_MAPPING_ENTRY_VALUE]);
-                    parseStack.add(0, table[P_BLOCK_NODE_OR_INDENTLESS_SEQUENCE]);
-                    parseStack.add(0, table[P_PROPERTIES]);
+                    throw new ParserException("Expected a sequence, mapping, or scalar but found: " + type);
                 }
-            } else if (type == TokenType.VALUE) {
-                parseStack.add(0, table[P_BLOCK_MAPPING_ENTRY]);
-                parseStack.add(0, table[P_BLOCK_MAPPING_ENTRY_VALUE]);
-                parseStack.add(0, table[P_EMPTY_SCALAR]);
-            }
-            return null;
-        };
-        table[P_BLOCK_MAPPING_ENTRY_VALUE] = () -> {
-            TokenType type = tokenizer.peekNextTokenType();
-            if (type == TokenType.VALUE) {
-                tokenizer.getNextToken();
-                type = tokenizer.peekNextTokenType();
-                if (type == TokenType.KEY || type == TokenType.VALUE || type == TokenType.BLOCK_END) {
-                    parseStack.add(0, table[P_EMPTY_SCALAR]);
+                return null;
+            }
+            case P_PROPERTIES: {
+                String anchor = null, tagHandle = null, tagSuffix = null;
+                if (tokenizer.peekNextTokenType() == TokenType.ANCHOR) {
+                    anchor = ((AnchorToken) tokenizer.getNextToken()).getInstanceName();
+                    if (tokenizer.peekNextTokenType() == TokenType.TAG) {
+                        TagToken tagToken = (TagToken) tokenizer.getNextToken();
+                        tagHandle = tagToken.getHandle();
+                        tagSuffix = tagToken.getSuffix();
+                    }
+                } else if (tokenizer.peekNextTokenType() == TokenType.TAG) {
+                    TagToken tagToken = (TagToken) tokenizer.getNextToken();
+                    tagHandle = tagToken.getHandle();
+                    tagSuffix = tagToken.getSuffix();
+                    if (tokenizer.peekNextTokenType() == TokenType.ANCHOR) {
+                        anchor = ((AnchorToken) tokenizer.getNextToken()).getInstanceName();
+                    }
+                }
+                String tag;
+                if (tagHandle != null && !tagHandle.equals("!")) {
+                    if (!tagHandles.containsKey(tagHandle)) {
+                        throw new ParserException("Undefined tag handle: " + tagHandle);
+                    }
+                    tag = tagHandles.get(tagHandle) + tagSuffix;
                 } else {
-                    parseStack.add(0, table[P_BLOCK_NODE_OR_INDENTLESS_SEQUENCE]);
-                    parseStack.add(0, table[P_PROPERTIES]);
+                    tag = tagSuffix;
                 }
-            } else if (type == TokenType.KEY) {
-                parseStack.add(0, table[P_EMPTY_SCALAR]);
-            }
-            return null;
-        };
-        table[P_BLOCK_NODE_OR_INDENTLESS_SEQUENCE] = () -> {
-            TokenType type = tokenizer.peekNextTokenType();
-            if (type == TokenType.ALIAS) {
-                parseStack.add(0, table[P_ALIAS]);
-            } else if (type == TokenType.BLOCK_ENTRY) {
-                parseStack.add(0, table[P_INDENTLESS_BLOCK_SEQUENCE]);
-            } else {
-                parseStack.add(0, table[P_BLOCK_CONTENT]);
-            }
-            return null;
-        };
-        table[P_BLOCK_SEQUENCE_START] = () -> {
-            boolean implicit = tags.get(0) == null || tags.get(0).equals("!");
-            tokenizer.getNextToken();
-            return new SequenceStartEvent(anchors.get(0), tags.get(0), implicit, false);
-        };
-        table[P_BLOCK_SEQUENCE_END] = () -> {
-            if (tokenizer.peekNextTokenType() != TokenType.BLOCK_END) {
-                throw new ParserException("Expected a 'block end' but found: " + tokenizer.peekNextTokenType());
+                pushProperties(anchor, tag);
+                return null;
             }
-            tokenizer.getNextToken();
-            return Event.SEQUENCE_END;
-        };
-        table[P_BLOCK_MAPPING_START] = () -> {
-            boolean implicit = tags.get(0) == null || tags.get(0).equals("!");
-            tokenizer.getNextToken();
-            return new MappingStartEvent(anchors.get(0), tags.get(0), implicit, false);
-        };
-        table[P_BLOCK_MAPPING_END] = () -> {
-            if (tokenizer.peekNextTokenType() != TokenType.BLOCK_END) {
-                throw new ParserException("Expected a 'block end' but found: " + tokenizer.peekNextTokenType());
+            case P_PROPERTIES_END: {
+                popProperties();
+                return null;
             }
-            tokenizer.getNextToken();
-            return Event.MAPPING_END;
-        };
-        table[P_INDENTLESS_BLOCK_SEQUENCE] = () -> {
-            parseStack.add(0, table[P_BLOCK_INDENTLESS_SEQUENCE_END]);
-            parseStack.add(0, table[P_INDENTLESS_BLOCK_SEQUENCE_ENTRY]);
-            parseStack.add(0, table[P_BLOCK_INDENTLESS_SEQUENCE_START]);
-            return null;
-        };
-        table[P_BLOCK_INDENTLESS_SEQUENCE_START] = () -> {
-            boolean implicit = tags.get(0) == null || tags.get(0).equals("!");
-            return new SequenceStartEvent(anchors.get(0), tags.get(0), implicit, false);
-        };
-        table[P_INDENTLESS_BLOCK_SEQUENCE_ENTRY] = () -> {
-            if (tokenizer.peekNextTokenType() == TokenType.BLOCK_ENTRY) {
-                tokenizer.getNextToken();
+            case P_FLOW_CONTENT: {
                 TokenType type = tokenizer.peekNextTokenType();
-                if (type == TokenType.BLOCK_ENTRY || type == TokenType.KEY || type == TokenType.VALUE || type == TokenType.BLOCK_END) {
-                    parseStack.add(0, table[P_INDENTLESS_BLOCK_SEQUENCE_ENTRY]);
-                    parseStack.add(0, table[P_EMPTY_SCALAR]);
+                if (type == TokenType.FLOW_SEQUENCE_START) {
+                    push(P_FLOW_SEQUENCE);
+                } else if (type == TokenType.FLOW_MAPPING_START) {
+                    push(P_FLOW_MAPPING);
+                } else if (type == TokenType.SCALAR) {
+                    push(P_SCALAR);
+                } else if (type == TokenType.KEY || type == TokenType.FLOW_MAPPING_END/* || type == FLOW_SEQUENCE_END*/) {
+                    // 在属性值为null的时候也能打印出类型，但是解析报错
+                    push(P_EMPTY_SCALAR);
                 } else {
-                    parseStack.add(0, table[P_INDENTLESS_BLOCK_SEQUENCE_ENTRY]);
-                    parseStack.add(0, table[P_BLOCK_NODE]);
+                    throw new ParserException("Expected a sequence, mapping, or scalar but found: " + type);
                 }
+                return null;
             }
-            return null;
-        };
-        table[P_BLOCK_INDENTLESS_SEQUENCE_END] = () -> Event.SEQUENCE_END;
-        table[P_FLOW_SEQUENCE_START] = () -> {
-            boolean implicit = tags.get(0) == null || tags.get(0).equals("!");
-            tokenizer.getNextToken();
-            return new SequenceStartEvent(anchors.get(0), tags.get(0), implicit, true);
-        };
-        table[P_FLOW_SEQUENCE_ENTRY] = () -> {
-            if (tokenizer.peekNextTokenType() != TokenType.FLOW_SEQUENCE_END) {
-                if (tokenizer.peekNextTokenType() == TokenType.KEY) {
-                    parseStack.add(0, table[P_FLOW_SEQUENCE_ENTRY]);
-                    parseStack.add(0, table[P_FLOW_ENTRY_MARKER]);
-                    parseStack.add(0, table[P_FLOW_INTERNAL_MAPPING_END]);
-                    parseStack.add(0, table[P_FLOW_INTERNAL_VALUE]);
-                    parseStack.add(0, table[P_FLOW_INTERNAL_CONTENT]);
-                    parseStack.add(0, table[P_FLOW_INTERNAL_MAPPING_START]);
-                } else {
-                    parseStack.add(0, table[P_FLOW_SEQUENCE_ENTRY]);
-                    parseStack.add(0, table[P_FLOW_NODE]);
-                    parseStack.add(0, table[P_FLOW_ENTRY_MARKER]);
+            case P_BLOCK_SEQUENCE: {
+                push(P_BLOCK_SEQUENCE_END);
+                push(P_BLOCK_SEQUENCE_ENTRY);
+                push(P_BLOCK_SEQUENCE_START);
+                return null;
+            }
+            case P_BLOCK_MAPPING: {
+                push(P_BLOCK_MAPPING_END);
+                push(P_BLOCK_MAPPING_ENTRY);
+                push(P_BLOCK_MAPPING_START);
+                return null;
+            }
+            case P_FLOW_SEQUENCE: {
+                push(P_FLOW_SEQUENCE_END);
+                push(P_FLOW_SEQUENCE_ENTRY);
+                push(P_FLOW_SEQUENCE_START);
+                return null;
+            }
+            case P_FLOW_MAPPING: {
+                push(P_FLOW_MAPPING_END);
+                push(P_FLOW_MAPPING_ENTRY);
+                push(P_FLOW_MAPPING_START);
+                return null;
+            }
+            case P_SCALAR: {
+                ScalarToken token = (ScalarToken) tokenizer.getNextToken();
+                boolean implicit = token.getPlain() && currentTag() == null || "!".equals(currentTag());
+                lastScalarValue = token.getChars();
+                return scalar(currentAnchor(), currentTag(), implicit, !implicit && currentTag() == null, lastScalarValue,
+                    token.getStyle());
+            }
+            case P_BLOCK_SEQUENCE_ENTRY: {
+                if (tokenizer.peekNextTokenType() == TokenType.BLOCK_ENTRY) {
+                    tokenizer.getNextToken();
+                    TokenType type = tokenizer.peekNextTokenType();
+                    if (type == TokenType.BLOCK_ENTRY || type == TokenType.BLOCK_END) {
+                        push(P_BLOCK_SEQUENCE_ENTRY);
+                        push(P_EMPTY_SCALAR);
+                    } else {
+                        push(P_BLOCK_SEQUENCE_ENTRY);
+                        push(P_BLOCK_NODE);
+                    }
                 }
+                return null;
             }
-            return null;
-        };
-        table[P_FLOW_SEQUENCE_END] = () -> {
-            tokenizer.getNextToken();
-            return Event.SEQUENCE_END;
-        };
-        table[P_FLOW_MAPPING_START] = () -> {
-            boolean implicit = tags.get(0) == null || tags.get(0).equals("!");
-            tokenizer.getNextToken();
-            return new MappingStartEvent(anchors.get(0), tags.get(0), implicit, true);
-        };
-        table[P_FLOW_MAPPING_ENTRY] = () -> {
-            if (tokenizer.peekNextTokenType() != TokenType.FLOW_MAPPING_END) {
-                if (tokenizer.peekNextTokenType() == TokenType.KEY) {
-                    parseStack.add(0, table[P_FLOW_MAPPING_ENTRY]);
-                    parseStack.add(0, table[P_FLOW_ENTRY_MARKER]);
-                    parseStack.add(0, table[P_FLOW_MAPPING_INTERNAL_VALUE]);
-                    parseStack.add(0, table[P_FLOW_MAPPING_INTERNAL_CONTENT]);
+            case P_BLOCK_MAPPING_ENTRY: {
+                TokenType type = tokenizer.peekNextTokenType();
+                if (type == TokenType.KEY) {
+                    tokenizer.getNextToken();
+                    type = tokenizer.peekNextTokenType();
+                    if (type == TokenType.KEY || type == TokenType.VALUE || type == TokenType.BLOCK_END) {
+                        push(P_BLOCK_MAPPING_ENTRY);
+                        push(P_BLOCK_MAPPING_ENTRY_VALUE);
+                        push(P_EMPTY_SCALAR);
+                    } else {
+                        push(P_BLOCK_MAPPING_ENTRY);
+                        push(P_BLOCK_MAPPING_ENTRY_VALUE);
+                        push(P_BLOCK_NODE_OR_INDENTLESS_SEQUENCE);
+                        push(P_PROPERTIES);
+                    }
+                } else if (type == TokenType.VALUE) {
+                    push(P_BLOCK_MAPPING_ENTRY);
+                    push(P_BLOCK_MAPPING_ENTRY_VALUE);
+                    push(P_EMPTY_SCALAR);
+                }
+                return null;
+            }
+            case P_BLOCK_MAPPING_ENTRY_VALUE: {
+                TokenType type = tokenizer.peekNextTokenType();
+                if (type == TokenType.VALUE) {
+                    tokenizer.getNextToken();
+                    type = tokenizer.peekNextTokenType();
+                    if (type == TokenType.KEY || type == TokenType.VALUE || type == TokenType.BLOCK_END) {
+                        push(P_EMPTY_SCALAR);
+                    } else {
+                        push(P_BLOCK_NODE_OR_INDENTLESS_SEQUENCE);
+                        push(P_PROPERTIES);
+                    }
+                } else if (type == TokenType.KEY) {
+                    push(P_EMPTY_SCALAR);
+                }
+                return null;
+            }
+            case P_BLOCK_NODE_OR_INDENTLESS_SEQUENCE: {
+                TokenType type = tokenizer.peekNextTokenType();
+                if (type == TokenType.ALIAS) {
+                    push(P_ALIAS);
+                } else if (type == TokenType.BLOCK_ENTRY) {
+                    push(P_INDENTLESS_BLOCK_SEQUENCE);
                 } else {
-                    parseStack.add(0, table[P_FLOW_MAPPING_ENTRY]);
-                    parseStack.add(0, table[P_FLOW_NODE]);
-                    parseStack.add(0, table[P_FLOW_ENTRY_MARKER]);
+                    push(P_BLOCK_CONTENT);
                 }
+                return null;
             }
-            return null;
-        };
-        table[P_FLOW_MAPPING_END] = () -> {
-            tokenizer.getNextToken();
-            return Event.MAPPING_END;
-        };
-        table[P_FLOW_INTERNAL_MAPPING_START] = () -> {
-            tokenizer.getNextToken();
-            return new MappingStartEvent(null, null, true, true);
-        };
-        table[P_FLOW_INTERNAL_CONTENT] = () -> {
-            TokenType type = tokenizer.peekNextTokenType();
-            if (type == TokenType.VALUE || type == TokenType.FLOW_ENTRY || type == TokenType.FLOW_SEQUENCE_END) {
-                parseStack.add(0, table[P_EMPTY_SCALAR]);
-            } else {
-                parseStack.add(0, table[P_FLOW_NODE]);
-            }
-            return null;
-        };
-        table[P_FLOW_INTERNAL_VALUE] = () -> {
-            if (tokenizer.peekNextTokenType() == TokenType.VALUE) {
+            case P_BLOCK_SEQUENCE_START: {
+                boolean implicit = currentTag() == null || currentTag().equals("!");
                 tokenizer.getNextToken();
-                if (tokenizer.peekNextTokenType() == TokenType.FLOW_ENTRY || tokenizer.peekNextTokenType() == TokenType.FLOW_SEQUENCE_END) {
-                    parseStack.add(0, table[P_EMPTY_SCALAR]);
-                } else {
-                    parseStack.add(0, table[P_FLOW_NODE]);
+                return collectionStart(EventType.SEQUENCE_START, currentAnchor(), currentTag(), implicit, false);
+            }
+            case P_BLOCK_SEQUENCE_END: {
+                if (tokenizer.peekNextTokenType() != TokenType.BLOCK_END) {
+                    throw new ParserException("Expected a 'block end' but found: " + tokenizer.peekNextTokenType());
                 }
-            } else {
-                parseStack.add(0, table[P_EMPTY_SCALAR]);
-            }
-            return null;
-        };
-        table[P_FLOW_INTERNAL_MAPPING_END] = () -> Event.MAPPING_END;
-        table[P_FLOW_ENTRY_MARKER] = () -> {
-            if (tokenizer.peekNextTokenType() == TokenType.FLOW_ENTRY) {
                 tokenizer.getNextToken();
+                return EventType.SEQUENCE_END;
             }
-            return null;
-        };
-        table[P_FLOW_NODE] = () -> {
-            if (tokenizer.peekNextTokenType() == TokenType.ALIAS) { parseStack.add(0, table[P_ALIAS]); } else {
-                parseStack.add(0, table[P_PROPERTIES_END]);
-                parseStack.add(0, table[P_FLOW_CONTENT]);
-                parseStack.add(0, table[P_PROPERTIES]);
-            }
-            return null;
-        };
-        table[P_FLOW_MAPPING_INTERNAL_CONTENT] = () -> {
-            TokenType type = tokenizer.peekNextTokenType();
-            if (type == TokenType.VALUE || type == TokenType.FLOW_ENTRY || type == TokenType.FLOW_MAPPING_END) {
-                parseStack.add(0, table[P_EMPTY_SCALAR]);
-            } else {
+            case P_BLOCK_MAPPING_START: {
+                boolean implicit = currentTag() == null || currentTag().equals("!");
                 tokenizer.getNextToken();
-                parseStack.add(0, table[P_FLOW_NODE]);
+                return collectionStart(EventType.MAPPING_START, currentAnchor(), currentTag(), implicit, false);
+            }
+            case P_BLOCK_MAPPING_END: {
+                if (tokenizer.peekNextTokenType() != TokenType.BLOCK_END) {
+                    throw new ParserException("Expected a 'block end' but found: " + tokenizer.peekNextTokenType());
+                }
+                tokenizer.getNextToken();
+                return EventType.MAPPING_END;
+            }
+            case P_INDENTLESS_BLOCK_SEQUENCE: {
+                push(P_BLOCK_INDENTLESS_SEQUENCE_END);
+                push(P_INDENTLESS_BLOCK_SEQUENCE_ENTRY);
+                push(P_BLOCK_INDENTLESS_SEQUENCE_START);
+                return null;
             }
-            return null;
-        };
-        table[P_FLOW_MAPPING_INTERNAL_VALUE] = () -> {
-            if (tokenizer.peekNextTokenType() == TokenType.VALUE) {
+            case P_BLOCK_INDENTLESS_SEQUENCE_START: {
+                boolean implicit = currentTag() == null || currentTag().equals("!");
+                return collectionStart(EventType.SEQUENCE_START, currentAnchor(), currentTag(), implicit, false);
+            }
+            case P_INDENTLESS_BLOCK_SEQUENCE_ENTRY: {
+                if (tokenizer.peekNextTokenType() == TokenType.BLOCK_ENTRY) {
+                    tokenizer.getNextToken();
+                    TokenType type = tokenizer.peekNextTokenType();
+                    if (type == TokenType.BLOCK_ENTRY || type == TokenType.KEY || type == TokenType.VALUE || type == TokenType.BLOCK_END) {
+                        push(P_INDENTLESS_BLOCK_SEQUENCE_ENTRY);
+                        push(P_EMPTY_SCALAR);
+                    } else {
+                        push(P_INDENTLESS_BLOCK_SEQUENCE_ENTRY);
+                        push(P_BLOCK_NODE);
+                    }
+                }
+                return null;
+            }
+            case P_BLOCK_INDENTLESS_SEQUENCE_END:
+                return EventType.SEQUENCE_END;
+            case P_FLOW_SEQUENCE_START: {
+                boolean implicit = currentTag() == null || currentTag().equals("!");
                 tokenizer.getNextToken();
-                if (tokenizer.peekNextTokenType() == TokenType.FLOW_ENTRY || tokenizer.peekNextTokenType() == TokenType.FLOW_MAPPING_END) {
-                    parseStack.add(0, table[P_EMPTY_SCALAR]);
+                return collectionStart(EventType.SEQUENCE_START, currentAnchor(), currentTag(), implicit, true);
+            }
+            case P_FLOW_SEQUENCE_ENTRY: {
+                if (tokenizer.peekNextTokenType() != TokenType.FLOW_SEQUENCE_END) {
+                    if (tokenizer.peekNextTokenType() == TokenType.KEY) {
+                        push(P_FLOW_SEQUENCE_ENTRY);
+                        push(P_FLOW_ENTRY_MARKER);
+                        push(P_FLOW_INTERNAL_MAPPING_END);
+                        push(P_FLOW_INTERNAL_VALUE);
+                        push(P_FLOW_INTERNAL_CONTENT);
+                        push(P_FLOW_INTERNAL_MAPPING_START);
+                    } else {
+                        push(P_FLOW_SEQUENCE_ENTRY);
+                        push(P_FLOW_NODE);
+                        push(P_FLOW_ENTRY_MARKER);
+                    }
+                }
+                return null;
+            }
+            case P_FLOW_SEQUENCE_END: {
+                tokenizer.getNextToken();
+                return EventType.SEQUENCE_END;
+            }
+            case P_FLOW_MAPPING_START: {
+                boolean implicit = currentTag() == null || currentTag().equals("!");
+                tokenizer.getNextToken();
+                return collectionStart(EventType.MAPPING_START, currentAnchor(), currentTag(), implicit, true);
+            }
+            case P_FLOW_MAPPING_ENTRY: {
+                if (tokenizer.peekNextTokenType() != TokenType.FLOW_MAPPING_END) {
+                    if (tokenizer.peekNextTokenType() == TokenType.KEY) {
+                        push(P_FLOW_MAPPING_ENTRY);
+                        push(P_FLOW_ENTRY_MARKER);
+                        push(P_FLOW_MAPPING_INTERNAL_VALUE);
+                        push(P_FLOW_MAPPING_INTERNAL_CONTENT);
+                    } else {
+                        push(P_FLOW_MAPPING_ENTRY);
+                        push(P_FLOW_NODE);
+                        push(P_FLOW_ENTRY_MARKER);
+                    }
+                }
+                return null;
+            }
+            case P_FLOW_MAPPING_END: {
+                tokenizer.getNextToken();
+                return EventType.MAPPING_END;
+            }
+            case P_FLOW_INTERNAL_MAPPING_START: {
+                tokenizer.getNextToken();
+                return collectionStart(EventType.MAPPING_START, null, null, true, true);
+            }
+            case P_FLOW_INTERNAL_CONTENT: {
+                TokenType type = tokenizer.peekNextTokenType();
+                if (type == TokenType.VALUE || type == TokenType.FLOW_ENTRY || type == TokenType.FLOW_SEQUENCE_END) {
+                    push(P_EMPTY_SCALAR);
+                } else {
+                    push(P_FLOW_NODE);
+                }
+                return null;
+            }
+            case P_FLOW_INTERNAL_VALUE: {
+                if (tokenizer.peekNextTokenType() == TokenType.VALUE) {
+                    tokenizer.getNextToken();
+                    if (tokenizer.peekNextTokenType() == TokenType.FLOW_ENTRY || tokenizer.peekNextTokenType() == TokenType.FLOW_SEQUENCE_END) {
+                        push(P_EMPTY_SCALAR);
+                    } else {
+                        push(P_FLOW_NODE);
+                    }
                 } else {
-                    parseStack.add(0, table[P_FLOW_NODE]);
+                    push(P_EMPTY_SCALAR);
+                }
+                return null;
+            }
+            case P_FLOW_INTERNAL_MAPPING_END:
+                return EventType.MAPPING_END;
+            case P_FLOW_ENTRY_MARKER: {
+                if (tokenizer.peekNextTokenType() == TokenType.FLOW_ENTRY) {
+                    tokenizer.getNextToken();
+                }
+                return null;
+            }
+            case P_FLOW_NODE: {
+                if (tokenizer.peekNextTokenType() == TokenType.ALIAS) { push(P_ALIAS); } else {
+                    push(P_PROPERTIES_END);
+                    push(P_FLOW_CONTENT);
+                    push(P_PROPERTIES);
                 }
-            } else {
-                parseStack.add(0, table[P_EMPTY_SCALAR]);
-            }
-            return null;
-        };
-        table[P_ALIAS] = () -> {
-            AliasToken token = (AliasToken) tokenizer.getNextToken();
-            return new AliasEvent(token.getInstanceName());
-        };
-        table[P_EMPTY_SCALAR] = () -> new ScalarEvent(null, null, new boolean[] { true, false }, null, (char) 0);
+                return null;
+            }
+            case P_FLOW_MAPPING_INTERNAL_CONTENT: {
+                TokenType type = tokenizer.peekNextTokenType();
+                if (type == TokenType.VALUE || type == TokenType.FLOW_ENTRY || type == TokenType.FLOW_MAPPING_END) {
+                    push(P_EMPTY_SCALAR);
+                } else {
+                    tokenizer.getNextToken();
+                    push(P_FLOW_NODE);
+                }
+                return null;
+            }
+            case P_FLOW_MAPPING_INTERNAL_VALUE: {
+                if (tokenizer.peekNextTokenType() == TokenType.VALUE) {
+                    tokenizer.getNextToken();
+                    if (tokenizer.peekNextTokenType() == TokenType.FLOW_ENTRY || tokenizer.peekNextTokenType() == TokenType.FLOW_MAPPING_END) {
+                        push(P_EMPTY_SCALAR);
+                    } else {
+                        push(P_FLOW_NODE);
+                    }
+                } else {
+                    push(P_EMPTY_SCALAR);
+                }
+                return null;
+            }
+            case P_ALIAS: {
+                AliasToken token = (AliasToken) tokenizer.getNextToken();
+                eventAnchor = token.getInstanceName();
+                eventTag = null;
+                return EventType.ALIAS;
+            }
+            case P_EMPTY_SCALAR:
+                return scalar(null, null, true, false, null, (char) 0);
+        }
+        throw new IllegalStateException("Unknown production: " + production);
+    }
+
+    private EventType scalar(String anchor, String tag, boolean implicit, boolean quotedImplicit, CharSequence value, char style) {
+        eventAnchor = anchor;
+        eventTag = tag;
+        eventImplicit = implicit;
+        eventQuotedImplicit = quotedImplicit;
+        eventValue = value;
+        eventStyle = style;
+        return EventType.SCALAR;
+    }
+
+    private EventType collectionStart(EventType type, String anchor, String tag, boolean implicit, boolean flowStyle) {
+        eventAnchor = anchor;
+        eventTag = tag;
+        eventImplicit = implicit;
+        eventFlowStyle = flowStyle;
+        return type;
+    }
+
+    private void push(int production) {
+        if (parseStackSize == parseStack.length) { parseStack = Arrays.copyOf(parseStack, parseStackSize << 1); }
+        parseStack[parseStackSize++] = production;
+    }
+
+    private void pushProperties(String anchor, String tag) {
+        if (propertiesSize == anchors.length) {
+            anchors = Arrays.copyOf(anchors, propertiesSize << 1);
+            tags = Arrays.copyOf(tags, propertiesSize << 1);
+        }
+        anchors[propertiesSize] = anchor;
+        tags[propertiesSize++] = tag;
+    }
+
+    private void popProperties() {
+        propertiesSize--;
+        anchors[propertiesSize] = null;
+        tags[propertiesSize] = null;
+    }
+
+    private String currentAnchor() {
+        return anchors[propertiesSize - 1];
     }
 
-    DocumentStartEvent processDirectives(boolean explicit) {
+    private String currentTag() {
+        return tags[propertiesSize - 1];
+    }
+
+    void processDirectives(boolean explicit) {
         documentVersion = null;
         while (tokenizer.peekNextTokenType() == TokenType.DIRECTIVE) {
             DirectiveToken token = (DirectiveToken) tokenizer.getNextToken();
@@ -540,11 +761,9 @@ public class Parser {
         for (String key : baseTags.keySet()) {
             if (!tagHandles.containsKey(key)) { tagHandles.put(key, baseTags.get(key)); }
         }
-        return new DocumentStartEvent(explicit, version, tags);
-    }
-
-    interface Production {
-        Event produce();
+        eventExplicit = explicit;
+        eventVersion = version;
+        eventTags = tags;
     }
 
     static private final int P_STREAM = 0;
@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2008 Nathan Sweet
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.yukms.yamlxbeans.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+
+import com.yukms.yamlxbeans.Versionx;
+import com.yukms.yamlxbeans.tokenizer.Tokenizer;
+import com.yukms.yamlxbeans.tokenizer.TokenizerConfigx;
+
+/**
+ * A cursor whose events are made by a parser on another thread, so tokenizing and parsing run alongside the code that reads the
+ * events. The parser stays at most a given number of events ahead, and hands events over in batches of records that are reused,
+ * so no objects are created for each event. An exception thrown by the parser or tokenizer is thrown by {@link #next()} when the
+ * cursor reaches the event that failed, and has the line and column where it happened.
+ * <p>
+ * The parser starts on the first call to {@link #next()}, and its thread ends at the end of the stream, after an exception, or
+ * when {@link #close()} interrupts it.
+ */
+public class PipelinedCursor extends YamlCursor {
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final int IMPLICIT = 1, QUOTED_IMPLICIT = 2, FLOW_STYLE = 4, EXPLICIT = 8;
+
+    private final Parser parser;
+    private final int capacity;
+    private final Executor executor;
+    /** The batches the parser has filled, in order, and the batches it can fill, or null before the parser starts. */
+    private BlockingQueue<EventBatch> filled, free;
+    private volatile boolean closed;
+    /** The thread running the parser, or null when it is not running. Guarded by this cursor. */
+    private Thread producer;
+    /** The offset of the first column of the line of the event added last, and its line. Used by the parser's thread only. */
+    private long lineOffset = -1;
+    private int line;
+    private EventBatch batch;
+    private int index;
+    private boolean ended;
+
+    /**
+     * @param capacity The most events the parser may make before they are read.
+     * @param executor Runs the parser, or null to run it on a new daemon thread.
+     */
+    public PipelinedCursor(Reader reader, Versionx defaultVersion, TokenizerConfigx tokenizerConfig, int capacity,
+        Executor executor) {
+        this(new Parser(reader, defaultVersion, tokenizerConfig), capacity, executor);
+    }
+
+    private PipelinedCursor(Parser parser, int capacity, Executor executor) {
+        super(parser);
+        if (capacity < 1) { throw new IllegalArgumentException("capacity must be > 0: " + capacity); }
+        this.parser = parser;
+        this.capacity = capacity;
+        this.executor = executor;
+    }
+
+    /** Makes the batches and starts the parser on the executor or a new daemon thread. */
+    private void start() {
+        if (closed) { throw new IllegalStateException("The cursor is closed."); }
+        int batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, capacity >> 2));
+        int batchCount = Math.max(2, capacity / batchSize);
+        filled = new ArrayBlockingQueue<>(batchCount);
+        free = new ArrayBlockingQueue<>(batchCount);
+        for (int i = 0; i < batchCount; i++) {
+            free.add(new EventBatch(batchSize));
+        }
+        Runnable produce = new Runnable() {
+            @Override
+            public void run() {
+                produce();
+            }
+        };
+        if (executor != null) { executor.execute(produce); } else {
+            Thread thread = new Thread(produce, "yamlxbeans parser");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /** Runs on the parser's thread, filling batches with events until the end of the stream, an exception or close. */
+    private void produce() {
+        synchronized (this) {
+            if (closed) { return; }
+            producer = Thread.currentThread();
+        }
+        try {
+            EventBatch batch = takeFree();
+            try {
+                while (true) {
+                    EventType type = parser.nextEventType();
+                    batch.add(parser, type, line());
+                    if (type == null) { break; }
+                    // A batch is handed over at the end of each document, so a document can be read before the next is parsed.
+                    if (batch.size == batch.types.length || type == EventType.DOCUMENT_END) {
+                        filled.put(batch);
+                        batch = takeFree();
+                    }
+                }
+            } catch (RuntimeException | Error ex) {
+                // Closing the reader the parser reads from can make it fail, and then there is no one to hand the error to.
+                if (closed) { return; }
+                batch.error = ex;
+            }
+            filled.put(batch);
+        } catch (InterruptedException ignored) {
+        } finally {
+            synchronized (this) {
+                producer = null;
+            }
+            // An interrupt from close is cleared, so it does not reach the next task run by the executor's thread.
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Returns the line of the parser's position. The line is only counted when the position is on another line than the event
+     * added last, since counting it can mean indexing the line breaks of the tokenizer's buffer.
+     */
+    private int line() {
+        long lineOffset = parser.getPosition() - parser.getColumn();
+        if (lineOffset != this.lineOffset) {
+            this.lineOffset = lineOffset;
+            line = parser.getLineNumber();
+        }
+        return line;
+    }
+
+    /** Returns the next batch to fill, waiting until the cursor hands one back. */
+    private EventBatch takeFree() throws InterruptedException {
+        EventBatch batch = free.take();
+        batch.size = 0;
+        return batch;
+    }
+
+    @Override
+    EventType nextType() {
+        if (ended) { return null; }
+        if (filled == null) { start(); }
+        if (batch == null || ++index >= batch.size) {
+            if (batch != null && batch.error != null) { throw rethrow(batch.error); }
+            if (batch != null) { free.add(batch); }
+            try {
+                batch = filled.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the parser.", ex);
+            }
+            index = 0;
+            // A batch with an error may have no events left.
+            if (batch.size == 0) { throw rethrow(batch.error); }
+        }
+        EventType type = batch.types[index];
+        if (type == null) { ended = true; }
+        return type;
+    }
+
+    private static RuntimeException rethrow(Throwable error) {
+        if (error instanceof Error) { throw (Error) error; }
+        return (RuntimeException) error;
+    }
+
+    @Override
+    public EventType skipValue() throws Parser.ParserException, Tokenizer.TokenizerException {
+        EventType type = getEventType();
+        if (type == EventType.SEQUENCE_START || type == EventType.MAPPING_START) {
+            int depth = 1;
+            while (depth > 0) {
+                type = next();
+                if (type == null) { return null; }
+                if (type == EventType.SEQUENCE_START || type == EventType.MAPPING_START) { depth++; } else if (
+                    type == EventType.SEQUENCE_END || type == EventType.MAPPING_END) { depth--; }
+            }
+        }
+        return next();
+    }
+
+    @Override
+    public String getAnchor() {
+        return current() ? batch.anchors[index] : null;
+    }
+
+    @Override
+    public String getTag() {
+        return current() ? batch.tags[index] : null;
+    }
+
+    @Override
+    public boolean isImplicit() {
+        return hasFlag(IMPLICIT);
+    }
+
+    @Override
+    public boolean isQuotedImplicit() {
+        return hasFlag(QUOTED_IMPLICIT);
+    }
+
+    @Override
+    public boolean isFlowStyle() {
+        return hasFlag(FLOW_STYLE);
+    }
+
+    @Override
+    public char getScalarStyle() {
+        return current() ? batch.styles[index] : 0;
+    }
+
+    @Override
+    CharSequence textValue() {
+        return current() ? batch.values[index] : null;
+    }
+
+    @Override
+    public boolean isExplicit() {
+        return hasFlag(EXPLICIT);
+    }
+
+    @Override
+    public Versionx getVersion() {
+        return current() ? batch.versions[index] : null;
+    }
+
+    @Override
+    public Map<String, String> getTags() {
+        return current() ? batch.tagHandles[index] : null;
+    }
+
+    @Override
+    public int getLineNumber() {
+        return current() ? batch.lines[index] : parser.getLineNumber();
+    }
+
+    @Override
+    public int getColumn() {
+        return current() ? (int) (batch.offsets[index] - batch.lineOffsets[index]) : parser.getColumn();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        synchronized (this) {
+            if (producer != null) { producer.interrupt(); }
+        }
+        super.close();
+    }
+
+    /** Returns true if the cursor is on an event whose record is in the current batch. */
+    private boolean current() {
+        return getEventType() != null;
+    }
+
+    private boolean hasFlag(int flag) {
+        return current() && (batch.flags[index] & flag) != 0;
+    }
+
+    /** The records of a run of events, with each field of the records in its own array. */
+    private static class EventBatch {
+        final EventType[] types;
+        final String[] anchors, tags, values;
+        final byte[] flags;
+        final char[] styles;
+        /** The offset of each event and of the first column of its line, so the column is only worked out when it is needed. */
+        final long[] offsets, lineOffsets;
+        final int[] lines;
+        final Versionx[] versions;
+        final Map<String, String>[] tagHandles;
+        int size;
+        /** Thrown by the parser after the events of the batch. */
+        Throwable error;
+
+        EventBatch(int capacity) {
+            types = new EventType[capacity];
+            anchors = new String[capacity];
+            tags = new String[capacity];
+            values = new String[capacity];
+            flags = new byte[capacity];
+            styles = new char[capacity];
+            offsets = new long[capacity];
+            lineOffsets = new long[capacity];
+            lines = new int[capacity];
+            versions = new Versionx[capacity];
+            tagHandles = new Map[capacity];
+        }
+
+        /** Adds the event the parser made last, on the given line. Only the fields the type of event has are kept. */
+        void add(Parser parser, EventType type, int line) {
+            int i = size++;
+            types[i] = type;
+            offsets[i] = parser.getPosition();
+            lineOffsets[i] = offsets[i] - parser.getColumn();
+            lines[i] = line;
+            int flags = 0;
+            String anchor = null, tag = null, value = null;
+            char style = 0;
+            Versionx version = null;
+            Map<String, String> tagHandles = null;
+            if (type != null) {
+                switch (type) {
+                    case SCALAR:
+                        if (parser.eventValue != null) { value = parser.eventValue.toString(); }
+                        style = parser.eventStyle;
+                        if (parser.eventImplicit) { flags |= IMPLICIT; }
+                        if (parser.eventQuotedImplicit) { flags |= QUOTED_IMPLICIT; }
+                        tag = parser.eventTag;
+                        anchor = parser.eventAnchor;
+                        break;
+                    case SEQUENCE_START:
+                    case MAPPING_START:
+                        if (parser.eventImplicit) { flags |= IMPLICIT; }
+                        if (parser.eventFlowStyle) { flags |= FLOW_STYLE; }
+                        tag = parser.eventTag;
+                        anchor = parser.eventAnchor;
+                        break;
+                    case ALIAS:
+                        anchor = parser.eventAnchor;
+                        break;
+                    case DOCUMENT_START:
+                        version = parser.eventVersion;
+                        tagHandles = parser.eventTags;
+                        if (parser.eventExplicit) { flags |= EXPLICIT; }
+                        break;
+                    case DOCUMENT_END:
+                        if (parser.eventExplicit) { flags |= EXPLICIT; }
+                        break;
+                }
+            }
+            this.flags[i] = (byte) flags;
+            anchors[i] = anchor;
+            tags[i] = tag;
+            values[i] = value;
+            styles[i] = style;
+            versions[i] = version;
+            this.tagHandles[i] = tagHandles;
+        }
+    }
+}
@@ -25,19 +25,28 @@ import java.util.Arrays;
 public class ScalarEvent extends NodeEvent {
     public final String tag;
     public final boolean[] implicit;
+    /** The value, or null when the value is a view. See {@link #chars}. */
     public final String value;
+    /**
+     * The value, which is the same as {@link #value} unless scalar views are enabled. A view is only valid until the parser
+     * produces its next event.
+     *
+     * @see com.yukms.yamlxbeans.tokenizer.TokenizerConfigx#setScalarViews(boolean)
+     */
+    public final CharSequence chars;
     public final char style;
 
-    public ScalarEvent(String anchor, String tag, boolean[] implicit, String value, char style) {
+    public ScalarEvent(String anchor, String tag, boolean[] implicit, CharSequence value, char style) {
         super(EventType.SCALAR, anchor);
         this.tag = tag;
         this.implicit = implicit;
-        this.value = value;
+        this.value = value == null || value instanceof String ? (String) value : null;
+        this.chars = value;
         this.style = style;
     }
 
     public String toString() {
-        return "<" + type + " value='" + value + "' anchor='" + anchor + "' tag='" + tag + "' implicit='" +
+        return "<" + type + " value='" + chars + "' anchor='" + anchor + "' tag='" + tag + "' implicit='" +
             Arrays.toString(implicit) + "' style='" + (style == 0 ? "" : style) + "'>";
     }
 }
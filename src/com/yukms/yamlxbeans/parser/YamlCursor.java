@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2008 Nathan Sweet
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.yukms.yamlxbeans.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Map;
+
+import com.yukms.yamlxbeans.Versionx;
+import com.yukms.yamlxbeans.tokenizer.Tokenizer;
+import com.yukms.yamlxbeans.tokenizer.TokenizerConfigx;
+
+/**
+ * Reads the events of a YAML stream without creating an object for each event. {@link #next()} moves to the next event, and the
+ * accessors describe that event until next is called again.
+ */
+public class YamlCursor {
+    private final Parser parser;
+    private EventType type;
+    private char[] text = new char[32];
+    private boolean textCopied;
+
+    public YamlCursor(Reader reader) {
+        this(reader, new Versionx(1, 1));
+    }
+
+    public YamlCursor(Reader reader, Versionx defaultVersion) {
+        this(reader, defaultVersion, new TokenizerConfigx());
+    }
+
+    public YamlCursor(Reader reader, Versionx defaultVersion, TokenizerConfigx tokenizerConfig) {
+        this(new Parser(reader, defaultVersion, tokenizerConfig));
+    }
+
+    YamlCursor(Parser parser) {
+        this.parser = parser;
+    }
+
+    /** Moves to the next event and returns its type, or returns null after the end of the stream. */
+    public EventType next() throws Parser.ParserException, Tokenizer.TokenizerException {
+        textCopied = false;
+        type = nextType();
+        return type;
+    }
+
+    /** Moves to the next event and returns its type. The accessors of a subclass that overrides this must be overridden too. */
+    EventType nextType() {
+        return parser.nextEventType();
+    }
+
+    /**
+     * Skips the node that starts at the current event, then moves to the event after it and returns its type. A collection is
+     * skipped without reading the values of its scalars.
+     */
+    public EventType skipValue() throws Parser.ParserException, Tokenizer.TokenizerException {
+        parser.skipRest(type);
+        return next();
+    }
+
+    /** Returns the type of the current event, or null before the first event and after the end of the stream. */
+    public EventType getEventType() {
+        return type;
+    }
+
+    /** Returns the anchor of a scalar or collection start, the anchor an alias refers to, or null. */
+    public String getAnchor() {
+        return isNode() ? parser.eventAnchor : null;
+    }
+
+    /** Returns the tag of a scalar or collection start, or null. */
+    public String getTag() {
+        return isNode() ? parser.eventTag : null;
+    }
+
+    /**
+     * Returns true if a collection start has no tag or the non-specific tag, or if a plain scalar's tag can be omitted.
+     *
+     * @see ScalarEvent#implicit
+     */
+    public boolean isImplicit() {
+        return isNode() && type != EventType.ALIAS && parser.eventImplicit;
+    }
+
+    /**
+     * Returns true if a scalar that is not plain has no tag.
+     *
+     * @see ScalarEvent#implicit
+     */
+    public boolean isQuotedImplicit() {
+        return type == EventType.SCALAR && parser.eventQuotedImplicit;
+    }
+
+    /** Returns true if a collection start uses flow style. */
+    public boolean isFlowStyle() {
+        return (type == EventType.SEQUENCE_START || type == EventType.MAPPING_START) && parser.eventFlowStyle;
+    }
+
+    /** Returns the style character of a scalar, or 0 for a plain scalar. */
+    public char getScalarStyle() {
+        return type == EventType.SCALAR ? parser.eventStyle : 0;
+    }
+
+    /**
+     * Returns the value of a scalar, or null for an empty scalar or another event. If the value is a view of the tokenizer's
+     * buffer, it is copied.
+     */
+    public String getText() {
+        CharSequence value = textValue();
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Returns an array holding the value of a scalar from {@link #getTextStart()} for {@link #getTextLength()} characters. The
+     * array is reused and is only valid until {@link #next()}.
+     */
+    public char[] getTextCharacters() {
+        if (textCopied) { return text; }
+        int length = getTextLength();
+        if (length > text.length) { text = new char[Math.max(length, text.length << 1)]; }
+        CharSequence value = textValue();
+        if (value instanceof String) {
+            ((String) value).getChars(0, length, text, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                text[i] = value.charAt(i);
+            }
+        }
+        textCopied = true;
+        return text;
+    }
+
+    /** @see #getTextCharacters() */
+    public int getTextStart() {
+        return 0;
+    }
+
+    /**
+     * Returns the value of a scalar without copying it, or null for an empty scalar or another event. The value can be a view of
+     * the tokenizer's buffer, which is only valid until {@link #next()}.
+     *
+     * @see com.yukms.yamlxbeans.tokenizer.TokenizerConfigx#setScalarViews(boolean)
+     */
+    public CharSequence getTextSequence() {
+        return textValue();
+    }
+
+    /** Returns the length of a scalar's value, or 0 for an empty scalar or another event. */
+    public int getTextLength() {
+        CharSequence value = textValue();
+        return value == null ? 0 : value.length();
+    }
+
+    /** Returns the value of a scalar, or null for an empty scalar or another event. */
+    CharSequence textValue() {
+        return type == EventType.SCALAR ? parser.eventValue : null;
+    }
+
+    /** Returns true if a document start or end has an explicit indicator. */
+    public boolean isExplicit() {
+        return (type == EventType.DOCUMENT_START || type == EventType.DOCUMENT_END) && parser.eventExplicit;
+    }
+
+    /** Returns the YAML version of a document start, or null. */
+    public Versionx getVersion() {
+        return type == EventType.DOCUMENT_START ? parser.eventVersion : null;
+    }
+
+    /** Returns the tag handles declared by the directives of a document start, or null. */
+    public Map<String, String> getTags() {
+        return type == EventType.DOCUMENT_START ? parser.eventTags : null;
+    }
+
+    public int getLineNumber() {
+        return parser.getLineNumber();
+    }
+
+    public int getColumn() {
+        return parser.getColumn();
+    }
+
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    private boolean isNode() {
+        return type == EventType.SCALAR || type == EventType.SEQUENCE_START || type == EventType.MAPPING_START ||
+            type == EventType.ALIAS;
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2008 Nathan Sweet
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.yukms.yamlxbeans.tokenizer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+
+/**
+ * Characters read ahead of the tokenizer's position. The characters are kept in a ring, so consuming characters never shifts the
+ * remaining ones and each read goes straight into the free part of the ring. The ring only grows when a lookahead longer than
+ * the buffer is requested.
+ * <p>
+ * A {@link ScalarView} reads characters that were already consumed. Before those characters are overwritten, the view is copied
+ * into a String unless it was released first.
+ * <p>
+ * When reading fed input, the reader returns 0 instead of blocking and the buffer can be {@link #mark() marked}, so a token that
+ * runs past the end of the input can be scanned again once more input has arrived.
+ * <p>
+ * When line breaks are indexed, they are counted in the consumed characters just before those are overwritten, or when the number
+ * of lines is asked for. Each character is counted once, so asking for the number of lines only scans the characters consumed
+ * since it was last asked for.
+ */
+class InputBuffer {
+    private final Reader reader;
+    private final int readChunkSize;
+    private final boolean nonBlocking;
+    private final boolean indexLineBreaks;
+    private char[] data;
+    private int mask;
+    private int head;
+    private int count;
+    private boolean eof;
+    private long position;
+    private int marked = -1;
+    private long indexed;
+    private int lineBreaks;
+    private final ArrayDeque<ScalarView> views = new ArrayDeque<>();
+
+    InputBuffer(Reader reader, int bufferSize, int readChunkSize, boolean nonBlocking, boolean indexLineBreaks) {
+        this.reader = reader;
+        this.readChunkSize = readChunkSize;
+        this.nonBlocking = nonBlocking;
+        this.indexLineBreaks = indexLineBreaks;
+        data = new char[capacity(bufferSize)];
+        mask = data.length - 1;
+    }
+
+    /** Returns the number of characters that can be read without calling {@link #fill(int)}. */
+    int available() {
+        return count;
+    }
+
+    /** Returns the character at the given offset from the current position, or '\0' past the end of the stream. */
+    char charAt(int index) {
+        return index < count ? data[(head + index) & mask] : '\0';
+    }
+
+    /** Returns the characters between offsets from the current position. The end must not exceed {@link #available()}. */
+    String substring(int start, int end) {
+        int from = (head + start) & mask;
+        int length = end - start;
+        if (from + length <= data.length) { return new String(data, from, length); }
+        char[] chars = new char[length];
+        int first = data.length - from;
+        System.arraycopy(data, from, chars, 0, first);
+        System.arraycopy(data, 0, chars, first, length - first);
+        return new String(chars);
+    }
+
+    /** Appends the characters from the current position. The length must not exceed {@link #available()}. */
+    void appendTo(StringBuilder builder, int length) {
+        int first = Math.min(length, data.length - head);
+        builder.append(data, head, first);
+        builder.append(data, 0, length - first);
+    }
+
+    /** Moves the current position forward. */
+    void skip(int length) {
+        if (length > count) { length = count; }
+        head = (head + length) & mask;
+        count -= length;
+        position += length;
+        if (marked != -1) { marked += length; }
+    }
+
+    /** Keeps the characters from the current position until {@link #reset()} or {@link #unmark()}. */
+    void mark() {
+        marked = 0;
+    }
+
+    void unmark() {
+        marked = -1;
+    }
+
+    /** Moves the current position back to the mark. Views created since the mark must no longer be used. */
+    void reset() {
+        head = (head - marked) & mask;
+        count += marked;
+        position -= marked;
+        marked = -1;
+        // Line breaks indexed after the mark are counted again when the characters are consumed again.
+        for (; indexed > position; indexed--) {
+            if (isLineBreak(indexed - 1)) { lineBreaks--; }
+        }
+        while (!views.isEmpty() && views.peekLast().start >= position) {
+            views.pollLast();
+        }
+    }
+
+    /** Returns the number of characters consumed since the start of the stream. */
+    long position() {
+        return position;
+    }
+
+    /**
+     * Returns the number of line breaks before the current position. A '\r' is only a line break when not followed by '\n'. Line
+     * breaks must be indexed.
+     */
+    int lineBreaks() {
+        // The last character is counted but not indexed, since a '\r' there may be followed by a '\n' that is not read yet.
+        if (indexed < position - 1) { index(position - 1); }
+        return indexed < position && isLineBreak(indexed) ? lineBreaks + 1 : lineBreaks;
+    }
+
+    /** Returns true if the end of the stream has been reached. */
+    boolean isEnded() {
+        return eof;
+    }
+
+    /** Returns a view of the characters from the current position. The length must not exceed {@link #available()}. */
+    ScalarView view(int length) {
+        ScalarView view = new ScalarView(this, position, length);
+        views.addLast(view);
+        return view;
+    }
+
+    /** Releases the given view and all views created before it, so they are no longer copied when overwritten. */
+    void release(ScalarView view) {
+        if (view.buffer != this) { return; }
+        while (!views.isEmpty() && views.peekFirst().start <= view.start) {
+            views.pollFirst();
+        }
+    }
+
+    /** Releases the given view if it is the most recently created one. */
+    void releaseLast(ScalarView view) {
+        if (views.peekLast() == view) { views.pollLast(); }
+    }
+
+    char charAtAbsolute(long index) {
+        return data[(int) (head + index - position) & mask];
+    }
+
+    String substringAbsolute(long start, int length) {
+        return substring((int) (start - position), (int) (start - position) + length);
+    }
+
+    /**
+     * Reads until at least the given number of characters are available or the end of the stream is reached. A non-blocking
+     * reader can also stop when no more characters are available yet.
+     */
+    void fill(int length) throws IOException {
+        int kept = Math.max(marked, 0);
+        if (length + kept > data.length) { grow(length + kept); }
+        while (count < length && !eof) {
+            int tail = (head + count) & mask;
+            int free = Math.min(data.length - count - kept, data.length - tail);
+            int size = Math.min(free, readChunkSize);
+            long overwritten = position + count - data.length + size;
+            detachViews(overwritten);
+            if (indexLineBreaks) { index(overwritten); }
+            int read = reader.read(data, tail, size);
+            if (read == -1) {
+                eof = true;
+            } else if (read == 0 && nonBlocking) {
+                return;
+            } else {
+                count += read;
+            }
+        }
+    }
+
+    void close() throws IOException {
+        reader.close();
+    }
+
+    /** Copies the unreleased views that start before the given absolute offset, since their characters will be overwritten. */
+    private void detachViews(long offset) {
+        while (!views.isEmpty() && views.peekFirst().start < offset) {
+            views.pollFirst().detach();
+        }
+    }
+
+    /** Counts the line breaks in the consumed characters before the given absolute offset, since they will be overwritten. */
+    private void index(long offset) {
+        for (; indexed < offset; indexed++) {
+            if (isLineBreak(indexed)) { lineBreaks++; }
+        }
+    }
+
+    private boolean isLineBreak(long index) {
+        char ch = charAtAbsolute(index);
+        if (ch == '\r') { return index + 1 == position + count || charAtAbsolute(index + 1) != '\n'; }
+        return ch == '\n' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
+    }
+
+    private void grow(int length) {
+        detachViews(Long.MAX_VALUE);
+        int kept = Math.max(marked, 0);
+        if (indexLineBreaks) { index(position - kept); }
+        int start = (head - kept) & mask;
+        int total = kept + count;
+        char[] newData = new char[capacity(length)];
+        int first = Math.min(total, data.length - start);
+        System.arraycopy(data, start, newData, 0, first);
+        System.arraycopy(data, 0, newData, first, total - first);
+        data = newData;
+        mask = data.length - 1;
+        head = kept;
+    }
+
+    private static int capacity(int size) {
+        int capacity = 16;
+        while (capacity < size) { capacity <<= 1; }
+        return capacity;
+    }
+}
@@ -18,7 +18,7 @@ package com.yukms.yamlxbeans.tokenizer;
 
 /** @author <a href="mailto:misc@n4te.com">Nathan Sweet</a> */
 public class ScalarToken extends Token {
-    private String value;
+    private CharSequence value;
     private boolean plain;
     private char style;
 
@@ -26,7 +26,7 @@ public class ScalarToken extends Token {
         this(value, plain, (char) 0);
     }
 
-    public ScalarToken(final String value, final boolean plain, final char style) {
+    public ScalarToken(final CharSequence value, final boolean plain, final char style) {
         super(TokenType.SCALAR);
         this.value = value;
         this.plain = plain;
@@ -38,6 +38,11 @@ public class ScalarToken extends Token {
     }
 
     public String getValue() {
+        return this.value.toString();
+    }
+
+    /** Returns the value, which is a view of the tokenizer's buffer when scalar views are enabled. */
+    public CharSequence getChars() {
         return this.value;
     }
 
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2008 Nathan Sweet
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.yukms.yamlxbeans.tokenizer;
+
+/**
+ * The characters of a scalar, read in place from the tokenizer's {@link InputBuffer}. The characters are only copied into a String
+ * by {@link #toString()}, or when the buffer is about to overwrite them.
+ */
+class ScalarView implements CharSequence {
+    final InputBuffer buffer;
+    final long start;
+    private final int length;
+    private String string;
+
+    ScalarView(InputBuffer buffer, long start, int length) {
+        this.buffer = buffer;
+        this.start = start;
+        this.length = length;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public char charAt(int index) {
+        if (index < 0 || index >= length) { throw new IndexOutOfBoundsException("index: " + index + ", length: " + length); }
+        if (string != null) { return string.charAt(index); }
+        return buffer.charAtAbsolute(start + index);
+    }
+
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    void detach() {
+        if (string == null) { string = buffer.substringAbsolute(start, length); }
+    }
+
+    public String toString() {
+        detach();
+        return string;
+    }
+}
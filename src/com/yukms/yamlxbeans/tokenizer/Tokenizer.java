@@ -16,18 +16,18 @@
 
 package com.yukms.yamlxbeans.tokenizer;
 
-import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Interprets a YAML document as a stream of tokens.
@@ -36,32 +36,60 @@ import java.util.regex.Pattern;
  * @author <a href="mailto:ola.bini@ki.se">Ola Bini</a>
  */
 public class Tokenizer {
-    private final static String LINEBR = "\n\u0085\u2028\u2029";
-    private final static String NULL_BL_LINEBR = "\0 \r\n\u0085";
-    private final static String NULL_BL_T_LINEBR = "\0 \t\r\n\u0085";
-    private final static String NULL_OR_OTHER = NULL_BL_T_LINEBR;
-    private final static String NULL_OR_LINEBR = "\0\r\n\u0085";
-    private final static String FULL_LINEBR = "\r\n\u0085";
-    private final static String BLANK_OR_LINEBR = " \r\n\u0085";
-    private final static String S4 = "\0 \t\r\n\u0028[]{}";
-    private final static String ALPHA = "abcdefghijklmnopqrstuvwxyz0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ-_";
-    private final static String STRANGE_CHAR
-        = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-#;/?:@&=+$,_.!~*'()[]";
-    private final static String RN = "\r\n";
-    private final static String BLANK_T = " \t";
-    private final static String SPACES_AND_STUFF = "'\"\\\0 \t\r\n\u0085";
-    private final static String DOUBLE_ESC = "\"\\";
-    private final static String NON_ALPHA_OR_NUM = "\0 \t\r\n\u0085?:,]}%@`";
-    private final static Pattern NON_PRINTABLE = Pattern.compile("[^\u0009\n\r\u0020-\u007E\u0085\u00A0-\u00FF]");
-    private final static Pattern NOT_HEXA = Pattern.compile("[^0-9A-Fa-f]");
-    private final static Pattern NON_ALPHA = Pattern.compile("[^-0-9A-Za-z_]");
-    private final static Pattern R_FLOWZERO = Pattern.compile("[\0 \t\r\n\u0085]|(:[\0 \t\r\n\u0028])");
-    private final static Pattern R_FLOWNONZERO = Pattern.compile("[\0 \t\r\n\u0085\\[\\]{},:?]");
-    private final static Pattern END_OR_START = Pattern.compile("^(---|\\.\\.\\.)[\0 \t\r\n\u0085]$");
-    private final static Pattern ENDING = Pattern.compile("^---[\0 \t\r\n\u0085]$");
-    private final static Pattern START = Pattern.compile("^\\.\\.\\.[\0 \t\r\n\u0085]$");
-    private final static Pattern BEG = Pattern
-        .compile("^([^\0 \t\r\n\u0085\\-?:,\\[\\]{}#&*!|>'\"%@]|([\\-?:][^\0 \t\r\n\u0085]))");
+    private final static int LINEBR = 1;
+    private final static int NULL_BL_LINEBR = 1 << 1;
+    private final static int NULL_BL_T_LINEBR = 1 << 2;
+    private final static int NULL_OR_OTHER = NULL_BL_T_LINEBR;
+    private final static int NULL_OR_LINEBR = 1 << 3;
+    private final static int FULL_LINEBR = 1 << 4;
+    private final static int BLANK_OR_LINEBR = 1 << 5;
+    private final static int S4 = 1 << 6;
+    private final static int ALPHA = 1 << 7;
+    private final static int STRANGE_CHAR = 1 << 8;
+    private final static int BLANK_T = 1 << 9;
+    private final static int SPACES_AND_STUFF = 1 << 10;
+    private final static int DOUBLE_ESC = 1 << 11;
+    private final static int NON_ALPHA_OR_NUM = 1 << 12;
+    private final static int HEXA = 1 << 13;
+    private final static int FLOWZERO_AFTER_COLON = 1 << 14;
+    private final static int FLOWNONZERO_END = 1 << 15;
+    private final static int NOT_BEG = 1 << 16;
+
+    /** The classes of each Latin-1 character. Characters above 0xFF are only ever in {@link #LINEBR}. */
+    private final static int[] CHAR_CLASSES = new int[256];
+
+    static {
+        classify("\n\u0085", LINEBR);
+        classify("\0 \r\n\u0085", NULL_BL_LINEBR);
+        classify("\0 \t\r\n\u0085", NULL_BL_T_LINEBR);
+        classify("\0\r\n\u0085", NULL_OR_LINEBR);
+        classify("\r\n\u0085", FULL_LINEBR);
+        classify(" \r\n\u0085", BLANK_OR_LINEBR);
+        classify("\0 \t\r\n\u0028[]{}", S4);
+        classify("abcdefghijklmnopqrstuvwxyz0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ-_", ALPHA);
+        classify("abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-#;/?:@&=+$,_.!~*'()[]", STRANGE_CHAR);
+        classify(" \t", BLANK_T);
+        classify("'\"\\\0 \t\r\n\u0085", SPACES_AND_STUFF);
+        classify("\"\\", DOUBLE_ESC);
+        classify("\0 \t\r\n\u0085?:,]}%@`", NON_ALPHA_OR_NUM);
+        classify("0123456789ABCDEFabcdef", HEXA);
+        classify("\0 \t\r\n\u0028", FLOWZERO_AFTER_COLON);
+        classify("\0 \t\r\n\u0085[]{},:?", FLOWNONZERO_END);
+        classify("\0 \t\r\n\u0085-?:,[]{}#&*!|>'\"%@", NOT_BEG);
+    }
+
+    private static void classify(String chars, int charClass) {
+        for (int i = 0; i < chars.length(); i++) {
+            CHAR_CLASSES[chars.charAt(i)] |= charClass;
+        }
+    }
+
+    private static boolean is(char ch, int charClass) {
+        if (ch < CHAR_CLASSES.length) {
+            return (CHAR_CLASSES[ch] & charClass) != 0;
+        }
+        return (charClass & LINEBR) != 0 && (ch == '\u2028' || ch == '\u2029');
+    }
 
     private final static Map<Character, String> ESCAPE_REPLACEMENTS = new HashMap<>();
     private final static Map<Character, Integer> ESCAPE_CODES = new HashMap<>();
@@ -90,32 +118,91 @@ public class Tokenizer {
         ESCAPE_CODES.put('U', 8);
     }
 
+    /** Stands for the scalars, tags and anchors scanned while skipping a collection. Only their types are used. */
+    private final static ScalarToken SKIPPED_SCALAR = new ScalarToken("", false);
+    private final static TagToken SKIPPED_TAG = new TagToken(null, null);
+
     private boolean done = false;
     private int flowLevel = 0;
     private int tokensTaken = 0;
     private int indent = -1;
     private boolean allowSimpleKey = true;
-    private boolean eof;
     private int lineNumber = 0;
     private int column = 0;
-    private int pointer = 0;
-    private final StringBuilder buffer;
-    private final Reader reader;
+    private long lineStart = 0;
+    private int uncountedColumns = 0;
+    private int uncountedLineBreaks = 0;
+    private final InputBuffer buffer;
+    private final boolean scalarViews;
+    private final boolean lazyPositions;
+    private final Utf8Reader feeder;
     private final List<Token> tokens = new LinkedList<>();
-    private final List<Integer> indents = new LinkedList<>();
-    private final Map<Integer, SimpleKey> possibleSimpleKeys = new HashMap<>();
+    private int[] indents = new int[16];
+    private int indentCount = 0;
+    /**
+     * The token number of the possible simple key at each flow level, or 0 for none since the first token is never a key. Levels
+     * are not cleared when a flow collection ends, so keys can remain up to {@link #simpleKeyLevels}, but the column of the key
+     * is set to -1 so it is not used for a value. The key of a level is at {@link #keyIndex(int)}.
+     */
+    private int[] simpleKeyTokens = new int[16];
+    private int[] simpleKeyColumns = new int[16];
+    private int simpleKeyLevels = 0;
     private boolean docStart = false;
+    /**
+     * While greater than 0, how many collections deep the next token fetched is within the collection being skipped. Tokens are
+     * only scanned for their extent while skipping, so this is 0 whenever a token fetched could be read.
+     */
+    private int skipDepth = 0;
+    /**
+     * An error a non-blocking tokenizer found while fetching tokens ahead in {@link #fetchTokens()}. It is thrown when the token
+     * is needed, which is when a tokenizer reading from a Reader would find it.
+     */
+    private TokenizerException fetchError;
+    /** The state a non-blocking tokenizer restores when fed input runs out in the middle of a token, or null. */
+    private final Checkpoint checkpoint;
+    /** The position after the blanks and comments before the token that ran out of input, so they are not scanned again. */
+    private final TokenStart tokenStart;
+    /** True when the last token a non-blocking tokenizer fetched ran out of input, until more input is fed. */
+    private boolean stalled;
 
     public Tokenizer(Reader reader) {
+        this(reader, new TokenizerConfigx());
+    }
+
+    public Tokenizer(Reader reader, TokenizerConfigx config) {
         if (reader == null) {
             throw new IllegalArgumentException("reader cannot be null.");
         }
-        if (!(reader instanceof BufferedReader)) {
-            reader = new BufferedReader(reader);
+        if (config == null) {
+            throw new IllegalArgumentException("config cannot be null.");
         }
-        this.reader = reader;
-        buffer = new StringBuilder();
-        eof = false;
+        buffer = new InputBuffer(reader, config.bufferSize, config.readChunkSize, false, config.lazyPositions);
+        scalarViews = config.scalarViews;
+        lazyPositions = config.lazyPositions;
+        feeder = null;
+        checkpoint = null;
+        tokenStart = null;
+        fetchStreamStart();
+    }
+
+    /**
+     * Creates a tokenizer that never blocks. UTF-8 input is given to {@link #feedInput(ByteBuffer)} as it arrives, and
+     * {@link #fetchTokens()} returns false when more input is needed.
+     * <p>
+     * The tokens and errors are the same as for a tokenizer reading from a Reader, and an error is thrown when the token it
+     * was found in is needed. Since fetchTokens fetches tokens ahead, {@link #getLineNumber()} and {@link #getColumn()} can be
+     * after tokens that a tokenizer reading from a Reader would not have fetched yet.
+     */
+    public Tokenizer(TokenizerConfigx config) {
+        if (config == null) {
+            throw new IllegalArgumentException("config cannot be null.");
+        }
+        feeder = new Utf8Reader();
+        buffer = new InputBuffer(feeder, config.bufferSize, config.readChunkSize, true, config.lazyPositions);
+        scalarViews = config.scalarViews;
+        lazyPositions = config.lazyPositions;
+        checkpoint = new Checkpoint();
+        tokenStart = new TokenStart();
         fetchStreamStart();
     }
 
@@ -125,7 +212,7 @@ public class Tokenizer {
 
     public Token peekNextToken() throws TokenizerException {
         while (needMoreTokens()) {
-            fetchMoreTokens();
+            fetchNextTokens();
         }
         return tokens.isEmpty() ? null : tokens.get(0);
     }
@@ -140,7 +227,7 @@ public class Tokenizer {
 
     public Token getNextToken() throws TokenizerException {
         while (needMoreTokens()) {
-            fetchMoreTokens();
+            fetchNextTokens();
         }
         if (!tokens.isEmpty()) {
             tokensTaken++;
@@ -165,73 +252,183 @@ public class Tokenizer {
         };
     }
 
+    /**
+     * Gives a non-blocking tokenizer more UTF-8 input. The bytes are not copied, so the buffer's contents must not change until
+     * {@link #fetchTokens()} returns false again.
+     *
+     * @throws IllegalStateException if the tokenizer reads from a Reader, the end of the input was given, or the previously fed
+     *                               input has not been tokenized yet.
+     */
+    public void feedInput(ByteBuffer bytes) {
+        if (feeder == null) { throw new IllegalStateException("The tokenizer reads from a Reader."); }
+        feeder.feed(bytes);
+    }
+
+    /** @see #feedInput(ByteBuffer) */
+    public void feedInput(byte[] bytes, int offset, int length) {
+        feedInput(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    /** Tells a non-blocking tokenizer that no more input will be fed. */
+    public void endOfInput() {
+        if (feeder == null) { throw new IllegalStateException("The tokenizer reads from a Reader."); }
+        feeder.endOfInput();
+    }
+
+    /**
+     * Fetches tokens until the next two tokens, after any directive or document end tokens, are complete. This is the lookahead the
+     * parser needs to produce an event. Returns false if a non-blocking tokenizer needs more input first, else true. An error
+     * found while fetching is not thrown here, but by the first {@link #peekNextToken()} or {@link #getNextToken()} that needs
+     * the token it was found in.
+     */
+    public boolean fetchTokens() throws TokenizerException {
+        if (feeder == null || fetchError != null) { return true; }
+        try {
+            while (!done) {
+                int needed = 2;
+                for (Token token : tokens) {
+                    if (token.type != TokenType.DIRECTIVE && token.type != TokenType.DOCUMENT_END) { break; }
+                    needed++;
+                }
+                if (tokens.size() >= needed && !hasPossibleSimpleKey(tokensTaken, tokensTaken + needed)) { break; }
+                fetchMoreTokensOrRollBack();
+            }
+            return true;
+        } catch (NeedMoreInput ex) {
+            return false;
+        } catch (TokenizerException ex) {
+            fetchError = ex;
+            return true;
+        }
+    }
+
     public int getLineNumber() {
+        if (lazyPositions) { return buffer.lineBreaks() - uncountedLineBreaks; }
         return lineNumber;
     }
 
     public int getColumn() {
+        if (lazyPositions) { return (int) (buffer.position() - lineStart) - uncountedColumns; }
         return column;
     }
 
+    /** Returns the number of characters consumed since the start of the stream, which is never counted lazily. */
+    public long getPosition() {
+        return buffer.position();
+    }
+
+    /**
+     * Takes the tokens of the rest of the collection whose start token was taken last, up to and including its end token. The
+     * scalars, tags and anchors in the collection that have not been fetched yet are only scanned for their extent, so their values
+     * are never built.
+     */
+    public void skipCollection() throws TokenizerException {
+        int depth = 1;
+        for (Token token : tokens) {
+            depth += nesting(token.type);
+            if (depth == 0) { break; }
+        }
+        skipDepth = depth;
+        try {
+            depth = 1;
+            while (depth > 0) {
+                if (peekNextTokenType() == TokenType.STREAM_END) {
+                    throw new TokenizerException("While skipping a collection, found the end of the stream.");
+                }
+                depth += nesting(getNextToken().type);
+            }
+        } finally {
+            skipDepth = 0;
+        }
+    }
+
+    /** Returns 1 for a token that starts a collection, -1 for a token that ends one, or else 0. */
+    private static int nesting(TokenType type) {
+        switch (type) {
+            case BLOCK_SEQUENCE_START:
+            case BLOCK_MAPPING_START:
+            case FLOW_SEQUENCE_START:
+            case FLOW_MAPPING_START:
+                return 1;
+            case BLOCK_END:
+            case FLOW_SEQUENCE_END:
+            case FLOW_MAPPING_END:
+                return -1;
+        }
+        return 0;
+    }
+
+    /**
+     * Tells the tokenizer that the given scalar value and all scalar values before it are no longer read, so their characters need
+     * not be copied before they are overwritten. Values that are not views are ignored.
+     *
+     * @see TokenizerConfigx#setScalarViews(boolean)
+     */
+    public void release(CharSequence value) {
+        if (value instanceof ScalarView) { buffer.release((ScalarView) value); }
+    }
+
     public void close() throws IOException {
-        reader.close();
+        buffer.close();
     }
 
     private char peek() {
-        if (pointer + 1 > buffer.length()) {
+        if (buffer.available() < 1) {
             update(1);
         }
-        return buffer.charAt(pointer);
+        return buffer.charAt(0);
     }
 
     private char peek(int index) {
-        if (pointer + index + 1 > buffer.length()) {
+        if (buffer.available() < index + 1) {
             update(index + 1);
         }
-        return buffer.charAt(pointer + index);
+        return buffer.charAt(index);
     }
 
     private String prefix(int length) {
-        if (pointer + length >= buffer.length()) {
+        if (buffer.available() < length) {
             update(length);
         }
-        if (pointer + length > buffer.length()) {
-            return buffer.substring(pointer, buffer.length());
+        int available = buffer.available();
+        if (length > available) {
+            // The stream ended first, so it reads as the remaining characters followed by '\0'.
+            return buffer.substring(0, available) + '\0';
         }
-        return buffer.substring(pointer, pointer + length);
+        return buffer.substring(0, length);
     }
 
     private String prefixForward(int length) {
-        if (pointer + length + 1 >= buffer.length()) {
-            update(length + 1);
-        }
-        String buff;
-        if (pointer + length > buffer.length()) {
-            buff = buffer.substring(pointer, buffer.length());
-        } else {
-            buff = buffer.substring(pointer, pointer + length);
-        }
-        char ch;
-        for (int i = 0, j = buff.length(); i < j; i++) {
-            ch = buff.charAt(i);
-            pointer++;
-            if (LINEBR.indexOf(ch) != -1 || ch == '\r' && buff.charAt(i + 1) != '\n') {
-                column = 0;
-                lineNumber++;
-            } else if (ch != '\uFEFF') {
-                column++;
-            }
-        }
+        String buff = prefix(length);
+        forward(length);
         return buff;
     }
 
+    private void appendForward(StringBuilder builder, int length) {
+        buffer.appendTo(builder, length);
+        forward(length);
+    }
+
     private void forward() {
-        if (pointer + 2 >= buffer.length()) {
+        if (buffer.available() < 1) {
+            update(1);
+        }
+        char ch1 = buffer.charAt(0);
+        if (ch1 == '\r' && buffer.available() < 2) {
             update(2);
         }
-        char ch1 = buffer.charAt(pointer);
-        pointer++;
-        if (ch1 == '\n' || ch1 == '\u0085' || ch1 == '\r' && buffer.charAt(pointer) != '\n') {
+        buffer.skip(1);
+        if (lazyPositions) {
+            if (ch1 == '\n' || ch1 == '\u0085' || ch1 == '\r' && buffer.charAt(0) != '\n') {
+                lineStart = buffer.position();
+                uncountedColumns = 0;
+            } else if (ch1 == '\u2028' || ch1 == '\u2029') {
+                // The line breaks are indexed, but do not start a new line here.
+                uncountedLineBreaks++;
+            }
+            return;
+        }
+        if (ch1 == '\n' || ch1 == '\u0085' || ch1 == '\r' && buffer.charAt(0) != '\n') {
             column = 0;
             lineNumber++;
         } else {
@@ -240,47 +437,113 @@ public class Tokenizer {
     }
 
     private void forward(int length) {
-        if (pointer + length + 1 >= buffer.length()) {
-            update(length + 1);
+        if (buffer.available() < length) {
+            update(length);
+        }
+        if (lazyPositions) {
+            forwardLazily(length);
+            return;
         }
         char ch;
         for (int i = 0; i < length; i++) {
-            ch = buffer.charAt(pointer);
-            pointer++;
-            if (LINEBR.indexOf(ch) != -1 || ch == '\r' && buffer.charAt(pointer) != '\n') {
+            ch = buffer.charAt(i);
+            if (ch == '\r' && buffer.available() < i + 2) {
+                update(i + 2);
+            }
+            if (is(ch, LINEBR) || ch == '\r' && buffer.charAt(i + 1) != '\n') {
                 column = 0;
                 lineNumber++;
             } else if (ch != '\uFEFF') {
                 column++;
             }
         }
+        buffer.skip(length);
+    }
+
+    /** Only finds the start of the last line within the characters, since the line breaks are counted by the buffer. */
+    private void forwardLazily(int length) {
+        if (length > 0 && buffer.charAt(length - 1) == '\r' && buffer.available() < length + 1) {
+            update(length + 1);
+        }
+        int boms = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            char ch = buffer.charAt(i);
+            if (is(ch, LINEBR) || ch == '\r' && buffer.charAt(i + 1) != '\n') {
+                buffer.skip(length);
+                lineStart = buffer.position() - (length - 1 - i);
+                uncountedColumns = boms;
+                return;
+            }
+            if (ch == '\uFEFF') { boms++; }
+        }
+        buffer.skip(length);
+        uncountedColumns += boms;
     }
 
     private void update(int length) {
-        buffer.delete(0, pointer);
-        pointer = 0;
-        while (buffer.length() < length) {
-            String rawData = "";
-            if (!eof) {
-                char[] data = new char[1024];
-                int converted;
-                try {
-                    converted = reader.read(data);
-                } catch (IOException ioe) {
-                    throw new TokenizerException("Error reading from stream.", ioe);
-                }
-                if (converted == -1) {
-                    eof = true;
-                } else {
-                    rawData = String.valueOf(data, 0, converted);
-                }
+        try {
+            buffer.fill(length);
+        } catch (IOException ioe) {
+            throw new TokenizerException("Error reading from stream.", ioe);
+        }
+        if (feeder != null && buffer.available() < length && !buffer.isEnded()) {
+            throw NeedMoreInput.INSTANCE;
+        }
+    }
+
+    private void fetchNextTokens() {
+        if (feeder == null) {
+            fetchMoreTokens();
+            return;
+        }
+        if (fetchError != null) { throw fetchError; }
+        try {
+            fetchMoreTokensOrRollBack();
+        } catch (NeedMoreInput ex) {
+            throw new TokenizerException("More input is needed before the next token, see fetchTokens().");
+        }
+    }
+
+    /**
+     * Fetches tokens or, if the input runs out or an error is found first, restores the state from before. Tokens fetched before
+     * an error are not kept, so none are read that a tokenizer reading from a Reader would not give before the error.
+     * <p>
+     * When the input runs out, the fetch is not tried again until more input is fed, and then the blanks and comments before the
+     * token are skipped to the position recorded after scanning them. The token itself is scanned again from its start, so in the
+     * worst case a token fed in n pieces is scanned n times, and all of its characters are kept in the buffer until it is
+     * complete.
+     */
+    private void fetchMoreTokensOrRollBack() {
+        if (stalled) {
+            if (feeder.needsInput()) { throw NeedMoreInput.INSTANCE; }
+            stalled = false;
+        }
+        checkpoint.save();
+        buffer.mark();
+        try {
+            if (!tokenStart.restore()) {
+                scanToNextToken();
+                tokenStart.save(checkpoint.offset);
             }
-            buffer.append(rawData);
-            if (eof) {
-                buffer.append('\0');
-                break;
+            fetchMoreTokens();
+            buffer.unmark();
+            tokenStart.clear();
+        } catch (NeedMoreInput | TokenizerException ex) {
+            buffer.reset();
+            checkpoint.restore();
+            if (ex instanceof NeedMoreInput) { stalled = true; } else { tokenStart.clear(); }
+            throw ex;
+        }
+    }
+
+    private boolean hasPossibleSimpleKey(int fromTokenNumber, int toTokenNumber) {
+        for (int index = 0; index < simpleKeyLevels; index++) {
+            int tokenNumber = simpleKeyTokens[index];
+            if (tokenNumber > 0 && tokenNumber >= fromTokenNumber && tokenNumber < toTokenNumber) {
+                return true;
             }
         }
+        return false;
     }
 
     private boolean needMoreTokens() {
@@ -292,9 +555,9 @@ public class Tokenizer {
 
     private Token fetchMoreTokens() {
         scanToNextToken();
-        unwindIndent(column);
+        unwindIndent(getColumn());
         char ch = peek();
-        boolean colz = column == 0;
+        boolean colz = getColumn() == 0;
         switch (ch) {
             case '\0':
                 return fetchStreamEnd();
@@ -303,12 +566,12 @@ public class Tokenizer {
             case '"':
                 return fetchDouble();
             case '?':
-                if (flowLevel != 0 || NULL_OR_OTHER.indexOf(peek(1)) != -1) {
+                if (flowLevel != 0 || is(peek(1), NULL_OR_OTHER)) {
                     return fetchKey();
                 }
                 break;
             case ':':
-                if (flowLevel != 0 || NULL_OR_OTHER.indexOf(peek(1)) != -1) {
+                if (flowLevel != 0 || is(peek(1), NULL_OR_OTHER)) {
                     return fetchValue();
                 }
                 break;
@@ -318,14 +581,14 @@ public class Tokenizer {
                 }
                 break;
             case '-':
-                if ((colz || docStart) && ENDING.matcher(prefix(4)).matches()) {
+                if ((colz || docStart) && isDocumentIndicator('-')) {
                     return fetchDocumentStart();
-                } else if (NULL_OR_OTHER.indexOf(peek(1)) != -1) {
+                } else if (is(peek(1), NULL_OR_OTHER)) {
                     return fetchBlockEntry();
                 }
                 break;
             case '.':
-                if (colz && START.matcher(prefix(4)).matches()) {
+                if (colz && isDocumentIndicator('.')) {
                     return fetchDocumentEnd();
                 }
                 break;
@@ -356,7 +619,7 @@ public class Tokenizer {
                 }
                 break;
         }
-        if (BEG.matcher(prefix(2)).find()) {
+        if (!is(ch, NOT_BEG) || (ch == '-' || ch == '?' || ch == ':') && !is(peek(1), NULL_BL_T_LINEBR)) {
             return fetchPlain();
         }
         if (ch == '\t') {
@@ -367,9 +630,9 @@ public class Tokenizer {
     }
 
     private int nextPossibleSimpleKey() {
-        for (SimpleKey key : possibleSimpleKeys.values()) {
-            if (key.tokenNumber > 0) {
-                return key.tokenNumber;
+        for (int index = 0; index < simpleKeyLevels; index++) {
+            if (simpleKeyTokens[index] > 0) {
+                return simpleKeyTokens[index];
             }
         }
         return -1;
@@ -377,30 +640,53 @@ public class Tokenizer {
 
     private void savePossibleSimpleKey() {
         if (allowSimpleKey) {
-            possibleSimpleKeys.put(flowLevel, new SimpleKey(tokensTaken + tokens.size(), column));
+            int index = keyIndex(flowLevel);
+            if (index >= simpleKeyTokens.length) {
+                int length = Math.max(index + 1, simpleKeyTokens.length << 1);
+                simpleKeyTokens = Arrays.copyOf(simpleKeyTokens, length);
+                simpleKeyColumns = Arrays.copyOf(simpleKeyColumns, length);
+            }
+            simpleKeyTokens[index] = tokensTaken + tokens.size();
+            simpleKeyColumns[index] = getColumn();
+            if (index >= simpleKeyLevels) { simpleKeyLevels = index + 1; }
         }
     }
 
+    /**
+     * Returns the index of the simple key for a flow level. An unmatched ']' or '}' makes the level negative, so negative levels
+     * are kept at the odd indexes.
+     */
+    private static int keyIndex(int level) {
+        return level >= 0 ? level << 1 : (-level << 1) - 1;
+    }
+
     private void unwindIndent(int col) {
         if (flowLevel != 0) {
             return;
         }
 
         while (indent > col) {
-            indent = indents.remove(0);
+            indent = indents[--indentCount];
+            nest(-1);
             tokens.add(Token.BLOCK_END);
         }
     }
 
     private boolean addIndent(int col) {
         if (indent < col) {
-            indents.add(0, indent);
+            if (indentCount == indents.length) { indents = Arrays.copyOf(indents, indentCount << 1); }
+            indents[indentCount++] = indent;
             indent = col;
             return true;
         }
         return false;
     }
 
+    /** Counts a collection start or end fetched while skipping a collection. */
+    private void nest(int change) {
+        if (skipDepth > 0) { skipDepth += change; }
+    }
+
     private void fetchStreamStart() {
         docStart = true;
         tokens.add(Token.STREAM_START);
@@ -409,7 +695,8 @@ public class Tokenizer {
     private Token fetchStreamEnd() {
         unwindIndent(-1);
         allowSimpleKey = false;
-        possibleSimpleKeys.clear();
+        Arrays.fill(simpleKeyTokens, 0, simpleKeyLevels, 0);
+        simpleKeyLevels = 0;
         tokens.add(Token.STREAM_END);
         done = true;
         return Token.STREAM_END;
@@ -451,6 +738,7 @@ public class Tokenizer {
     private Token fetchFlowCollectionStart(Token tok) {
         savePossibleSimpleKey();
         flowLevel++;
+        nest(1);
         allowSimpleKey = true;
         forward(1);
         tokens.add(tok);
@@ -466,7 +754,11 @@ public class Tokenizer {
     }
 
     private Token fetchFlowCollectionEnd(Token tok) {
+        // A key at this level can no longer get a value, so a later collection at the same level must not use it.
+        int index = keyIndex(flowLevel);
+        if (index < simpleKeyLevels) { simpleKeyColumns[index] = -1; }
         flowLevel--;
+        nest(-1);
         allowSimpleKey = false;
         forward(1);
         tokens.add(tok);
@@ -485,7 +777,8 @@ public class Tokenizer {
             if (!allowSimpleKey) {
                 throw new TokenizerException("Found a sequence entry where it is not allowed.");
             }
-            if (addIndent(column)) {
+            if (addIndent(getColumn())) {
+                nest(1);
                 tokens.add(Token.BLOCK_SEQUENCE_START);
             }
         }
@@ -500,7 +793,8 @@ public class Tokenizer {
             if (!allowSimpleKey) {
                 throw new TokenizerException("Found a mapping key where it is not allowed.");
             }
-            if (addIndent(column)) {
+            if (addIndent(getColumn())) {
+                nest(1);
                 tokens.add(Token.BLOCK_MAPPING_START);
             }
         }
@@ -511,16 +805,22 @@ public class Tokenizer {
     }
 
     private Token fetchValue() {
-        SimpleKey key = possibleSimpleKeys.get(flowLevel);
-        if (null == key) {
+        int index = keyIndex(flowLevel);
+        int keyTokenNumber = index < simpleKeyLevels ? simpleKeyTokens[index] : 0;
+        if (keyTokenNumber != 0 && simpleKeyColumns[index] == -1) {
+            simpleKeyTokens[index] = 0;
+            keyTokenNumber = 0;
+        }
+        if (keyTokenNumber == 0) {
             if (flowLevel == 0 && !allowSimpleKey) {
                 throw new TokenizerException("Found a mapping value where it is not allowed.");
             }
         } else {
-            possibleSimpleKeys.remove(flowLevel);
-            tokens.add(key.tokenNumber - tokensTaken, Token.KEY);
-            if (flowLevel == 0 && addIndent(key.column)) {
-                tokens.add(key.tokenNumber - tokensTaken, Token.BLOCK_MAPPING_START);
+            simpleKeyTokens[index] = 0;
+            tokens.add(keyTokenNumber - tokensTaken, Token.KEY);
+            if (flowLevel == 0 && addIndent(simpleKeyColumns[index])) {
+                nest(1);
+                tokens.add(keyTokenNumber - tokensTaken, Token.BLOCK_MAPPING_START);
             }
             allowSimpleKey = false;
         }
@@ -548,7 +848,7 @@ public class Tokenizer {
     private Token fetchTag() {
         savePossibleSimpleKey();
         allowSimpleKey = false;
-        Token tok = scanTag();
+        Token tok = skipDepth > 0 ? skipTag() : scanTag();
         tokens.add(tok);
         return tok;
     }
@@ -579,7 +879,7 @@ public class Tokenizer {
     private Token fetchFlowScalar(char style) {
         savePossibleSimpleKey();
         allowSimpleKey = false;
-        Token tok = scanFlowScalar(style);
+        Token tok = skipDepth > 0 ? skipFlowScalar(style) : scanFlowScalar(style);
         tokens.add(tok);
         return tok;
     }
@@ -587,7 +887,7 @@ public class Tokenizer {
     private Token fetchPlain() {
         savePossibleSimpleKey();
         allowSimpleKey = false;
-        Token tok = scanPlain();
+        Token tok = skipDepth > 0 ? skipPlain() : scanPlain();
         tokens.add(tok);
         return tok;
     }
@@ -598,7 +898,7 @@ public class Tokenizer {
                 forward();
             }
             if (peek() == '#') {
-                while (NULL_OR_LINEBR.indexOf(peek()) == -1) {
+                while (!is(peek(), NULL_OR_LINEBR)) {
                     forward();
                 }
             }
@@ -624,7 +924,7 @@ public class Tokenizer {
             StringBuilder buffer = new StringBuilder();
             while (true) {
                 char ch = peek();
-                if (NULL_OR_LINEBR.indexOf(ch) != -1) {
+                if (is(ch, NULL_OR_LINEBR)) {
                     break;
                 }
                 buffer.append(ch);
@@ -640,7 +940,7 @@ public class Tokenizer {
         int length = 0;
         char ch = peek(length);
         boolean zlen = true;
-        while (ALPHA.indexOf(ch) != -1) {
+        while (is(ch, ALPHA)) {
             zlen = false;
             length++;
             ch = peek(length);
@@ -651,7 +951,7 @@ public class Tokenizer {
         }
         String value = prefixForward(length);
         // forward(length);
-        if (NULL_BL_LINEBR.indexOf(peek()) == -1) {
+        if (!is(peek(), NULL_BL_LINEBR)) {
             throw new TokenizerException(
                 "While scanning for a directive name, expected an alpha or numeric character but found: " + ch(ch));
         }
@@ -669,7 +969,7 @@ public class Tokenizer {
         }
         forward();
         String minor = scanYamlDirectiveNumber();
-        if (NULL_BL_LINEBR.indexOf(peek()) == -1) {
+        if (!is(peek(), NULL_BL_LINEBR)) {
             throw new TokenizerException(
                 "While scanning for a directive value, expected a digit or '.' but found: " + ch(peek()));
         }
@@ -712,7 +1012,7 @@ public class Tokenizer {
 
     private String scanTagDirectivePrefix() {
         String value = scanTagUri("directive");
-        if (NULL_BL_LINEBR.indexOf(peek()) == -1) {
+        if (!is(peek(), NULL_BL_LINEBR)) {
             throw new TokenizerException(
                 "While scanning for a directive tag prefix, expected ' ' but found: " + ch(peek()));
         }
@@ -721,9 +1021,9 @@ public class Tokenizer {
 
     private String scanDirectiveIgnoredLine() {
         while (peek() == ' ') { forward(); }
-        if (peek() == '"') { while (NULL_OR_LINEBR.indexOf(peek()) == -1) { forward(); } }
+        if (peek() == '"') { while (!is(peek(), NULL_OR_LINEBR)) { forward(); } }
         char ch = peek();
-        if (NULL_OR_LINEBR.indexOf(ch) == -1) {
+        if (!is(ch, NULL_OR_LINEBR)) {
             throw new TokenizerException(
                 "While scanning a directive, expected a comment or line break but found: " + ch(peek()));
         }
@@ -735,21 +1035,15 @@ public class Tokenizer {
         String name = indicator == '*' ? "alias" : "anchor";
         forward();
         int length = 0;
-        int chunk_size = 16;
-        Matcher m = null;
-        for (; ; ) {
-            String chunk = prefix(chunk_size);
-            if ((m = NON_ALPHA.matcher(chunk)).find()) { break; }
-            chunk_size += 16;
-        }
-        length = m.start();
+        while (is(peek(length), ALPHA)) { length++; }
         if (length == 0) {
             throw new TokenizerException(
                 "While scanning an " + name + ", a non-alpha, non-numeric character was found.");
         }
-        String value = prefixForward(length);
-        // forward(length);
-        if (NON_ALPHA_OR_NUM.indexOf(peek()) == -1) {
+        String value = null;
+        if (skipDepth == 0) { value = prefix(length); }
+        forward(length);
+        if (!is(peek(), NON_ALPHA_OR_NUM)) {
             throw new TokenizerException(
                 "While scanning an " + name + ", expected an alpha or numeric character but found: " + ch(peek()));
         }
@@ -770,13 +1064,13 @@ public class Tokenizer {
                 throw new TokenizerException("While scanning a tag, expected '>' but found: " + ch(peek()));
             }
             forward();
-        } else if (NULL_BL_T_LINEBR.indexOf(ch) != -1) {
+        } else if (is(ch, NULL_BL_T_LINEBR)) {
             suffix = "!";
             forward();
         } else {
             int length = 1;
             boolean useHandle = false;
-            while (NULL_BL_T_LINEBR.indexOf(ch) == -1) {
+            while (!is(ch, NULL_BL_T_LINEBR)) {
                 if (ch == '!') {
                     useHandle = true;
                     break;
@@ -791,13 +1085,22 @@ public class Tokenizer {
             }
             suffix = scanTagUri("tag");
         }
-        if (NULL_BL_LINEBR.indexOf(peek()) == -1) {
+        if (!is(peek(), NULL_BL_LINEBR)) {
             throw new TokenizerException("While scanning a tag, expected ' ' but found: " + ch(peek()));
         }
         return new TagToken(handle, suffix);
     }
 
+    /** Scans a tag while skipping a collection, without reading its handle or suffix. */
+    private Token skipTag() {
+        int length = 1;
+        while (!is(peek(length), NULL_BL_T_LINEBR)) { length++; }
+        forward(length);
+        return SKIPPED_TAG;
+    }
+
     private Token scanBlockScalar(char style) {
+        boolean skip = skipDepth > 0;
         boolean folded = style == '>';
         StringBuilder chunks = new StringBuilder();
         forward();
@@ -821,17 +1124,16 @@ public class Tokenizer {
         }
 
         String lineBreak = "";
-        while (column == ind && peek() != '\0') {
+        while (getColumn() == ind && peek() != '\0') {
             chunks.append(breaks);
-            boolean leadingNonSpace = BLANK_T.indexOf(peek()) == -1;
+            boolean leadingNonSpace = !is(peek(), BLANK_T);
             int length = 0;
-            while (NULL_OR_LINEBR.indexOf(peek(length)) == -1) { length++; }
-            chunks.append(prefixForward(length));
-            // forward(length);
+            while (!is(peek(length), NULL_OR_LINEBR)) { length++; }
+            if (skip) { forward(length); } else { chunks.append(prefixForward(length)); }
             lineBreak = scanLineBreak();
             breaks = scanBlockScalarBreaks(ind);
-            if (column == ind && peek() != '\0') {
-                if (folded && lineBreak.equals("\n") && leadingNonSpace && BLANK_T.indexOf(peek()) == -1) {
+            if (getColumn() == ind && peek() != '\0') {
+                if (folded && lineBreak.equals("\n") && leadingNonSpace && !is(peek(), BLANK_T)) {
                     if (breaks.length() == 0) { chunks.append(" "); }
                 } else { chunks.append(lineBreak); }
             } else { break; }
@@ -842,6 +1144,7 @@ public class Tokenizer {
             chunks.append(breaks);
         }
 
+        if (skip) { return SKIPPED_SCALAR; }
         return new ScalarToken(chunks.toString(), false, style);
     }
 
@@ -874,7 +1177,7 @@ public class Tokenizer {
                 forward();
             }
         }
-        if (NULL_BL_LINEBR.indexOf(peek()) == -1) {
+        if (!is(peek(), NULL_BL_LINEBR)) {
             throw new TokenizerException(
                 "While scanning a block scalar, expected chomping or indentation indicators but found: " + ch(peek()));
         }
@@ -883,8 +1186,8 @@ public class Tokenizer {
 
     private String scanBlockScalarIgnoredLine() {
         while (peek() == ' ') { forward(); }
-        if (peek() == '#') { while (NULL_OR_LINEBR.indexOf(peek()) == -1) { forward(); } }
-        if (NULL_OR_LINEBR.indexOf(peek()) == -1) {
+        if (peek() == '#') { while (!is(peek(), NULL_OR_LINEBR)) { forward(); } }
+        if (!is(peek(), NULL_OR_LINEBR)) {
             throw new TokenizerException(
                 "While scanning a block scalar, expected a comment or line break but found: " + ch(peek()));
         }
@@ -894,10 +1197,10 @@ public class Tokenizer {
     private Object[] scanBlockScalarIndentation() {
         StringBuilder chunks = new StringBuilder();
         int maxIndent = 0;
-        while (BLANK_OR_LINEBR.indexOf(peek()) != -1) {
+        while (is(peek(), BLANK_OR_LINEBR)) {
             if (peek() != ' ') { chunks.append(scanLineBreak()); } else {
                 forward();
-                if (column > maxIndent) { maxIndent = column; }
+                if (getColumn() > maxIndent) { maxIndent = getColumn(); }
             }
         }
         return new Object[] { chunks.toString(), maxIndent };
@@ -905,18 +1208,33 @@ public class Tokenizer {
 
     private String scanBlockScalarBreaks(int indent) {
         StringBuilder chunks = new StringBuilder();
-        while (column < indent && peek() == ' ') { forward(); }
-        while (FULL_LINEBR.indexOf(peek()) != -1) {
+        while (getColumn() < indent && peek() == ' ') { forward(); }
+        while (is(peek(), FULL_LINEBR)) {
             chunks.append(scanLineBreak());
-            while (column < indent && peek() == ' ') { forward(); }
+            while (getColumn() < indent && peek() == ' ') { forward(); }
         }
         return chunks.toString();
     }
 
     private Token scanFlowScalar(char style) {
         boolean dbl = style == '"';
-        StringBuilder chunks = new StringBuilder();
         char quote = peek();
+        if (scalarViews) {
+            // A scalar without escapes or line breaks is read in place.
+            int length = 0;
+            char ch = peek(1);
+            while (ch != quote && (!dbl || ch != '\\') && !is(ch, NULL_OR_LINEBR) && length + 3 <= buffer.available()) {
+                ch = peek(++length + 1);
+            }
+            if (ch == quote && length != 0 && (dbl || peek(length + 2) != '\'')) {
+                forward();
+                ScalarView view = buffer.view(length);
+                forward(length);
+                forward();
+                return new ScalarToken(view, false, style);
+            }
+        }
+        StringBuilder chunks = new StringBuilder();
         forward();
         chunks.append(scanFlowScalarNonSpaces(dbl));
         while (peek() != quote) {
@@ -927,18 +1245,39 @@ public class Tokenizer {
         return new ScalarToken(chunks.toString(), false, style);
     }
 
+    /** Scans a quoted scalar while skipping a collection, only to find where it ends. */
+    private Token skipFlowScalar(char style) {
+        boolean dbl = style == '"';
+        char quote = peek();
+        forward();
+        for (; ; ) {
+            char ch = peek();
+            if (ch == '\0') {
+                throw new TokenizerException("While scanning a quoted scalar, found unexpected end of stream.");
+            } else if (ch == quote) {
+                if (dbl || peek(1) != '\'') { break; }
+                forward(2);
+            } else {
+                forward(1);
+                if (dbl && ch == '\\' && peek() != '\0') { forward(1); }
+            }
+        }
+        forward();
+        return SKIPPED_SCALAR;
+    }
+
     private String scanFlowScalarNonSpaces(boolean dbl) {
         StringBuilder chunks = new StringBuilder();
         for (; ; ) {
             int length = 0;
-            while (SPACES_AND_STUFF.indexOf(peek(length)) == -1) { length++; }
+            while (!is(peek(length), SPACES_AND_STUFF)) { length++; }
             if (length != 0) { chunks.append(prefixForward(length)); }
             // forward(length);
             char ch = peek();
             if (!dbl && ch == '\'' && peek(1) == '\'') {
                 chunks.append("'");
                 forward(2);
-            } else if (dbl && ch == '\'' || !dbl && DOUBLE_ESC.indexOf(ch) != -1) {
+            } else if (dbl && ch == '\'' || !dbl && is(ch, DOUBLE_ESC)) {
                 chunks.append(ch);
                 forward();
             } else if (dbl && ch == '\\') {
@@ -950,15 +1289,16 @@ public class Tokenizer {
                 } else if (ESCAPE_CODES.containsKey(ch)) {
                     length = ESCAPE_CODES.get(ch);
                     forward();
-                    String val = prefix(length);
-                    if (NOT_HEXA.matcher(val).find()) {
-                        throw new TokenizerException(
-                            "While scanning a double quoted scalar, expected an escape sequence of " + length +
-                                " hexadecimal numbers but found: " + ch(peek()));
+                    for (int i = 0; i < length; i++) {
+                        if (!is(peek(i), HEXA)) {
+                            throw new TokenizerException(
+                                "While scanning a double quoted scalar, expected an escape sequence of " + length +
+                                    " hexadecimal numbers but found: " + ch(peek()));
+                        }
                     }
-                    chunks.append(Character.toChars(Integer.parseInt(val, 16)));
+                    chunks.append(Character.toChars(Integer.parseInt(prefix(length), 16)));
                     forward(length);
-                } else if (FULL_LINEBR.indexOf(ch) != -1) {
+                } else if (is(ch, FULL_LINEBR)) {
                     scanLineBreak();
                     chunks.append(scanFlowScalarBreaks());
                 } else {
@@ -972,13 +1312,13 @@ public class Tokenizer {
     private String scanFlowScalarSpaces() {
         StringBuilder chunks = new StringBuilder();
         int length = 0;
-        while (BLANK_T.indexOf(peek(length)) != -1) { length++; }
+        while (is(peek(length), BLANK_T)) { length++; }
         String whitespaces = prefixForward(length);
         // forward(length);
         char ch = peek();
         if (ch == '\0') {
             throw new TokenizerException("While scanning a quoted scalar, found unexpected end of stream.");
-        } else if (FULL_LINEBR.indexOf(ch) != -1) {
+        } else if (is(ch, FULL_LINEBR)) {
             String lineBreak = scanLineBreak();
             String breaks = scanFlowScalarBreaks();
             if (!lineBreak.equals("\n")) { chunks.append(lineBreak); } else if (breaks.length() == 0) {
@@ -991,14 +1331,12 @@ public class Tokenizer {
 
     private String scanFlowScalarBreaks() {
         StringBuilder chunks = new StringBuilder();
-        String pre = null;
         for (; ; ) {
-            pre = prefix(3);
-            if ((pre.equals("---") || pre.equals("...")) && NULL_BL_T_LINEBR.indexOf(peek(3)) != -1) {
+            if (isDocumentIndicator('-') || isDocumentIndicator('.')) {
                 throw new TokenizerException("While scanning a quoted scalar, found unexpected document separator.");
             }
-            while (BLANK_T.indexOf(peek()) != -1) { forward(); }
-            if (FULL_LINEBR.indexOf(peek()) != -1) { chunks.append(scanLineBreak()); } else {
+            while (is(peek(), BLANK_T)) { forward(); }
+            if (is(peek(), FULL_LINEBR)) { chunks.append(scanLineBreak()); } else {
                 return chunks.toString();
             }
         }
@@ -1009,62 +1347,129 @@ public class Tokenizer {
          * See the specification for details. We add an additional restriction for the flow context: plain scalars in the flow
          * context cannot contain ',', ':' and '?'. We also keep track of the `allow_simple_key` flag here. Indentation rules are
          * loosed for the flow context.
+         *
+         * Each chunk is scanned once. Characters are moved to the value whenever the scan reaches the end of the buffered input,
+         * so a long scalar never makes the buffer grow and is never rescanned.
          */
         StringBuilder chunks = new StringBuilder();
         int ind = indent + 1;
         String spaces = "";
-        boolean f_nzero = true;
-        Pattern r_check = R_FLOWNONZERO;
-        if (flowLevel == 0) {
-            f_nzero = false;
-            r_check = R_FLOWZERO;
-        }
+        boolean f_nzero = flowLevel != 0;
+        ScalarView view = null;
         while (peek() != '#') {
+            boolean empty = true;
             int length = 0;
-            int chunkSize = 32;
-            Matcher m = null;
-            while (!(m = r_check.matcher(prefix(chunkSize))).find()) { chunkSize += 32; }
-            length = m.start();
-            char ch = peek(length);
-            if (f_nzero && ch == ':' && S4.indexOf(peek(length + 1)) == -1) {
+            char ch = peek();
+            while (f_nzero ? !is(ch, FLOWNONZERO_END)
+                : !is(ch, NULL_BL_T_LINEBR) && (ch != ':' || !is(peek(length + 1), FLOWZERO_AFTER_COLON))) {
+                length++;
+                if (length + 2 > buffer.available()) {
+                    if (empty) {
+                        allowSimpleKey = false;
+                        view = appendView(chunks, view);
+                        chunks.append(spaces);
+                        empty = false;
+                    }
+                    appendForward(chunks, length);
+                    length = 0;
+                }
+                ch = peek(length);
+            }
+            if (f_nzero && ch == ':' && !is(peek(length + 1), S4)) {
                 forward(length);
                 throw new TokenizerException(
                     "While scanning a plain scalar, found unexpected ':'. See: http://pyyaml.org/wiki/YAMLColonInFlowContext");
             }
-            if (length == 0) { break; }
-            allowSimpleKey = false;
-            chunks.append(spaces);
-            chunks.append(prefixForward(length));
-            // forward(length);
+            if (empty) {
+                if (length == 0) { break; }
+                allowSimpleKey = false;
+                if (scalarViews && view == null && chunks.length() == 0) {
+                    // The first chunk is read in place, until a second chunk shows the scalar has to be folded.
+                    view = buffer.view(length);
+                    forward(length);
+                    length = 0;
+                } else {
+                    view = appendView(chunks, view);
+                    chunks.append(spaces);
+                }
+            }
+            appendForward(chunks, length);
             spaces = scanPlainSpaces();
-            if (spaces == null || flowLevel == 0 && column < ind) { break; }
+            if (flowLevel == 0 && getColumn() < ind) { break; }
         }
+        if (view != null) { return new ScalarToken(view, true, (char) 0); }
         return new ScalarToken(chunks.toString(), true);
     }
 
+    /** Scans a plain scalar like {@link #scanPlain()} while skipping a collection, without building its value. */
+    private Token skipPlain() {
+        int ind = indent + 1;
+        boolean f_nzero = flowLevel != 0;
+        while (peek() != '#') {
+            boolean empty = true;
+            int length = 0;
+            char ch = peek();
+            while (f_nzero ? !is(ch, FLOWNONZERO_END)
+                : !is(ch, NULL_BL_T_LINEBR) && (ch != ':' || !is(peek(length + 1), FLOWZERO_AFTER_COLON))) {
+                length++;
+                if (length + 2 > buffer.available()) {
+                    allowSimpleKey = false;
+                    empty = false;
+                    forward(length);
+                    length = 0;
+                }
+                ch = peek(length);
+            }
+            if (f_nzero && ch == ':' && !is(peek(length + 1), S4)) {
+                forward(length);
+                throw new TokenizerException(
+                    "While scanning a plain scalar, found unexpected ':'. See: http://pyyaml.org/wiki/YAMLColonInFlowContext");
+            }
+            if (empty) {
+                if (length == 0) { break; }
+                allowSimpleKey = false;
+            }
+            forward(length);
+            scanPlainSpaces();
+            if (flowLevel == 0 && getColumn() < ind) { break; }
+        }
+        return SKIPPED_SCALAR;
+    }
+
+    /** Appends the characters of the view, if any, and releases it. Returns null. */
+    private ScalarView appendView(StringBuilder chunks, ScalarView view) {
+        if (view != null) {
+            chunks.append(view);
+            buffer.releaseLast(view);
+        }
+        return null;
+    }
+
     private String scanPlainSpaces() {
-        StringBuilder chunks = new StringBuilder();
         int length = 0;
         while (peek(length) == ' ') { length++; }
-        String whitespaces = prefixForward(length);
-        // forward(length);
-        char ch = peek();
-        if (FULL_LINEBR.indexOf(ch) != -1) {
-            String lineBreak = scanLineBreak();
-            allowSimpleKey = true;
-            if (END_OR_START.matcher(prefix(4)).matches()) { return ""; }
-            StringBuilder breaks = new StringBuilder();
-            while (BLANK_OR_LINEBR.indexOf(peek()) != -1) {
-                if (' ' == peek()) { forward(); } else {
-                    breaks.append(scanLineBreak());
-                    if (END_OR_START.matcher(prefix(4)).matches()) { return ""; }
-                }
+        if (!is(peek(length), FULL_LINEBR)) {
+            if (length == 1) {
+                forward();
+                return " ";
             }
-            if (!lineBreak.equals("\n")) { chunks.append(lineBreak); } else if (breaks.length() == 0) {
-                chunks.append(" ");
+            return prefixForward(length);
+        }
+        forward(length);
+        scanLineBreak();
+        allowSimpleKey = true;
+        if (isDocumentIndicator('-') || isDocumentIndicator('.')) { return ""; }
+        int breaks = 0;
+        while (is(peek(), BLANK_OR_LINEBR)) {
+            if (' ' == peek()) { forward(); } else {
+                scanLineBreak();
+                breaks++;
+                if (isDocumentIndicator('-') || isDocumentIndicator('.')) { return ""; }
             }
-            chunks.append(breaks);
-        } else { chunks.append(whitespaces); }
+        }
+        if (breaks == 0) { return " "; }
+        StringBuilder chunks = new StringBuilder(breaks);
+        for (int i = 0; i < breaks; i++) { chunks.append('\n'); }
         return chunks.toString();
     }
 
@@ -1076,7 +1481,7 @@ public class Tokenizer {
         int length = 1;
         ch = peek(length);
         if (ch != ' ') {
-            while (ALPHA.indexOf(ch) != -1) {
+            while (is(ch, ALPHA)) {
                 length++;
                 ch = peek(length);
             }
@@ -1095,7 +1500,7 @@ public class Tokenizer {
         StringBuilder chunks = new StringBuilder();
         int length = 0;
         char ch = peek(length);
-        while (STRANGE_CHAR.indexOf(ch) != -1) {
+        while (is(ch, STRANGE_CHAR)) {
             if ('%' == ch) {
                 chunks.append(prefixForward(length));
                 // forward(length);
@@ -1137,13 +1542,18 @@ public class Tokenizer {
         // '\x85' : '\n'
         // default : ''
         char val = peek();
-        if (FULL_LINEBR.indexOf(val) != -1) {
-            if (RN.equals(prefix(2))) { forward(2); } else { forward(); }
+        if (is(val, FULL_LINEBR)) {
+            if (val == '\r' && peek(1) == '\n') { forward(2); } else { forward(); }
             return "\n";
         }
         return "";
     }
 
+    /** Returns true if the next characters are three of the indicator followed by a blank, a line break or the end. */
+    private boolean isDocumentIndicator(char indicator) {
+        return peek() == indicator && peek(1) == indicator && peek(2) == indicator && is(peek(3), NULL_BL_T_LINEBR);
+    }
+
     private String ch(char ch) {
         return "'" + ch + "' (" + (int) ch + ")";
     }
@@ -1158,13 +1568,130 @@ public class Tokenizer {
         }
     }
 
-    static class SimpleKey {
-        public final int tokenNumber;
-        public final int column;
+    /**
+     * The state fetching a token can change, so it can be rolled back when fed input runs out in the middle of the token. It is
+     * saved before each token a non-blocking tokenizer fetches, into the same fields and arrays each time.
+     */
+    private class Checkpoint {
+        private long offset;
+        private boolean done;
+        private int flowLevel;
+        private int indent;
+        private boolean allowSimpleKey;
+        private int lineNumber;
+        private int column;
+        private long lineStart;
+        private int uncountedColumns;
+        private int uncountedLineBreaks;
+        private boolean docStart;
+        private final List<Token> tokens = new ArrayList<>();
+        private int[] indents = new int[16];
+        private int indentCount;
+        private int[] simpleKeyTokens = new int[16];
+        private int[] simpleKeyColumns = new int[16];
+        private int simpleKeyLevels;
+
+        void save() {
+            offset = buffer.position();
+            done = Tokenizer.this.done;
+            flowLevel = Tokenizer.this.flowLevel;
+            indent = Tokenizer.this.indent;
+            allowSimpleKey = Tokenizer.this.allowSimpleKey;
+            lineNumber = Tokenizer.this.lineNumber;
+            column = Tokenizer.this.column;
+            lineStart = Tokenizer.this.lineStart;
+            uncountedColumns = Tokenizer.this.uncountedColumns;
+            uncountedLineBreaks = Tokenizer.this.uncountedLineBreaks;
+            docStart = Tokenizer.this.docStart;
+            tokens.clear();
+            for (Token token : Tokenizer.this.tokens) {
+                tokens.add(token);
+            }
+            indentCount = Tokenizer.this.indentCount;
+            indents = copy(Tokenizer.this.indents, indentCount, indents);
+            simpleKeyLevels = Tokenizer.this.simpleKeyLevels;
+            simpleKeyTokens = copy(Tokenizer.this.simpleKeyTokens, simpleKeyLevels, simpleKeyTokens);
+            simpleKeyColumns = copy(Tokenizer.this.simpleKeyColumns, simpleKeyLevels, simpleKeyColumns);
+        }
+
+        void restore() {
+            Tokenizer.this.done = done;
+            Tokenizer.this.flowLevel = flowLevel;
+            Tokenizer.this.indent = indent;
+            Tokenizer.this.allowSimpleKey = allowSimpleKey;
+            Tokenizer.this.lineNumber = lineNumber;
+            Tokenizer.this.column = column;
+            Tokenizer.this.lineStart = lineStart;
+            Tokenizer.this.uncountedColumns = uncountedColumns;
+            Tokenizer.this.uncountedLineBreaks = uncountedLineBreaks;
+            Tokenizer.this.docStart = docStart;
+            Tokenizer.this.tokens.clear();
+            Tokenizer.this.tokens.addAll(tokens);
+            System.arraycopy(indents, 0, Tokenizer.this.indents, 0, indentCount);
+            Tokenizer.this.indentCount = indentCount;
+            Arrays.fill(Tokenizer.this.simpleKeyTokens, simpleKeyLevels, Tokenizer.this.simpleKeyLevels, 0);
+            System.arraycopy(simpleKeyTokens, 0, Tokenizer.this.simpleKeyTokens, 0, simpleKeyLevels);
+            System.arraycopy(simpleKeyColumns, 0, Tokenizer.this.simpleKeyColumns, 0, simpleKeyLevels);
+            Tokenizer.this.simpleKeyLevels = simpleKeyLevels;
+        }
+
+        /** Copies the first values of an array into another, which is replaced by a larger one if it is too small. */
+        private int[] copy(int[] from, int length, int[] to) {
+            if (to.length < length) { to = new int[from.length]; }
+            System.arraycopy(from, 0, to, 0, length);
+            return to;
+        }
+    }
+
+    /** The position of a non-blocking tokenizer after the blanks and comments it scanned from where a fetch started. */
+    private class TokenStart {
+        /** Where the fetch started, or -1 if no position is recorded. */
+        private long from = -1;
+        private int length;
+        private boolean allowSimpleKey;
+        private int lineNumber;
+        private int column;
+        private long lineStart;
+        private int uncountedColumns;
+        private int uncountedLineBreaks;
+
+        void save(long from) {
+            this.from = from;
+            length = (int) (buffer.position() - from);
+            allowSimpleKey = Tokenizer.this.allowSimpleKey;
+            lineNumber = Tokenizer.this.lineNumber;
+            column = Tokenizer.this.column;
+            lineStart = Tokenizer.this.lineStart;
+            uncountedColumns = Tokenizer.this.uncountedColumns;
+            uncountedLineBreaks = Tokenizer.this.uncountedLineBreaks;
+        }
+
+        /** Moves to the recorded position and returns true, or returns false if none was recorded where the fetch starts. */
+        boolean restore() {
+            if (from != buffer.position()) { return false; }
+            buffer.skip(length);
+            Tokenizer.this.allowSimpleKey = allowSimpleKey;
+            Tokenizer.this.lineNumber = lineNumber;
+            Tokenizer.this.column = column;
+            Tokenizer.this.lineStart = lineStart;
+            Tokenizer.this.uncountedColumns = uncountedColumns;
+            Tokenizer.this.uncountedLineBreaks = uncountedLineBreaks;
+            return true;
+        }
+
+        void clear() {
+            from = -1;
+        }
+    }
+
+    /** Thrown when fed input runs out in the middle of a token. */
+    private static class NeedMoreInput extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        static final NeedMoreInput INSTANCE = new NeedMoreInput();
 
-        public SimpleKey(int tokenNumber, int column) {
-            this.tokenNumber = tokenNumber;
-            this.column = column;
+        private NeedMoreInput() {
+            super(null, null, false, false);
         }
     }
 
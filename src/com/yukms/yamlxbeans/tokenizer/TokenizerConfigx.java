@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2008 Nathan Sweet
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.yukms.yamlxbeans.tokenizer;
+
+/** Configuration for reading characters into the {@link Tokenizer}. */
+public class TokenizerConfigx {
+    int bufferSize = 8192;
+    int readChunkSize = 1024;
+    boolean scalarViews;
+    boolean lazyPositions;
+
+    /**
+     * Sets the number of characters the tokenizer keeps buffered ahead of its position. The buffer only grows past this size
+     * when a longer lookahead is needed. Default is 8192.
+     */
+    public void setBufferSize(int bufferSize) {
+        if (bufferSize < 16) { throw new IllegalArgumentException("bufferSize cannot be less than 16."); }
+        this.bufferSize = bufferSize;
+    }
+
+    /** Sets the maximum number of characters requested from the reader by each read. Default is 1024. */
+    public void setReadChunkSize(int readChunkSize) {
+        if (readChunkSize < 1) { throw new IllegalArgumentException("readChunkSize cannot be less than 1."); }
+        this.readChunkSize = readChunkSize;
+    }
+
+    /**
+     * When true, scalars without escapes or folding are not copied into a String. They are views of the buffer instead, which are
+     * only valid until the parser produces its next event, see {@link com.yukms.yamlxbeans.parser.ScalarEvent#chars}. Default is
+     * false.
+     */
+    public void setScalarViews(boolean scalarViews) {
+        this.scalarViews = scalarViews;
+    }
+
+    /**
+     * When true, the tokenizer only tracks where the current line starts as it reads. Line numbers are counted from the line
+     * breaks in the consumed characters when they are asked for, such as for an error message, or before the characters are
+     * dropped from the buffer. Default is false.
+     */
+    public void setLazyPositions(boolean lazyPositions) {
+        this.lazyPositions = lazyPositions;
+    }
+}
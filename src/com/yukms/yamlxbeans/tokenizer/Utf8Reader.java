@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2008 Nathan Sweet
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software
+ * is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ * IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.yukms.yamlxbeans.tokenizer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the UTF-8 bytes remaining in a {@link ByteBuffer}, such as a memory mapped file. The bytes are decoded straight into the
+ * array passed to {@link #read(char[], int, int)}, with a fast path for ASCII, so no intermediate byte or char buffers are used.
+ * Each malformed byte is read as U+FFFD. The position of the given buffer is not changed.
+ */
+public class Utf8Reader extends Reader {
+    /** The smallest code point that may be encoded with each sequence length, so overlong encodings are malformed. */
+    private final static int[] MIN_CODE_POINTS = { 0, 0, 0x80, 0x800, 0x10000 };
+
+    private ByteBuffer bytes;
+    private boolean endOfInput;
+    private final byte[] split = new byte[4];
+    private int splitLength;
+    private ByteBuffer splitBytes;
+    private char pendingLowSurrogate;
+
+    public Utf8Reader(ByteBuffer bytes) {
+        if (bytes == null) { throw new IllegalArgumentException("bytes cannot be null."); }
+        this.bytes = bytes.duplicate();
+        endOfInput = true;
+    }
+
+    /**
+     * Creates a reader for bytes given later to {@link #feed(ByteBuffer)}. Until {@link #endOfInput()}, reading returns 0 instead
+     * of blocking when all of the fed bytes have been read.
+     */
+    Utf8Reader() {
+        bytes = ByteBuffer.allocate(0);
+    }
+
+    /** Returns true if all fed bytes have been read, except for the start of a character that continues in the next bytes. */
+    boolean needsInput() {
+        return !endOfInput && !bytes.hasRemaining() && (splitBytes == null || !splitBytes.hasRemaining());
+    }
+
+    /**
+     * Gives the reader more bytes. The bytes are not copied, so the buffer's contents must not change until they have been read.
+     *
+     * @throws IllegalStateException if the input has ended or the previously fed bytes have not all been read.
+     */
+    void feed(ByteBuffer bytes) {
+        if (bytes == null) { throw new IllegalArgumentException("bytes cannot be null."); }
+        if (endOfInput) { throw new IllegalStateException("The end of the input has already been reached."); }
+        if (!needsInput()) { throw new IllegalStateException("The previously fed input has not been read yet."); }
+        this.bytes = bytes.duplicate();
+        if (splitLength != 0) {
+            // Complete the character that was split between the previous bytes and these.
+            int length = sequenceLength(split[0]);
+            while (splitLength < length && this.bytes.hasRemaining() && (this.bytes.get(this.bytes.position()) & 0xC0) == 0x80) {
+                split[splitLength++] = this.bytes.get();
+            }
+            if (splitLength == length || this.bytes.hasRemaining()) {
+                splitBytes = ByteBuffer.wrap(split, 0, splitLength);
+                splitLength = 0;
+            }
+        }
+    }
+
+    /** Marks the end of the fed bytes. */
+    void endOfInput() {
+        endOfInput = true;
+        if (splitLength != 0) {
+            splitBytes = ByteBuffer.wrap(split, 0, splitLength);
+            splitLength = 0;
+        }
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) { return 0; }
+        int count = 0;
+        if (pendingLowSurrogate != 0) {
+            cbuf[off] = pendingLowSurrogate;
+            pendingLowSurrogate = 0;
+            count++;
+        }
+        if (splitBytes != null) {
+            count += decode(splitBytes, cbuf, off + count, len - count, false);
+            if (splitBytes.hasRemaining()) { return count; }
+            splitBytes = null;
+        }
+        count += decode(bytes, cbuf, off + count, len - count, !endOfInput);
+        if (count < len && bytes.hasRemaining()) {
+            // The bytes end in the middle of a character.
+            splitLength = bytes.remaining();
+            bytes.get(split, 0, splitLength);
+        }
+        if (count == 0) { return endOfInput ? -1 : 0; }
+        return count;
+    }
+
+    /**
+     * Decodes bytes into the array until the array is full or the bytes run out. When split is true, a character that is
+     * incomplete at the end of the bytes is left unread.
+     */
+    private int decode(ByteBuffer bytes, char[] cbuf, int off, int len, boolean split) {
+        int count = 0;
+        int position = bytes.position();
+        int limit = bytes.limit();
+        while (count < len && position < limit) {
+            int b = bytes.get(position);
+            if (b >= 0) {
+                cbuf[off + count++] = (char) b;
+                position++;
+                continue;
+            }
+            int length = sequenceLength(b);
+            int codePoint = length == 2 ? b & 0x1F : length == 3 ? b & 0x0F : b & 0x07;
+            if (length != 1 && position + length > limit) {
+                if (split) { break; }
+                length = 1;
+            }
+            for (int i = 1; i < length; i++) {
+                int next = bytes.get(position + i);
+                if ((next & 0xC0) != 0x80) {
+                    length = 1;
+                    break;
+                }
+                codePoint = codePoint << 6 | next & 0x3F;
+            }
+            if (length == 1 || codePoint < MIN_CODE_POINTS[length] || codePoint > Character.MAX_CODE_POINT ||
+                codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+                cbuf[off + count++] = '\uFFFD';
+                position++;
+                continue;
+            }
+            position += length;
+            if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                cbuf[off + count++] = (char) codePoint;
+            } else {
+                cbuf[off + count++] = Character.highSurrogate(codePoint);
+                if (count < len) { cbuf[off + count++] = Character.lowSurrogate(codePoint); } else {
+                    pendingLowSurrogate = Character.lowSurrogate(codePoint);
+                }
+            }
+        }
+        bytes.position(position);
+        return count;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /** Returns the number of bytes in the sequence started by the given byte, or 1 if it cannot start a sequence. */
+    private static int sequenceLength(int b) {
+        return (b & 0xE0) == 0xC0 ? 2 : (b & 0xF0) == 0xE0 ? 3 : (b & 0xF8) == 0xF0 ? 4 : 1;
+    }
+}
@@ -563,6 +563,57 @@ public class BeansTest {
         assertNull(nullProperty);
     }
 
+    @Test
+    public void primitiveSetters() throws Exception {
+        // The public class is accessed through lambdas, and the private class and the fields through method handles.
+        for (Class type : new Class[] { PublicMockClass.class, MockClass.class }) {
+            for (boolean beanProperties : new boolean[] { true, false }) {
+                Object object = type.getConstructor().newInstance();
+                Beans.Property intType = Beans.getProperty(type, "intType", beanProperties, true, yamlConfig);
+                Beans.Property longType = Beans.getProperty(type, "longType", beanProperties, true, yamlConfig);
+                Beans.Property doubleType = Beans.getProperty(type, "doubleType", beanProperties, true, yamlConfig);
+                assertEquals(beanProperties, intType instanceof Beans.MethodProperty);
+
+                intType.setInt(object, Integer.MIN_VALUE);
+                longType.setLong(object, Long.MAX_VALUE);
+                doubleType.setDouble(object, -1.5);
+                assertEquals(Integer.MIN_VALUE, intType.get(object));
+                assertEquals(Long.MAX_VALUE, longType.get(object));
+                assertEquals(-1.5, (Double) doubleType.get(object), DELTA);
+            }
+        }
+    }
+
+    public static class PublicMockClass {
+        private int intType;
+        private long longType;
+        private double doubleType;
+
+        public int getIntType() {
+            return intType;
+        }
+
+        public void setIntType(int intType) {
+            this.intType = intType;
+        }
+
+        public long getLongType() {
+            return longType;
+        }
+
+        public void setLongType(long longType) {
+            this.longType = longType;
+        }
+
+        public double getDoubleType() {
+            return doubleType;
+        }
+
+        public void setDoubleType(double doubleType) {
+            this.doubleType = doubleType;
+        }
+    }
+
     private static class MockClass {
 
         private boolean booleanType;
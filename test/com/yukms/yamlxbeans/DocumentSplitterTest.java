@@ -0,0 +1,88 @@
+package com.yukms.yamlxbeans;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+public class DocumentSplitterTest {
+
+    /**
+     * Purpose: Runs start at the document start markers where the documents can be read separately
+     * Input: documents that are mappings, sequences, block and quoted scalars, with directives, comments and end markers
+     * Expected: a run starts at each "---" line, or at the directives before it, also without an end marker
+     */
+    @Test
+    public void testSplit() {
+        String yaml = "a: b\n--- [c]\n---\n- d\n--- |\n  e\n...\n# comment\n%YAML 1.1\n--- 'f'\n--- !tag\ng: h\n";
+        assertArrayEquals(new int[] {0, 5, 13, 21, 45, 63}, split(yaml, 0));
+        assertArrayEquals(new int[] {0, 9, 17}, split("&a x\n...\n--- ? y\n--- z\n", 0));
+        assertArrayEquals(new int[] {0, 5}, split("a: b\n%YAML 1.1\n--- c\n", 0));
+    }
+
+    /**
+     * Purpose: No run starts where reading the documents separately would differ from reading the stream
+     * Input: plain scalar documents before a "---" line or a directive, a "---" without a following space, and a %TAG directive
+     * Expected: no run starts after the plain scalars, at "---x", or at or after the %TAG directive
+     */
+    @Test
+    public void testNoSplit() {
+        assertArrayEquals(new int[] {0}, split("x\n---\ny\n", 0));
+        assertArrayEquals(new int[] {0}, split("--- !!str x # a: b\n--- y\n", 0));
+        assertArrayEquals(new int[] {0, 10}, split("a: b\n---x\n--- c\n", 0));
+        assertArrayEquals(new int[] {0}, split("x\n%YAML 1.1\n--- c\n", 0));
+        assertArrayEquals(new int[] {0}, split("a: b\n%TAG !e! tag:e,2000:\n--- !e!c d\n--- e\n", 0));
+    }
+
+    /**
+     * Purpose: Small documents are put in the same run
+     * Input: documents of 9 characters, split with a minimum run length of 10, as characters and as UTF-8 bytes after the
+     * buffer's position, where the first document has a 2 byte character
+     * Expected: each run but the last has two documents, except the first run of bytes, which is 10 bytes
+     */
+    @Test
+    public void testMinLength() {
+        String yaml = "--- [ab]\n--- [cd]\n--- [ef]\n--- [gh]\n--- [ij]\n";
+        assertArrayEquals(new int[] {0, 18, 36}, split(yaml, 10));
+        ByteBuffer bytes = ByteBuffer.wrap(("12" + yaml.replace('a', 'é')).getBytes(StandardCharsets.UTF_8));
+        bytes.position(2);
+        assertArrayEquals(new int[] {0, 10, 28}, DocumentSplitter.split(bytes, 10).toIntArray());
+    }
+
+    /**
+     * Purpose: The entries of a root block collection are sliced where a line starts at the root's indent
+     * Input: a sequence with nested and multi-line entries, a mapping with an indentless sequence value, and an indented root
+     * Expected: a slice starts at each entry of the root, but not at the lines of a nested value
+     */
+    @Test
+    public void testSplitEntries() {
+        assertArrayEquals(new int[] {0, 4, 18, 39}, splitEntries("- a\n- b: c\n  d: e\n- |\n  text\n# comment\n- [f]\n"));
+        assertArrayEquals(new int[] {0, 15, 20}, splitEntries("---\na:\n- b\n- c\nd: e\nf:\n  g: h\n"));
+        assertArrayEquals(new int[] {0, 6}, splitEntries("  - a\n  - b\n"));
+        assertArrayEquals(new int[] {0, 4}, splitEntries("- a\n- b\n...\n"));
+    }
+
+    /**
+     * Purpose: A document whose entries cannot be read separately is not sliced
+     * Input: flow, scalar and tagged roots, directives, merge and complex keys, and content less indented than the root
+     * Expected: no slices
+     */
+    @Test
+    public void testNoSplitEntries() {
+        String[] yamls = {"[a, b]\n", "x\n", "--- !!seq\n- a\n", "&a\n- b\n", "%YAML 1.1\n---\n- a\n", "a: 1\n<<: {b: 2}\n",
+            "a: 1\n? b\n: 2\n", "  - a\n- b\n", "- a\nb: c\n", "a: b\n- c\nd\n"};
+        for (String yaml : yamls) {
+            assertNull(yaml, DocumentSplitter.splitEntries(yaml, 0));
+        }
+    }
+
+    private static int[] splitEntries(String yaml) {
+        return DocumentSplitter.splitEntries(yaml, 0).toIntArray();
+    }
+
+    private static int[] split(String yaml, int minLength) {
+        return DocumentSplitter.split(yaml, minLength).toIntArray();
+    }
+}
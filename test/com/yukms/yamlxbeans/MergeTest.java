@@ -5,12 +5,21 @@ import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
+import com.yukms.yamlxbeans.collection.MergedMap;
+
 public class MergeTest {
 
     @Test
@@ -25,4 +34,97 @@ public class MergeTest {
         assertNull(stuff.get("<<"));
     }
 
+    /**
+     * Purpose: Merge keys set the properties of a bean
+     * Input: beans that merge an anchored mapping and a sequence of mappings, and set some of the merged keys themselves
+     * Expected: each property has the bean's own value, or else the value of the first mapping that has the key, converted to the
+     * property's type
+     */
+    @Test
+    public void testMergeIntoBean() throws YamlxException {
+        String yaml = "base: &base {name: base, count: 1, ratio: 0.5}\n" +
+            "first: {<<: *base, name: first}\n" +
+            "second: {count: 2, <<: [{count: 3, ratio: 2}, *base]}\n";
+        Beans beans = new YamlxReader(yaml).read(Beans.class);
+        assertEquals("first", beans.first.name);
+        assertEquals(1, beans.first.count);
+        assertEquals(0.5, beans.first.ratio, 0);
+        assertEquals("base", beans.second.name);
+        assertEquals(2, beans.second.count);
+        assertEquals(2, beans.second.ratio, 0);
+    }
+
+    /**
+     * Purpose: A mapping with merge keys can be read as a view of the merged mappings
+     * Input: merge views enabled, and a mapping that merges two anchored mappings and sets one of their keys itself
+     * Expected: the map is a MergedMap that has the merged entries without copying them, until the map is changed
+     */
+    @Test
+    public void testMergeViews() throws YamlxException {
+        YamlxConfig config = new YamlxConfig();
+        config.readConfig.setMergeViews(true);
+        String yaml = "a: &a {x: 1, y: 2}\nb: &b {y: 3, z: 4}\nc: &c {<<: [*a, *b], x: 5}\nd: *c\n";
+        YamlxReader reader = new YamlxReader(yaml, config);
+        Map data = (Map) reader.read();
+        MergedMap merged = (MergedMap) data.get("c");
+        assertSame(merged, data.get("d"));
+        assertFalse(merged.isMaterialized());
+        assertEquals(3, merged.size());
+        assertEquals("5", merged.get("x"));
+        assertEquals("2", merged.get("y"));
+        assertEquals("4", merged.get("z"));
+        assertEquals(Arrays.asList("x", "y", "z"), new ArrayList<Object>(merged.keySet()));
+        ((Map) data.get("b")).put("w", "6");
+        assertEquals("6", merged.get("w"));
+        assertEquals(4, merged.size());
+        merged.put("v", "7");
+        assertTrue(merged.isMaterialized());
+        assertEquals(5, merged.size());
+        ((Map) data.get("a")).put("u", "8");
+        assertNull(merged.get("u"));
+    }
+
+    /**
+     * Purpose: A MergedMap looks keys up in its own entries before the merged maps, in the order they were merged
+     * Input: a map with one entry, merging two maps that share a key with it and with each other
+     * Expected: the first map with a key provides its value, and removing an entry copies the merged entries first
+     */
+    @Test
+    public void testMergedMap() {
+        Map<String, String> first = new LinkedHashMap<>();
+        first.put("a", "first");
+        first.put("b", "first");
+        Map<String, String> second = new LinkedHashMap<>();
+        second.put("b", "second");
+        second.put("c", "second");
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("a", "own");
+        MergedMap<String, String> map = new MergedMap<>(entries);
+        map.merge(first);
+        map.merge(second);
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("a", "own");
+        expected.put("b", "first");
+        expected.put("c", "second");
+        assertEquals(expected, map);
+        assertEquals(expected.toString(), map.toString());
+        assertEquals(1, entries.size());
+        assertEquals("first", map.remove("b"));
+        assertTrue(map.isMaterialized());
+        assertEquals(2, map.size());
+        assertEquals("first", first.get("b"));
+        assertFalse(map.containsKey("b"));
+    }
+
+    public static class Beans {
+        public Map base;
+        public Bean first;
+        public Bean second;
+    }
+
+    public static class Bean {
+        public String name;
+        public int count;
+        public double ratio;
+    }
 }
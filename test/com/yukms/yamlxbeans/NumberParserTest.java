@@ -0,0 +1,124 @@
+package com.yukms.yamlxbeans;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class NumberParserTest {
+
+    /**
+     * Purpose: Guessing the type of a scalar gives the same number as Integer.decode, then Float.valueOf
+     * Input: decimal, octal and hexadecimal integers, and floating point numbers in each form Float.valueOf reads
+     * Expected: an Integer or a Float equal to what Integer.decode or Float.valueOf returns
+     */
+    @Test
+    public void testGuessJavaForms() {
+        for (String value : new String[] {"0", "-0", "+12", "010", "0x1F", "-0X1f", "#ff", "-#FF", "2147483647", "-2147483648"}) {
+            assertEquals(value, Integer.decode(value), NumberParser.guess(value));
+        }
+        for (String value : new String[] {"1.5", "-.5", "1.", "1e5", "2.5E-3f", "08", "3d", " 4 ", "0x1.8p1", "NaN", "-Infinity"}) {
+            assertEquals(value, Float.valueOf(value), NumberParser.guess(value));
+        }
+    }
+
+    /**
+     * Purpose: Guessing the type of a scalar that is not a number returns null
+     * Input: strings that look partly like numbers
+     * Expected: null for each
+     */
+    @Test
+    public void testGuessNotNumbers() {
+        for (String value : new String[] {"", "-", "abc", "1a", "0x", "#", "0xp1", "0x1.8", "1e", "1e+", ".", "1..2", "_1", "1f2",
+            "-.nan", "0x-1", "true"}) {
+            assertNull(value, NumberParser.guess(value));
+        }
+    }
+
+    /**
+     * Purpose: Guessing the type of a scalar reads the YAML number forms
+     * Input: 0o and 0b prefixes, underscores between digits, and .inf and .nan
+     * Expected: the numbers the YAML forms describe
+     */
+    @Test
+    public void testGuessYamlForms() {
+        assertEquals(15, NumberParser.guess("0o17"));
+        assertEquals(-5, NumberParser.guess("-0b101"));
+        assertEquals(1000000, NumberParser.guess("1_000_000"));
+        assertEquals(1000.5f, NumberParser.guess("1_000.5"));
+        assertEquals(Float.NEGATIVE_INFINITY, NumberParser.guess("-.inf"));
+        assertEquals(Float.POSITIVE_INFINITY, NumberParser.guess(".Inf"));
+        assertEquals(Float.NaN, NumberParser.guess(".NAN"));
+    }
+
+    /**
+     * Purpose: Guessing the type of a scalar widens numbers that do not fit
+     * Input: integers too large for an int and a long, and floating point numbers too large or small for a float and a double
+     * Expected: a Long, BigInteger, Double or BigDecimal holding the exact value
+     */
+    @Test
+    public void testGuessWidens() {
+        assertEquals(2147483648L, NumberParser.guess("2147483648"));
+        assertEquals(Long.MIN_VALUE, NumberParser.guess("-9223372036854775808"));
+        assertEquals(new BigInteger("9223372036854775808"), NumberParser.guess("9223372036854775808"));
+        assertEquals(new BigInteger("-ffffffffffffffffff", 16), NumberParser.guess("-0xffffffffffffffffff"));
+        assertEquals(1e50, NumberParser.guess("1e50"));
+        assertEquals(1e-50, NumberParser.guess("1e-50"));
+        assertEquals(new BigDecimal("1e400"), NumberParser.guess("1e400"));
+        assertEquals(new BigDecimal("-1e-400"), NumberParser.guess("-1e-400"));
+        assertEquals(0f, NumberParser.guess("0e400"));
+    }
+
+    /**
+     * Purpose: Parsing an integer checks it fits in the type
+     * Input: integers at and past the ends of the range of int, byte and long
+     * Expected: the value, or a NumberFormatException when it does not fit
+     */
+    @Test
+    public void testParseLong() {
+        assertEquals(Integer.MIN_VALUE, NumberParser.parseLong("-0x80000000", int.class));
+        assertEquals(Long.MAX_VALUE, NumberParser.parseLong("9_223_372_036_854_775_807", Long.class));
+        assertEquals(-128, NumberParser.parseLong("-128", byte.class));
+        for (String value : new String[] {"0x80000000", "128", "9223372036854775808", "1.0", ""}) {
+            try {
+                NumberParser.parseLong(value, value.equals("128") ? byte.class : int.class);
+                fail(value);
+            } catch (NumberFormatException expected) {
+            }
+        }
+    }
+
+    /**
+     * Purpose: Short decimals are parsed without making a String, rounded the same as the JDK parses them
+     * Input: random decimals of up to 17 digits with the point anywhere, signed and unsigned, and some edge forms
+     * Expected: the same double as Double.parseDouble and the same float as Float.parseFloat
+     */
+    @Test
+    public void testParseDecimal() {
+        Random random = new Random(1);
+        List<String> values = new ArrayList<>(Arrays.asList("0", "-0.0", "+.5", "1.", "0.1", "0.3", "9999999", "0.0000001",
+            "123456789012345", "1.23456789012345", "16777217", "9007199254740993"));
+        for (int i = 0; i < 100000; i++) {
+            StringBuilder value = new StringBuilder(random.nextBoolean() ? "-" : "");
+            int digits = 1 + random.nextInt(17), point = random.nextInt(digits + 1);
+            for (int d = 0; d < digits; d++) {
+                if (d == point) { value.append('.'); }
+                value.append((char) ('0' + random.nextInt(10)));
+            }
+            values.add(value.toString());
+        }
+        for (String value : values) {
+            assertEquals(value, Double.doubleToRawLongBits(Double.parseDouble(value)),
+                Double.doubleToRawLongBits(NumberParser.parseDouble(new StringBuilder(value))));
+            assertEquals(value, Float.floatToRawIntBits(Float.parseFloat(value)),
+                Float.floatToRawIntBits(NumberParser.parseFloat(new StringBuilder(value))));
+        }
+    }
+}
@@ -16,10 +16,25 @@
 
 package com.yukms.yamlxbeans;
 
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.yukms.yamlxbeans.collection.IntList;
+import com.yukms.yamlxbeans.collection.LongList;
+import com.yukms.yamlxbeans.collection.PrimitiveCollectionFactory;
 import junit.framework.TestCase;
 
 /** @author <a href="mailto:misc@n4te.com">Nathan Sweet</a> */
@@ -60,6 +75,87 @@ public class YamlReaderTest extends TestCase {
         assertEquals("sw\ufec9\ufec9t!", map.values().iterator().next());
     }
 
+    public void testUtf8Bytes() throws Exception {
+        String yaml = "moo\u00e9\ufec9cow: sw\ud83d\ude00t!\nlist: [a, \u4e2d]";
+        byte[] bytes = yaml.getBytes("UTF-8");
+        Map expected = (Map) new YamlxReader(yaml).read();
+        assertEquals(expected, new YamlxReader(ByteBuffer.wrap(bytes)).read());
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        assertEquals(expected, new YamlxReader(direct).read());
+        assertEquals(0, direct.position());
+
+        Path file = Files.createTempFile("yamlx", ".yml");
+        try {
+            Files.write(file, bytes);
+            assertEquals(expected, new YamlxReader(file).read());
+        } finally {
+            Files.delete(file);
+        }
+
+        Map map = (Map) new YamlxReader(ByteBuffer.wrap(new byte[] { 'a', ':', ' ', (byte) 0xC0, (byte) 0xAF, 'b' })).read();
+        assertEquals("\ufffd\ufffdb", map.get("a"));
+    }
+
+    public void testScalarViews() throws Exception {
+        StringBuilder yaml = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            yaml.append("key").append(i).append(": [plain").append(i).append(", 'single").append(i).append("', \"double")
+                .append(i).append("\", 'it''s', \"esc\\t\", folded\n  plain, &a").append(i).append(" anchored]\n");
+            yaml.append("num").append(i).append(": ").append(i).append("\n");
+        }
+        Object expected = new YamlxReader(yaml.toString()).read();
+
+        YamlxConfig config = new YamlxConfig();
+        config.readConfig.setScalarViews(true);
+        assertEquals(expected, new YamlxReader(yaml.toString(), config).read());
+        config.readConfig.setBufferSize(16);
+        config.readConfig.setReadChunkSize(3);
+        assertEquals(expected, new YamlxReader(yaml.toString(), config).read());
+    }
+
+    public void testScalarViewsBean() throws Exception {
+        StringBuilder yaml = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            yaml.append("- stringValue: s").append(i).append("\n  intValue: ").append(i).append("\n  longValue: 0x")
+                .append(Integer.toHexString(i)).append("\n  doubleValue: ").append(i).append(".5\n  floatValue: '")
+                .append(i).append("'\n  shortValue: ").append(i).append("\n  byteValue: ").append(i)
+                .append("\n  booleanValue: TRUE\n  charValue: c").append("\n  arrayInts: [").append(i).append(", -")
+                .append(i).append("]\n  child1: {intValue: ").append(i).append(", testEnum: b}\n");
+        }
+        YamlxConfig config = new YamlxConfig();
+        config.readConfig.setScalarViews(true);
+        config.readConfig.setBufferSize(16);
+        config.readConfig.setReadChunkSize(3);
+        config.readConfig.setGuessNumberTypes(true);
+        config.setAllowDuplicates(false);
+        List<Test> tests = new YamlxReader(yaml.toString(), config).read(List.class, Test.class);
+        assertEquals(50, tests.size());
+        for (int i = 0; i < 50; i++) {
+            Test test = tests.get(i);
+            assertEquals("s" + i, test.stringValue);
+            assertEquals(i, test.intValue);
+            assertEquals(i, test.longValue);
+            assertEquals(i + 0.5, test.doubleValue, 0);
+            assertEquals(i, test.floatValue, 0);
+            assertEquals(i, test.shortValue);
+            assertEquals(i, test.byteValue);
+            assertTrue(test.booleanValue);
+            assertEquals('c', test.charValue);
+            assertEquals(i, test.arrayInts[0]);
+            assertEquals(-i, test.arrayInts[1]);
+            assertEquals(i, test.child1.intValue);
+            assertEquals(TestEnum.b, test.child1.testEnum);
+        }
+
+        try {
+            new YamlxReader("intValue: 1\nintValue: 2", config).read(Test.class);
+            fail("Expected a duplicate key");
+        } catch (YamlxException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("Duplicate key found 'intValue'"));
+        }
+    }
+
     public void testSequence() throws Exception {
         Test test = read("listValues: [moo, 2]");
         assertEquals(2, test.listValues.size());
@@ -126,6 +222,12 @@ public class YamlReaderTest extends TestCase {
         System.out.println(new YamlxReader(value).read());
     }
 
+    public void testUnmatchedFlowEnd() throws Exception {
+        assertEquals("x", new YamlxReader("'x'}\nb: c").read());
+        assertEquals("x", new YamlxReader("'x'] \nb: c").read());
+        assertEquals("v", new YamlxReader("\"v\"}\nk: 1").read());
+    }
+
     static public class Node {
         public Node left, right, parent;
         public String value;
@@ -341,6 +443,19 @@ public class YamlReaderTest extends TestCase {
         }
     }
 
+    public void testIgnoreUnknownNestedProperties() throws Exception {
+        String input = "a: 1\nb:\n  x: [1, {y: 'z'}]\n  w: |\n    text\n  v:\n  - 1\n  - k: v\nc: 3\ne: {f: [g, h], i: \"j\"}\n" +
+            "l:\n- m\n- [n]\nk: &k {o: p}\nd: 5\n";
+        YamlxConfig config = new YamlxConfig();
+        config.readConfig.setIgnoreUnknownProperties(true);
+        YamlxReader reader = new YamlxReader(input, config);
+        ACD pojo = reader.read(ACD.class);
+        assertEquals(1, pojo.a);
+        assertEquals(3, pojo.c);
+        assertEquals(5, pojo.d);
+        assertNull(reader.read());
+    }
+
     public void testDuplicateKeysAreNotAllowedIfAllowDuplicateIsSetSo() {
         String inputWithDuplicates = "a: 1\na: 2\nc: 3";
         YamlxConfig yamlConfig = new YamlxConfig();
@@ -383,6 +498,22 @@ public class YamlReaderTest extends TestCase {
         }
     }
 
+    public void testDuplicatePropertiesAreNotAllowed() throws YamlxException {
+        YamlxConfig yamlConfig = new YamlxConfig();
+        yamlConfig.setAllowDuplicates(false);
+        yamlConfig.readConfig.setIgnoreUnknownProperties(true);
+        for (String input : new String[] {"intValue: 1\nstringValue: a\nintValue: 2", "unknown: 1\nintValue: 2\nunknown: 3"}) {
+            try {
+                new YamlxReader(input, yamlConfig).read(Test.class);
+                fail("Duplicates should not have been allowed.");
+            } catch (YamlxException e) {
+            }
+        }
+        Test test = new YamlxReader("intValue: 1\nstringValue: a\nunknown: 3", yamlConfig).read(Test.class);
+        assertEquals(1, test.intValue);
+        assertEquals("a", test.stringValue);
+    }
+
     private static class TypeTagIgnoringReader extends YamlxReader {
 
         public TypeTagIgnoringReader(String yaml) {
@@ -397,6 +528,292 @@ public class YamlReaderTest extends TestCase {
 
     }
 
+    public void testDocumentAnchors() throws YamlxException {
+        String input = "--- [&a x, &b y]\n--- *a\n--- *b\n";
+        YamlxReader reader = new YamlxReader(input);
+        reader.read();
+        assertEquals(2, reader.getAnchorCount());
+        try {
+            reader.read();
+            fail("An alias cannot refer to an anchor from an earlier document.");
+        } catch (YamlxException e) {
+        }
+
+        YamlxConfig config = new YamlxConfig();
+        config.readConfig.setDocumentAnchors(false);
+        reader = new YamlxReader(input, config);
+        reader.read();
+        assertEquals("x", reader.read());
+        assertEquals("y", reader.read());
+
+        config.readConfig.setMaxAnchors(1);
+        reader = new YamlxReader(input, config);
+        reader.read();
+        assertEquals(1, reader.getAnchorCount());
+        assertEquals(1, reader.getPeakAnchorCount());
+        try {
+            reader.read();
+            fail("The oldest anchor was supposed to be forgotten.");
+        } catch (YamlxException e) {
+        }
+        reader = new YamlxReader("--- [&b y]\n--- *b\n", config);
+        reader.read();
+        assertEquals("y", reader.read());
+    }
+
+    public void testReadSequence() throws YamlxException {
+        YamlxReader reader = new YamlxReader("- {species: Walleye, weight: 3}\n- &bass {species: Bass}\n- *bass\n" +
+            "--- [a, b]\n--- [c]\n--- \n--- !!map {}\n");
+        Iterator<Fish> fish = reader.readSequence(Fish.class);
+        assertTrue(fish.hasNext());
+        Fish walleye = fish.next();
+        assertEquals("Walleye", walleye.species);
+        assertEquals(3, walleye.weight);
+        Fish bass = fish.next();
+        assertSame(bass, fish.next());
+        assertFalse(fish.hasNext());
+        assertFalse(fish.hasNext());
+
+        Iterator<Object> letters = reader.readSequence(null);
+        assertEquals("a", letters.next());
+        assertEquals(Arrays.asList("c"), reader.read());
+        assertFalse("Reading the next document ends the iterator.", letters.hasNext());
+        assertFalse(reader.readSequence(String.class).hasNext());
+        try {
+            reader.readSequence(String.class);
+            fail("The document is not a sequence.");
+        } catch (YamlxException expected) {
+        }
+        assertNull(reader.readSequence(String.class));
+
+        Iterator<Fish> broken = new YamlxReader("- {species: Pike}\n- {unknown: 1}\n").readSequence(Fish.class);
+        broken.next();
+        try {
+            broken.next();
+            fail("An unknown property cannot be read.");
+        } catch (UncheckedIOException expected) {
+            assertTrue(expected.getCause() instanceof YamlxException);
+        }
+    }
+
+    public void testPropertyElementConsumer() throws YamlxException {
+        final List<Fish> fish = new ArrayList<>();
+        YamlxConfig config = new YamlxConfig();
+        config.setPropertyElementConsumer(Lake.class, "fish", new Consumer<Fish>() {
+            @Override
+            public void accept(Fish each) {
+                fish.add(each);
+            }
+        });
+        Lake lake = new YamlxReader("fish: [{species: Walleye}, &bass {species: Bass}]\nname: Erie\n", config).read(Lake.class);
+        assertEquals("Erie", lake.name);
+        assertNull(lake.fish);
+        assertEquals(2, fish.size());
+        assertEquals("Bass", fish.get(1).species);
+
+        fish.clear();
+        new YamlxReader("name: Huron\nfish: &fish [{species: Pike}]\n", config).read(Lake.class);
+        assertEquals("Pike", fish.get(0).species);
+
+        config.setPropertyElementConsumer(Lake.class, "fish", null);
+        lake = new YamlxReader("fish: [{species: Walleye}]\n", config).read(Lake.class);
+        assertEquals("Walleye", lake.fish.get(0).species);
+        try {
+            config.setPropertyElementConsumer(Lake.class, "name", null);
+            fail("The property is not a Collection.");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testPipelinedRead() throws YamlxException {
+        String yaml = "name: Erie\nfish: [{species: Walleye}, {species: Bass}]\n--- [{weight: 3}]\n" +
+            "--- {name: Huron, unknown: 1}\n";
+        YamlxConfig config = new YamlxConfig();
+        config.readConfig.setPipelineCapacity(2);
+        YamlxReader reader = new YamlxReader(yaml, config);
+        Lake lake = reader.read(Lake.class);
+        assertEquals("Erie", lake.name);
+        assertEquals("Bass", lake.fish.get(1).species);
+        Iterator<Fish> fish = reader.readSequence(Fish.class);
+        assertEquals(3, fish.next().weight);
+        assertFalse(fish.hasNext());
+        try {
+            reader.read(Lake.class);
+            fail("The unknown property is found after the events after it are parsed.");
+        } catch (YamlxException ex) {
+            YamlxReader expected = new YamlxReader(yaml);
+            expected.read();
+            expected.read();
+            try {
+                expected.read(Lake.class);
+                fail();
+            } catch (YamlxException expectedEx) {
+                assertEquals(expectedEx.getMessage(), ex.getMessage());
+            }
+        }
+    }
+
+    public void testReadAll() throws Exception {
+        StringBuilder yaml = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            yaml.append("--- {species: fish").append(i).append(", weight: ").append(i).append("}\n");
+        }
+        yaml.append("---\n");
+        CountingExecutor executor = new CountingExecutor();
+        try {
+            List<Fish> fish = new YamlxReader(yaml.toString()).readAll(Fish.class, executor);
+            assertTrue(executor.tasks.get() > 1);
+            assertEquals(20001, fish.size());
+            assertEquals("fish12345", fish.get(12345).species);
+            assertEquals(19999, fish.get(19999).weight);
+            assertNull(fish.get(20000));
+
+            YamlxReader bytes = new YamlxReader(ByteBuffer.wrap(yaml.toString().getBytes("UTF-8")));
+            assertEquals(fish.size(), bytes.readAll(Fish.class, executor).size());
+            assertNull(bytes.read());
+            YamlxConfig pipelined = new YamlxConfig();
+            pipelined.readConfig.setPipelineCapacity(64);
+            pipelined.readConfig.setPipelineExecutor(new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    fail("The parser is started though the documents are read in runs.");
+                }
+            });
+            assertEquals(fish.size(), new YamlxReader(yaml.toString(), pipelined).readAll(Fish.class, executor).size());
+
+            yaml.append("unknown: 1\n");
+            try {
+                new YamlxReader(yaml.toString()).readAll(CountedFish.class, executor);
+                fail("The last document has an unknown property.");
+            } catch (YamlxException ex) {
+                assertTrue(ex.getMessage(), ex.getMessage().startsWith("Line 20002, column"));
+            }
+            // Only the documents from the failed run on are read again.
+            assertTrue(String.valueOf(CountedFish.created), CountedFish.created.get() < 25000);
+            int middle = yaml.indexOf("--- {species: fish10000,");
+            try {
+                new YamlxReader(yaml.substring(0, middle) + "--- {unknown: 1}\n" + yaml.substring(middle)).readAll(Fish.class,
+                    executor);
+                fail("A document in the middle has an unknown property.");
+            } catch (YamlxException ex) {
+                assertTrue(ex.getMessage(), ex.getMessage().startsWith("Line 10000, column"));
+            }
+
+            int tasks = executor.tasks.get();
+            final List<Fish> consumed = new ArrayList<>();
+            YamlxConfig config = new YamlxConfig();
+            config.setPropertyElementConsumer(Pond.class, "fish", new Consumer<Fish>() {
+                @Override
+                public void accept(Fish each) {
+                    consumed.add(each);
+                }
+            });
+            StringBuilder ponds = new StringBuilder();
+            for (int i = 0; i < 20000; i++) {
+                ponds.append("--- {fish: [{species: fish").append(i).append("}]}\n");
+            }
+            assertEquals(20000, new YamlxReader(ponds.toString(), config).readAll(Pond.class, executor).size());
+            assertEquals(20000, consumed.size());
+            assertEquals(tasks, executor.tasks.get());
+        } finally {
+            executor.shutdown();
+        }
+        YamlxReader reader = new YamlxReader("- a\n--- b\n");
+        assertEquals(Arrays.asList("a"), reader.read());
+        assertEquals(Arrays.asList("b"), reader.readAll(null, null));
+    }
+
+    public void testReadSlices() throws Exception {
+        StringBuilder sequence = new StringBuilder(), mapping = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sequence.append("- species: fish").append(i).append("\n  weight: ").append(i).append('\n');
+            mapping.append("fish").append(i).append(":\n  species: s").append(i).append('\n');
+        }
+        CountingExecutor executor = new CountingExecutor();
+        try {
+            List<Fish> fish = new YamlxReader(sequence.toString()).read(List.class, Fish.class, executor);
+            assertTrue(executor.tasks.get() > 1);
+            assertEquals(20000, fish.size());
+            assertEquals("fish12345", fish.get(12345).species);
+            assertEquals(19999, fish.get(19999).weight);
+            YamlxReader reader = new YamlxReader(ByteBuffer.wrap(mapping.toString().getBytes("UTF-8")));
+            Map<String, Fish> map = reader.read(Map.class, Fish.class, executor);
+            assertEquals(20000, map.size());
+            assertEquals("s19999", map.get("fish19999").species);
+            assertNull(reader.read());
+
+            String alias = "- &first {species: first}\n" + sequence + "- *first\n";
+            fish = new YamlxReader(alias).read(List.class, Fish.class, executor);
+            assertEquals(20002, fish.size());
+            assertSame(fish.get(0), fish.get(20001));
+
+            Fish[] array = new YamlxReader(sequence.toString()).read(Fish[].class, null, executor);
+            assertEquals(20000, array.length);
+            assertEquals("fish19999", array[19999].species);
+
+            int tasks = executor.tasks.get();
+            try {
+                new YamlxReader(mapping.toString()).read(Fish.class, null, executor);
+                fail("The keys are not properties of the bean.");
+            } catch (YamlxException expected) {
+            }
+            final List<Fish> consumed = new ArrayList<>();
+            YamlxConfig consumerConfig = new YamlxConfig();
+            consumerConfig.setPropertyElementConsumer(Pond.class, "fish", new Consumer<Fish>() {
+                @Override
+                public void accept(Fish each) {
+                    consumed.add(each);
+                }
+            });
+            List<Pond> ponds = new YamlxReader(ponds(20000), consumerConfig).read(List.class, Pond.class, executor);
+            assertEquals(20000, ponds.size());
+            assertEquals(20000, consumed.size());
+            assertEquals(tasks, executor.tasks.get());
+
+            YamlxConfig config = new YamlxConfig();
+            config.setAllowDuplicates(false);
+            String duplicate = mapping + "fish0: {}\n";
+            try {
+                new YamlxReader(duplicate, config).read(Map.class, Fish.class, executor);
+                fail("The key is in two slices.");
+            } catch (YamlxException ex) {
+                try {
+                    new YamlxReader(duplicate, config).read(Map.class, Fish.class);
+                    fail();
+                } catch (YamlxException expectedEx) {
+                    assertEquals(expectedEx.getMessage(), ex.getMessage());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testTagClassesFoundOnce() throws YamlxException {
+        final List<String> tags = new ArrayList<>();
+        YamlxReader reader = new YamlxReader("- !com.yukms.yamlxbeans.YamlReaderTest$Fish {species: Walleye}\n" +
+            "- !com.yukms.yamlxbeans.YamlReaderTest$Fish {species: Bass}\n- !unknown {}\n- !unknown {}\n") {
+            @Override
+            protected Class<?> findTagClass(String tag, ClassLoader classLoader) throws ClassNotFoundException {
+                tags.add(tag);
+                return tag.equals("unknown") ? null : super.findTagClass(tag, classLoader);
+            }
+        };
+        List list = reader.read(List.class);
+        assertEquals("Bass", ((Fish) list.get(1)).species);
+        assertTrue(list.get(3) instanceof Map);
+        assertEquals(2, tags.size());
+
+        YamlxConfig config = new YamlxConfig();
+        for (int i = 0; i < 2; i++) {
+            try {
+                new YamlxReader("!com.example.not.on.classpath.Fish {}", config).read();
+                fail("A type tag with an unknown class fails to parse, even if the tag was read before.");
+            } catch (YamlxException expected) {
+            }
+        }
+    }
+
     public void testIgnoreTypeTagsTopLevel() throws YamlxException {
         // We are parsing this document that was output by another program using YamlBeans, that includes
         // a type tag for a class that we don't have on our classpath.
@@ -421,11 +838,139 @@ public class YamlReaderTest extends TestCase {
         public List<Fish> fish;
     }
 
+    /** Runs tasks with a pool of threads and counts them. */
+    /** Returns a sequence of ponds with one fish each. */
+    private static String ponds(int count) {
+        StringBuilder ponds = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            ponds.append("- fish: [{species: fish").append(i).append("}]\n");
+        }
+        return ponds.toString();
+    }
+
+    static class CountingExecutor implements Executor {
+        private final ExecutorService pool = Executors.newFixedThreadPool(4);
+        final AtomicInteger tasks = new AtomicInteger();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.incrementAndGet();
+            pool.execute(command);
+        }
+
+        /** Waits for the tasks still running, such as the slices read after another slice failed. */
+        void shutdown() throws InterruptedException {
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
     static class Fish {
         public String species;
         public int weight;
     }
 
+    static class CountedFish extends Fish {
+        static final AtomicInteger created = new AtomicInteger();
+
+        CountedFish() {
+            created.incrementAndGet();
+        }
+    }
+
+    static class Pond {
+        private String name;
+        public List<Fish> fish;
+    }
+
+    public void testPrepare() throws YamlxException {
+        String input = "name: Walden\nfish:\n- species: Bass\n  weight: 3\n";
+        YamlxConfig config = new YamlxConfig();
+        config.prepare(Pond.class, Fish.class);
+        try {
+            new YamlxReader(input, config).read(Pond.class);
+            fail("Private fields were not supposed to be used.");
+        } catch (YamlxException e) {
+        }
+
+        // Changing the configuration replaces the prepared lookups.
+        config.setPrivateFields(true);
+        Pond pond = new YamlxReader(input, config).read(Pond.class);
+        assertEquals("Walden", pond.name);
+        assertEquals("Bass", pond.fish.get(0).species);
+        assertEquals(3, pond.fish.get(0).weight);
+    }
+
+    static class Sequences {
+        public int[] ints;
+        public long[] longs;
+        public double[] doubles;
+        public List<Integer> counts;
+        public List<Long> ids;
+        public List<String> names;
+    }
+
+    static class Numbers {
+        public int i;
+        public long l;
+        public double d;
+    }
+
+    public void testPrimitiveProperties() throws YamlxException {
+        Numbers numbers = new YamlxReader("i: 0x1F\nl: -9223372036854775808\nd: -2.5e3\n").read(Numbers.class);
+        assertEquals(31, numbers.i);
+        assertEquals(Long.MIN_VALUE, numbers.l);
+        assertEquals(-2500.0, numbers.d);
+
+        numbers = new YamlxReader("i: -010\nl: '#ff'\nd: ''\n").read(Numbers.class);
+        assertEquals(-8, numbers.i);
+        assertEquals(255, numbers.l);
+        assertEquals(0.0, numbers.d);
+
+        try {
+            new YamlxReader("i: 2147483648").read(Numbers.class);
+            fail("The value was not supposed to fit in an int.");
+        } catch (YamlxException e) {
+        }
+    }
+
+    public void testPrimitiveArrays() throws YamlxException {
+        StringBuilder yaml = new StringBuilder("ints: [");
+        for (int i = 0; i < 40; i++) {
+            yaml.append(i).append(", ");
+        }
+        yaml.append("!!int 40]\nlongs: [0x10, -1]\ndoubles: [1.5, '']\n");
+        Sequences sequences = new YamlxReader(yaml.toString()).read(Sequences.class);
+        assertEquals(41, sequences.ints.length);
+        assertEquals(39, sequences.ints[39]);
+        assertEquals(40, sequences.ints[40]);
+        assertEquals(16, sequences.longs[0]);
+        assertEquals(-1, sequences.longs[1]);
+        assertEquals(2, sequences.doubles.length);
+        assertEquals(1.5, sequences.doubles[0]);
+        assertEquals(0.0, sequences.doubles[1]);
+
+        try {
+            new YamlxReader("ints: [1, ]").read(Sequences.class);
+            fail("A null element was not supposed to be read into an int array.");
+        } catch (YamlxException e) {
+        }
+    }
+
+    public void testPrimitiveCollectionFactory() throws YamlxException {
+        YamlxConfig config = new YamlxConfig();
+        config.readConfig.setCollectionFactory(new PrimitiveCollectionFactory());
+        Sequences sequences = new YamlxReader("counts: [3, 0x10, !!int 5]\nids: [-1]\nnames: [a]\n", config).read(Sequences.class);
+        assertTrue(sequences.counts instanceof IntList);
+        assertEquals(3, ((IntList) sequences.counts).getInt(0));
+        assertEquals(Integer.valueOf(16), sequences.counts.get(1));
+        assertEquals(Integer.valueOf(5), sequences.counts.get(2));
+        assertTrue(sequences.ids instanceof LongList);
+        assertEquals(-1, ((LongList) sequences.ids).getLong(0));
+        assertEquals(ArrayList.class, sequences.names.getClass());
+        assertEquals("a", sequences.names.get(0));
+    }
+
     public void testIgnoreTypeTagsEmbedded() throws YamlxException {
         // We are parsing this document that was output by another program using YamlBeans, that includes
         // type tags for multiple classes that we don't have on our classpath. One of those type tags is
@@ -307,6 +307,32 @@ public class YamlWriterTest extends TestCase {
         assertEquals(object.file, roundTrip.file);
     }
 
+    public void testScalarSerializerAfterWrite() throws Exception {
+        YamlxConfig config = new YamlxConfig();
+        PhoneNumber number = new PhoneNumber("206-555-1234");
+        StringWriter buffer = new StringWriter();
+        YamlxWriter writer = new YamlxWriter(buffer, config);
+        writer.write(number);
+        writer.close();
+        assertTrue(buffer.toString().contains("number: 206-555-1234"));
+
+        config.setScalarSerializer(PhoneNumber.class, new ScalarSerializer<PhoneNumber>() {
+            public PhoneNumber read(String value) throws YamlxException {
+                return new PhoneNumber(value.substring(4));
+            }
+
+            public String write(PhoneNumber number) throws YamlxException {
+                return "tel:" + number.number;
+            }
+        });
+        assertEquals("206-555-1234", roundTrip(number, PhoneNumber.class, config).number);
+        buffer = new StringWriter();
+        writer = new YamlxWriter(buffer, config);
+        writer.write(number);
+        writer.close();
+        assertTrue(buffer.toString().contains("tel:206-555-1234"));
+    }
+
     private Object roundTrip(Object object) throws Exception {
         return roundTrip(object, null, new YamlxConfig());
     }
@@ -0,0 +1,85 @@
+package com.yukms.yamlxbeans.parser;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import com.yukms.yamlxbeans.Versionx;
+import com.yukms.yamlxbeans.tokenizer.TokenizerConfigx;
+
+public class ParserTest {
+
+    /**
+     * Purpose: A non-blocking parser gives the same events and errors as one reading from a Reader
+     * Input: documents with a parser error just before a tokenizer error, a tokenizer error after a few events, and an unmatched
+     * flow end, fed one byte at a time and all at once
+     * Expected: the same events, then an error of the same type with the same message
+     */
+    @Test
+    public void testFeedInputErrors() {
+        String[] yamls = {", %", "]&", " }@", ":\t*", "- a\n- b\n:\t*", "a: b\n\tc: d", "'x'}\nb: c\n"};
+        for (String yaml : yamls) {
+            for (int chunk : new int[] {1, 1000}) {
+                assertEquals(yaml, read(yaml), feed(yaml, chunk));
+            }
+        }
+    }
+
+    /**
+     * Purpose: A non-blocking parser fetches tokens ahead of the events, so a parser error can be reported at a later position
+     * Input: a block mapping followed by a sequence entry, where the error is found at the "-"
+     * Expected: the same message, but the column is after the scalar following the "-" instead of after the "-"
+     */
+    @Test
+    public void testFeedInputErrorPosition() {
+        String yaml = "a: b\n- c";
+        String expected = read(yaml);
+        assertTrue(expected, expected.endsWith("Line 1, column 1: Expected a 'block end' but found: block entry"));
+        assertEquals(expected.replace("column 1", "column 3"), feed(yaml, 1));
+    }
+
+    /** Returns the events read from a Reader, then the error if there is one. */
+    private static String read(String yaml) {
+        StringBuilder events = new StringBuilder();
+        Parser parser = new Parser(new StringReader(yaml));
+        try {
+            for (Event event = parser.getNextEvent(); event != null; event = parser.getNextEvent()) {
+                events.append(event).append('\n');
+            }
+        } catch (RuntimeException ex) {
+            events.append(ex.getClass().getSimpleName()).append(": ").append(ex.getMessage());
+        }
+        return events.toString();
+    }
+
+    /** Returns the events of a non-blocking parser fed the given number of bytes at a time, then the error if there is one. */
+    private static String feed(String yaml, int chunk) {
+        StringBuilder events = new StringBuilder();
+        Parser parser = new Parser(new Versionx(1, 1), new TokenizerConfigx());
+        byte[] bytes = yaml.getBytes(StandardCharsets.UTF_8);
+        int fed = 0;
+        try {
+            while (true) {
+                Event event = parser.getNextEvent();
+                if (event == Event.NEED_MORE_INPUT) {
+                    if (fed < bytes.length) {
+                        int length = Math.min(chunk, bytes.length - fed);
+                        parser.feedInput(bytes, fed, length);
+                        fed += length;
+                    } else {
+                        parser.endOfInput();
+                    }
+                    continue;
+                }
+                if (event == null) { break; }
+                events.append(event).append('\n');
+            }
+        } catch (RuntimeException ex) {
+            events.append(ex.getClass().getSimpleName()).append(": ").append(ex.getMessage());
+        }
+        return events.toString();
+    }
+}
@@ -0,0 +1,137 @@
+package com.yukms.yamlxbeans.parser;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+import com.yukms.yamlxbeans.Versionx;
+import com.yukms.yamlxbeans.tokenizer.TokenizerConfigx;
+
+public class PipelinedCursorTest {
+
+    private static final String YAML = "%YAML 1.1\n--- !!map\nkey: &a value\n'quoted': [1, \"two\", *a]\ntagged: !foo {x: }\n" +
+        "block: |\n  text\n...\n--- [a, {b: c}, d]\n";
+
+    /**
+     * Purpose: The pipelined cursor describes the same events as a cursor that parses on the calling thread
+     * Input: two documents with tags, anchors, aliases, flow and block collections, and each scalar style, with capacities that
+     * fit one event, a few events, and every event, with positions counted as the input is read and only when needed
+     * Expected: for each event, every accessor of both cursors returns the same value
+     */
+    @Test
+    public void testSameAsCursor() {
+        for (int capacity : new int[] {1, 3, 1000}) {
+            for (boolean lazyPositions : new boolean[] {false, true}) {
+                YamlCursor expected = new YamlCursor(new StringReader(YAML));
+                TokenizerConfigx config = new TokenizerConfigx();
+                config.setLazyPositions(lazyPositions);
+                YamlCursor cursor = new PipelinedCursor(new StringReader(YAML), new Versionx(1, 1), config, capacity, null);
+                while (true) {
+                    EventType type = expected.next();
+                    assertEquals(type, cursor.next());
+                    if (type == null) { break; }
+                    assertEquals(expected.getAnchor(), cursor.getAnchor());
+                    assertEquals(expected.getTag(), cursor.getTag());
+                    assertEquals(expected.isImplicit(), cursor.isImplicit());
+                    assertEquals(expected.isQuotedImplicit(), cursor.isQuotedImplicit());
+                    assertEquals(expected.isFlowStyle(), cursor.isFlowStyle());
+                    assertEquals(expected.getScalarStyle(), cursor.getScalarStyle());
+                    assertEquals(expected.getText(), cursor.getText());
+                    assertEquals(expected.getTextLength(), cursor.getTextLength());
+                    assertEquals(expected.isExplicit(), cursor.isExplicit());
+                    assertEquals(expected.getVersion() + "", cursor.getVersion() + "");
+                    assertEquals(expected.getTags(), cursor.getTags());
+                    assertEquals(expected.getLineNumber(), cursor.getLineNumber());
+                    assertEquals(expected.getColumn(), cursor.getColumn());
+                }
+                assertNull(cursor.next());
+            }
+        }
+    }
+
+    /**
+     * Purpose: Skipping a collection reads past its events
+     * Input: a sequence of a nested collection and a scalar
+     * Expected: after skipping the nested collection, the cursor is on the scalar after it
+     */
+    @Test
+    public void testSkipValue() {
+        YamlCursor cursor = pipelined("- {a: [b, {c: d}], e: f}\n- g\n", 2);
+        while (cursor.next() != EventType.SEQUENCE_START) { }
+        cursor.next();
+        assertEquals(EventType.SCALAR, cursor.skipValue());
+        assertEquals("g", cursor.getText());
+    }
+
+    /**
+     * Purpose: An error found by the parser is thrown by the cursor when it reaches the error
+     * Input: a document whose third line cannot be tokenized, read with a pipeline that can hold all of its events
+     * Expected: the events before the error are read, then the same exception as a cursor on the calling thread throws, with the
+     * line and column of the error, and again on the next call
+     */
+    @Test
+    public void testError() {
+        String yaml = "a: b\nc: d\ne: \"\\q\"\n";
+        String message = null;
+        YamlCursor expected = new YamlCursor(new StringReader(yaml));
+        int events = 0;
+        try {
+            while (expected.next() != null) { events++; }
+            fail();
+        } catch (RuntimeException ex) {
+            message = ex.getMessage();
+        }
+        assertTrue(message, message.startsWith("Line 2, column"));
+        YamlCursor cursor = pipelined(yaml, 1000);
+        for (int i = 0; i < events; i++) {
+            cursor.next();
+        }
+        for (int i = 0; i < 2; i++) {
+            try {
+                cursor.next();
+                fail();
+            } catch (RuntimeException ex) {
+                assertEquals(message, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Purpose: The parser runs on the given executor once the cursor is first moved, and stops when the cursor is closed
+     * Input: an executor that starts a thread for each task, and a cursor closed before its stream is read, with a pipeline too
+     * small for the stream
+     * Expected: no task is run before the first event is read, then one task is run, and it ends after the cursor is closed
+     */
+    @Test
+    public void testExecutor() throws Exception {
+        final List<Thread> threads = new ArrayList<>();
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                Thread thread = new Thread(task);
+                threads.add(thread);
+                thread.start();
+            }
+        };
+        PipelinedCursor cursor = new PipelinedCursor(new StringReader(YAML), new Versionx(1, 1), new TokenizerConfigx(), 4,
+            executor);
+        assertEquals(0, threads.size());
+        assertEquals(EventType.STREAM_START, cursor.next());
+        assertEquals(1, threads.size());
+        cursor.close();
+        threads.get(0).join(5000);
+        assertFalse(threads.get(0).isAlive());
+    }
+
+    private static YamlCursor pipelined(String yaml, int capacity) {
+        return new PipelinedCursor(new StringReader(yaml), new Versionx(1, 1), new TokenizerConfigx(), capacity, null);
+    }
+}
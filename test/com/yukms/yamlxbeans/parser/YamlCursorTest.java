@@ -0,0 +1,121 @@
+package com.yukms.yamlxbeans.parser;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+import com.yukms.yamlxbeans.Versionx;
+import com.yukms.yamlxbeans.tokenizer.TokenizerConfigx;
+
+public class YamlCursorTest {
+
+    private static final String YAML = "%YAML 1.1\n--- !!map\nkey: &a value\n'quoted': [1, \"two\", *a]\ntagged: !foo {x: }\nblock: |\n  text\n...\n";
+
+    /**
+     * Purpose: The cursor describes the same events as the parser
+     * Input: a document with tags, anchors, aliases, flow and block collections, and each scalar style
+     * Expected: for each event, the cursor's accessors match the fields of the parser's event
+     */
+    @Test
+    public void testSameAsParser() {
+        Parser parser = new Parser(new StringReader(YAML));
+        YamlCursor cursor = new YamlCursor(new StringReader(YAML));
+        assertNull(cursor.getEventType());
+        while (true) {
+            Event event = parser.getNextEvent();
+            EventType type = cursor.next();
+            if (event == null) {
+                assertNull(type);
+                break;
+            }
+            assertEquals(event.type, type);
+            assertEquals(type, cursor.getEventType());
+            switch (type) {
+                case DOCUMENT_START:
+                    assertEquals(((DocumentStartEvent) event).isExplicit, cursor.isExplicit());
+                    assertEquals(((DocumentStartEvent) event).version + "", cursor.getVersion() + "");
+                    break;
+                case DOCUMENT_END:
+                    assertEquals(((DocumentEndEvent) event).isExplicit, cursor.isExplicit());
+                    break;
+                case ALIAS:
+                    assertEquals(((AliasEvent) event).anchor, cursor.getAnchor());
+                    break;
+                case SEQUENCE_START:
+                case MAPPING_START:
+                    CollectionStartEvent collection = (CollectionStartEvent) event;
+                    assertEquals(collection.anchor, cursor.getAnchor());
+                    assertEquals(collection.tag, cursor.getTag());
+                    assertEquals(collection.isImplicit, cursor.isImplicit());
+                    assertEquals(collection.isFlowStyle, cursor.isFlowStyle());
+                    break;
+                case SCALAR:
+                    ScalarEvent scalar = (ScalarEvent) event;
+                    assertEquals(scalar.anchor, cursor.getAnchor());
+                    assertEquals(scalar.tag, cursor.getTag());
+                    assertEquals(scalar.implicit[0], cursor.isImplicit());
+                    assertEquals(scalar.implicit[1], cursor.isQuotedImplicit());
+                    assertEquals(scalar.style, cursor.getScalarStyle());
+                    assertEquals(scalar.value, cursor.getText());
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Purpose: Skipping a node leaves the cursor at the event after it
+     * Input: a mapping whose values are block, flow and indentless collections, with nested scalars of each style, tags and anchors
+     * Expected: after skipping each value, the next event is the following key, or the end of the mapping
+     */
+    @Test
+    public void testSkipValue() {
+        String yaml = "a: {b: [c, 'd', \"e\\\"\"], f: !t g}\nh:\n  i: &j |\n    k\n  l: [m: n, o]\np:\n- q\n- - r\n  - {s: t}\n" +
+            "u: v\nw: [x, [y]]\n";
+        YamlCursor cursor = new YamlCursor(new StringReader(yaml));
+        while (cursor.next() != EventType.MAPPING_START) { }
+        cursor.next();
+        for (String key : new String[] {"a", "h", "p", "u", "w"}) {
+            assertEquals(EventType.SCALAR, cursor.getEventType());
+            assertEquals(key, cursor.getText());
+            cursor.next();
+            cursor.skipValue();
+        }
+        assertEquals(EventType.MAPPING_END, cursor.getEventType());
+        assertEquals(EventType.DOCUMENT_END, cursor.next());
+    }
+
+    /**
+     * Purpose: A scalar's characters can be read without creating a String
+     * Input: scalars read with scalar views, so the values are views of the tokenizer's buffer
+     * Expected: getTextCharacters() holds the value from getTextStart() for getTextLength() characters, and an empty scalar has
+     * no text
+     */
+    @Test
+    public void testTextCharacters() {
+        TokenizerConfigx config = new TokenizerConfigx();
+        config.setScalarViews(true);
+        YamlCursor cursor = new YamlCursor(new StringReader("- plain value\n- 'a much longer quoted value than the first'\n-\n"),
+            new Versionx(1, 1), config);
+        while (cursor.next() != EventType.SCALAR) { }
+        assertEquals("plain value", new String(cursor.getTextCharacters(), cursor.getTextStart(), cursor.getTextLength()));
+        assertEquals(EventType.SCALAR, cursor.next());
+        String expected = "a much longer quoted value than the first";
+        char[] text = cursor.getTextCharacters();
+        assertArrayEquals(expected.toCharArray(),
+            Arrays.copyOfRange(text, cursor.getTextStart(), cursor.getTextStart() + cursor.getTextLength()));
+        assertEquals(expected, cursor.getText());
+        assertEquals(EventType.SCALAR, cursor.next());
+        assertEquals(0, cursor.getTextLength());
+        assertNull(cursor.getText());
+        assertTrue(cursor.isImplicit());
+        assertFalse(cursor.isFlowStyle());
+        assertEquals(EventType.SEQUENCE_END, cursor.next());
+        assertNull(cursor.getText());
+    }
+}
@@ -4,10 +4,16 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import org.junit.Test;
 
 public class TokenizerTest {
@@ -193,4 +199,268 @@ public class TokenizerTest {
         tokenizer.getNextToken();
     }
 
-}
\ No newline at end of file
+    /**
+     * Purpose: Tokenizing through a small buffer gives the same tokens as the default buffer
+     * Input: a document longer than the buffer, with a scalar longer than the buffer, read in tiny chunks
+     * Expected:
+     * the tokens match the ones read with the default configuration
+     */
+    @Test
+    public void testSmallBuffer() {
+        StringBuilder yaml = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            yaml.append("key").append(i).append(": [value").append(i).append(", 'quoted\n  value']\n");
+        }
+        yaml.append("long: ");
+        for (int i = 0; i < 100; i++) {
+            yaml.append("abcdefghij");
+        }
+        yaml.append("\r\nlast: |\n  block\n  text\n");
+
+        TokenizerConfigx config = new TokenizerConfigx();
+        config.setBufferSize(16);
+        config.setReadChunkSize(3);
+        Iterator expected = new Tokenizer(yaml.toString()).iterator();
+        Iterator actual = new Tokenizer(new StringReader(yaml.toString()), config).iterator();
+        while (expected.hasNext() || actual.hasNext()) {
+            assertEquals(expected.next() + "", actual.next() + "");
+        }
+    }
+
+    /**
+     * Purpose: Possible simple keys are tracked at any flow level
+     * Input: flow mappings and sequences nested 40 levels deep in a block mapping
+     * Expected: a key token for each mapping key, and one value token for each key
+     */
+    @Test
+    public void testDeeplyNestedFlow() {
+        StringBuilder yaml = new StringBuilder("a: ");
+        for (int i = 0; i < 40; i++) { yaml.append(i % 3 == 0 ? "{k" + i + ": " : "[x, "); }
+        for (int i = 39; i >= 0; i--) { yaml.append(i % 3 == 0 ? "}" : "]"); }
+        yaml.append("\nb: c\n");
+        int keys = 0, values = 0;
+        for (Iterator iter = new Tokenizer(yaml.toString()).iterator(); iter.hasNext(); ) {
+            Token token = (Token) iter.next();
+            if (token.type == TokenType.KEY) { keys++; }
+            if (token.type == TokenType.VALUE) { values++; }
+        }
+        assertEquals(16, keys);
+        assertEquals(16, values);
+    }
+
+    /**
+     * Purpose: An unmatched end of a flow collection does not break tracking possible simple keys
+     * Input: documents where ']' or '}' with no start, some deeper than the arrays of simple keys, is followed by more flow
+     * collections and a block mapping, and where a value follows the start of a collection at the level of one that ended
+     * Expected: the same tokens when reading from a Reader and when fed one byte at a time, without an exception
+     */
+    @Test
+    public void testUnmatchedFlowEnd() throws Exception {
+        String[] yamls = {"'x'}\nb: c\n", "'x'] \nb: c\n", "\"v\"}\nk: 1\n", "]]]{x: y}", "]]\n[a, b]\nc: d\n",
+            "]]]]]]]]]]]]]]]]]]]][a: b]\nc: d\n", "[a},{: b\n"};
+        for (String yaml : yamls) {
+            List<String> expected = new ArrayList<>();
+            for (Iterator iter = new Tokenizer(yaml).iterator(); iter.hasNext(); ) { expected.add(iter.next() + ""); }
+            byte[] bytes = yaml.getBytes("UTF-8");
+            Tokenizer tokenizer = new Tokenizer(new TokenizerConfigx());
+            List<String> tokens = new ArrayList<>();
+            int fed = 0;
+            while (true) {
+                if (!tokenizer.fetchTokens()) {
+                    if (fed < bytes.length) { tokenizer.feedInput(bytes, fed++, 1); } else { tokenizer.endOfInput(); }
+                    continue;
+                }
+                Token token = tokenizer.getNextToken();
+                tokens.add(token + "");
+                if (token.type == TokenType.STREAM_END) { break; }
+            }
+            assertEquals(yaml, expected, tokens);
+        }
+    }
+
+    /**
+     * Purpose: The possible simple key of a flow collection that ended is not used for a value read from a Reader
+     * Input: a flow sequence ended by '}' and a flow sequence in a mapping ended by '}', each followed by a new flow mapping at
+     * the same level whose first token is a value
+     * Expected: no key token for the scalar of the ended collection, and no exception
+     */
+    @Test
+    public void testEndedFlowKey() {
+        assertEquals("stream start, flow sequence start, scalar, flow mapping end, flow entry, flow mapping start, value, scalar, "
+            + "stream end", tokenTypes("[a},{: b\n"));
+        assertEquals("stream start, flow mapping start, key, scalar, value, flow sequence start, scalar, flow mapping end, "
+            + "flow entry, flow mapping start, value, scalar, flow mapping end, stream end", tokenTypes("{a: [b},{: c}\n"));
+    }
+
+    private static String tokenTypes(String yaml) {
+        StringBuilder types = new StringBuilder();
+        for (Iterator iter = new Tokenizer(yaml).iterator(); iter.hasNext(); ) {
+            if (types.length() > 0) { types.append(", "); }
+            types.append(((Token) iter.next()).type);
+        }
+        return types.toString();
+    }
+
+    /**
+     * Purpose: Lazily computed positions are the same as the positions tracked for every character
+     * Input: a document with each kind of line break, read through a small buffer so consumed lines are dropped
+     * Expected: the line number and column after each token are the same with and without lazy positions
+     */
+    @Test
+    public void testLazyPositions() {
+        StringBuilder yaml = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            yaml.append("key").append(i).append(": 'multi\r\n  line'\rlist:\u0085- \"a\n\n  b\"\n- plain\u2028text\n  more\n");
+        }
+        TokenizerConfigx config = new TokenizerConfigx();
+        config.setBufferSize(16);
+        config.setReadChunkSize(3);
+        config.setLazyPositions(true);
+        Tokenizer lazy = new Tokenizer(new StringReader(yaml.toString()), config);
+        Tokenizer tokenizer = new Tokenizer(yaml.toString());
+        while (true) {
+            Token token = tokenizer.getNextToken();
+            assertEquals(token + "", lazy.getNextToken() + "");
+            assertEquals(tokenizer.getLineNumber(), lazy.getLineNumber());
+            assertEquals(tokenizer.getColumn(), lazy.getColumn());
+            if (token == null) { break; }
+        }
+        assertTrue(lazy.getLineNumber() > 200);
+    }
+
+    /**
+     * Purpose: Lazily computed positions stay right when a non-blocking tokenizer rolls back a token that ran out of input
+     * Input: a document with each kind of line break and a tab error after blank lines at its end, fed one byte at a time with
+     * and without lazy positions, asking for the position after every fetch
+     * Expected: the same line number and column after every fetch, and the same error message
+     */
+    @Test
+    public void testLazyPositionsFed() throws Exception {
+        StringBuilder yaml = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            yaml.append("key").append(i).append(": 'multi\r\n  line'\rlist:\u0085- \"a\n\n  b\"\n- plain\u2028text\n  more\n");
+        }
+        yaml.append("a:\n\n\n\tb\n");
+        byte[] bytes = yaml.toString().getBytes("UTF-8");
+        TokenizerConfigx config = new TokenizerConfigx();
+        config.setLazyPositions(true);
+        Tokenizer lazy = new Tokenizer(config);
+        Tokenizer tokenizer = new Tokenizer(new TokenizerConfigx());
+        String lazyError = null, error = null;
+        for (int fed = 0; error == null; ) {
+            boolean fetched = tokenizer.fetchTokens();
+            assertEquals(fetched, lazy.fetchTokens());
+            assertEquals(tokenizer.getLineNumber(), lazy.getLineNumber());
+            assertEquals(tokenizer.getColumn(), lazy.getColumn());
+            if (!fetched) {
+                if (fed < bytes.length) {
+                    tokenizer.feedInput(bytes, fed, 1);
+                    lazy.feedInput(bytes, fed++, 1);
+                } else {
+                    tokenizer.endOfInput();
+                    lazy.endOfInput();
+                }
+                continue;
+            }
+            try {
+                lazy.getNextToken();
+            } catch (Tokenizer.TokenizerException ex) {
+                lazyError = ex.getMessage();
+            }
+            try {
+                tokenizer.getNextToken();
+            } catch (Tokenizer.TokenizerException ex) {
+                error = ex.getMessage();
+            }
+        }
+        assertTrue(error, error.contains("Line 183"));
+        assertEquals(error, lazyError);
+    }
+
+    /**
+     * Purpose: A non-blocking tokenizer gives the same tokens as one reading the whole document
+     * Input: a UTF-8 document fed one byte at a time, so tokens and multi-byte characters are split between feeds
+     * Expected:
+     * fetchTokens() returns false until more input is fed
+     * the tokens match the ones read from a Reader
+     * feeding again before the previous input was tokenized throws IllegalStateException
+     */
+    @Test
+    public void testFeedInput() throws Exception {
+        String yaml = "key: [v\u00e9, 'quoted\n  \u4e2d', {x: \ud83d\ude00}]\r\nlist:\n- &a plain text\n- *a\n--- |\n  block\n";
+        byte[] bytes = yaml.getBytes("UTF-8");
+        TokenizerConfigx config = new TokenizerConfigx();
+        config.setScalarViews(true);
+        Tokenizer tokenizer = new Tokenizer(config);
+        Iterator expected = new Tokenizer(yaml).iterator();
+        int fed = 0;
+        while (true) {
+            if (!tokenizer.fetchTokens()) {
+                if (fed < bytes.length) { tokenizer.feedInput(bytes, fed++, 1); } else { tokenizer.endOfInput(); }
+                continue;
+            }
+            Token token = tokenizer.getNextToken();
+            assertEquals(expected.next() + "", token + "");
+            if (token.type == TokenType.STREAM_END) { break; }
+        }
+        assertEquals(bytes.length, fed);
+
+        tokenizer = new Tokenizer(new TokenizerConfigx());
+        tokenizer.feedInput(bytes, 0, 1);
+        try {
+            tokenizer.feedInput(bytes, 1, 1);
+            fail();
+        } catch (IllegalStateException expectedException) {
+        }
+    }
+
+    /**
+     * Purpose: A plain scalar is scanned in one pass, so the time to scan it is linear in its length
+     * Input: block and flow plain scalars of 128 KB and 1 MB without spaces, folded onto a new line every 64 KB, read with a 4 KB
+     * buffer
+     * Expected:
+     * the scalars are read whole
+     * the buffer the tokenizer reads into stays 4 KB, since a scan that went back over the scalar would have to keep all of it
+     */
+    @Test
+    public void testLongPlainScalar() {
+        for (int length : new int[] {128 * 1024, 1024 * 1024}) {
+            assertEquals(4096, plainScalarBuffer(length, "key: ", ""));
+            assertEquals(4096, plainScalarBuffer(length, "[", "]"));
+        }
+    }
+
+    /** Reads a plain scalar of the given length and returns the largest buffer the tokenizer read characters into. */
+    private int plainScalarBuffer(int length, String start, String end) {
+        StringBuilder value = new StringBuilder(length);
+        StringBuilder yaml = new StringBuilder(start);
+        for (int i = 0; value.length() < length; i++) {
+            if (i % 65536 != 65535 || i == length - 1) {
+                value.append((char) ('a' + i % 26));
+                yaml.append((char) ('a' + i % 26));
+            } else {
+                value.append(' ');
+                yaml.append("\n  ");
+            }
+        }
+        yaml.append(end);
+        final int[] largest = new int[1];
+        Reader reader = new StringReader(yaml.toString()) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                largest[0] = Math.max(largest[0], buffer.length);
+                return super.read(buffer, offset, length);
+            }
+        };
+        TokenizerConfigx config = new TokenizerConfigx();
+        config.setBufferSize(4096);
+        Tokenizer tokenizer = new Tokenizer(reader, config);
+        ScalarToken token;
+        do {
+            Token next = tokenizer.getNextToken();
+            token = next instanceof ScalarToken ? (ScalarToken) next : null;
+        } while (token == null || token.getValue().equals("key"));
+        assertEquals(value.toString(), token.getValue());
+        return largest[0];
+    }
+}